@@ -0,0 +1,59 @@
+#!/usr/bin/env bash
+#
+# Compares startup time of the plain fat jar against the extracted jar running with Spring AOT and a JDK AOT cache
+# (JDK 25+) or, on older JDKs, an AppCDS archive. Each run stops as soon as the application context is refreshed,
+# so no Open-Meteo or Pushover calls are made.
+#
+# Usage: ./mvnw -Paot package -DskipTests && scripts/measure-startup.sh [runs]
+
+set -euo pipefail
+
+RUNS=${1:-5}
+JAR=target/home-0.0.1-SNAPSHOT.jar
+WORK=target/startup
+
+# Constructors validate configuration, so the training and measurement runs need placeholder values.
+export WEATHER_LATITUDE=${WEATHER_LATITUDE:-51.5}
+export WEATHER_LONGITUDE=${WEATHER_LONGITUDE:--0.12}
+export WEATHER_TIMEZONE=${WEATHER_TIMEZONE:-Europe/London}
+export PUSHOVER_TOKEN=${PUSHOVER_TOKEN:-startup-measurement}
+export PUSHOVER_USER=${PUSHOVER_USER:-startup-measurement}
+
+if [[ ! -f "$JAR" ]]; then
+  echo "Missing $JAR, build it with ./mvnw -Paot package -DskipTests" >&2
+  exit 1
+fi
+
+rm -rf "$WORK"
+java -Djarmode=tools -jar "$JAR" extract --destination "$WORK" > /dev/null
+EXTRACTED_JAR="$WORK/$(basename "$JAR")"
+
+if java -XX:+PrintFlagsFinal -version 2> /dev/null | grep -q AOTCacheOutput; then
+  CACHE_KIND="JDK AOT cache"
+  TRAINING_FLAGS=(-XX:AOTCacheOutput="$WORK/app.aot")
+  CACHE_FLAGS=(-XX:AOTCache="$WORK/app.aot")
+else
+  CACHE_KIND="AppCDS archive"
+  TRAINING_FLAGS=(-XX:ArchiveClassesAtExit="$WORK/app.jsa")
+  CACHE_FLAGS=(-XX:SharedArchiveFile="$WORK/app.jsa")
+fi
+
+java "${TRAINING_FLAGS[@]}" -Dspring.aot.enabled=true -Dspring.context.exit=onRefresh -jar "$EXTRACTED_JAR" > /dev/null
+
+measure() {
+  local label=$1
+  shift
+  local total=0
+  for ((run = 1; run <= RUNS; run++)); do
+    local start end
+    start=$(date +%s%N)
+    java -Dspring.context.exit=onRefresh "$@" > /dev/null
+    end=$(date +%s%N)
+    total=$((total + (end - start) / 1000000))
+  done
+  printf '%-48s %6d ms (mean of %d runs)\n' "$label" $((total / RUNS)) "$RUNS"
+}
+
+measure "fat jar" -jar "$JAR"
+measure "extracted jar" -jar "$EXTRACTED_JAR"
+measure "extracted jar + Spring AOT + $CACHE_KIND" "${CACHE_FLAGS[@]}" -Dspring.aot.enabled=true -jar "$EXTRACTED_JAR"
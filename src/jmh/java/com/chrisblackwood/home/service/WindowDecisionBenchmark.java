@@ -0,0 +1,146 @@
+package com.chrisblackwood.home.service;
+
+import com.chrisblackwood.home.dto.AirQualityResponse;
+import com.chrisblackwood.home.dto.ForecastResponse;
+import com.chrisblackwood.home.dto.HourlyColumns;
+import com.chrisblackwood.home.dto.WindowDecision;
+import com.chrisblackwood.home.json.OpenMeteoJson;
+import com.chrisblackwood.home.metrics.PipelineMetrics;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the nightly pipeline from raw Open-Meteo JSON to a {@link WindowDecision}.
+ * <p>
+ * Payloads are generated to look like real 7- and 16-day hourly responses, with {@code missingRatio} of the values
+ * replaced by {@code null}. Run with {@code -prof gc} (the profile default) to see allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WindowDecisionBenchmark {
+
+    @Param({"7", "16"})
+    int days;
+
+    @Param({"0.0", "0.1"})
+    double missingRatio;
+
+    private final ObjectMapper mapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private final WindowService windowService =
+            new WindowService(null, null, PipelineMetrics.inMemory(), 3.0, 7.0, 11.0, 15.0, 18.0, 20.0, 2.0, 80.0, 1.0, 0.5, 3.0, 60.0, false);
+
+    private byte[] forecastJson;
+    private byte[] airQualityJson;
+    private ForecastResponse forecastResponse;
+    private AirQualityResponse airQualityResponse;
+    private HourlyColumns forecastColumns;
+    private HourlyColumns airQualityColumns;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        int hours = days * 24;
+        forecastJson = payload(random, hours, "temperature_2m", "wind_speed_10m", "relative_humidity_2m", "rain");
+        airQualityJson = payload(random, hours, "european_aqi");
+        forecastResponse = mapper.readValue(forecastJson, ForecastResponse.class);
+        airQualityResponse = mapper.readValue(airQualityJson, AirQualityResponse.class);
+        forecastColumns = OpenMeteoJson.readColumns(forecastJson);
+        airQualityColumns = OpenMeteoJson.readColumns(airQualityJson);
+    }
+
+    @Benchmark
+    public ForecastResponse decodeForecastRecord() throws IOException {
+        return mapper.readValue(forecastJson, ForecastResponse.class);
+    }
+
+    @Benchmark
+    public HourlyColumns decodeForecastColumns() {
+        return OpenMeteoJson.readColumns(forecastJson);
+    }
+
+    @Benchmark
+    public AirQualityResponse decodeAirQualityRecord() throws IOException {
+        return mapper.readValue(airQualityJson, AirQualityResponse.class);
+    }
+
+    @Benchmark
+    public HourlyColumns decodeAirQualityColumns() {
+        return OpenMeteoJson.readColumns(airQualityJson);
+    }
+
+    @Benchmark
+    public WindowService.OvernightMetrics overnightMetrics() {
+        return windowService.overnightMetrics(forecastColumns);
+    }
+
+    @Benchmark
+    public Double overnightMaxEuropeanAqi() {
+        return windowService.overnightMaxEuropeanAqi(airQualityColumns);
+    }
+
+    @Benchmark
+    public WindowDecision windowDecisionFromResponses() {
+        return windowService.windowDecision(forecastResponse, airQualityResponse);
+    }
+
+    @Benchmark
+    public WindowDecision windowDecisionFromColumns() {
+        return windowService.windowDecision(forecastColumns, airQualityColumns);
+    }
+
+    @Benchmark
+    public WindowDecision windowDecisionFromJson() {
+        return windowService.windowDecision(OpenMeteoJson.readColumns(forecastJson), OpenMeteoJson.readColumns(airQualityJson));
+    }
+
+    private byte[] payload(Random random, int hours, String... series) {
+        LocalDateTime start = LocalDateTime.parse("2026-03-01T00:00");
+        StringBuilder json = new StringBuilder(hours * 16 * (series.length + 1));
+        json.append("{\"latitude\":48.52,\"longitude\":2.18,\"generationtime_ms\":0.07,\"utc_offset_seconds\":3600,")
+                .append("\"timezone\":\"Europe/Paris\",\"hourly\":{\"time\":[");
+        for (int hour = 0; hour < hours; hour++) {
+            json.append(hour == 0 ? "\"" : ",\"").append(start.plusHours(hour)).append('"');
+        }
+        json.append(']');
+
+        for (String name : series) {
+            json.append(",\"").append(name).append("\":[");
+            for (int hour = 0; hour < hours; hour++) {
+                if (hour > 0) {
+                    json.append(',');
+                }
+                if (random.nextDouble() < missingRatio) {
+                    json.append("null");
+                } else {
+                    json.append(Math.round(random.nextDouble() * 300.0) / 10.0);
+                }
+            }
+            json.append(']');
+        }
+
+        return json.append("}}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,76 @@
+package com.chrisblackwood.home.service;
+
+import com.chrisblackwood.home.dto.WindowDecision;
+import com.chrisblackwood.home.metrics.PipelineMetrics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares deciding many locations one at a time on boxed metrics with the branch-free batch kernel. Inputs are
+ * random, so the scalar rules' if-chains are as unpredictable as a real fleet spread across climates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WindowDecisionKernelBenchmark {
+
+    @Param({"1000", "100000"})
+    int locations;
+
+    private final WindowService windowService =
+            new WindowService(null, null, PipelineMetrics.inMemory(), 3.0, 7.0, 11.0, 15.0, 18.0, 20.0, 2.0, 80.0, 1.0, 0.5, 3.0, 60.0, false);
+
+    private double[] tonightLows;
+    private double[] maxWinds;
+    private double[] meanHumidities;
+    private double[] rainSums;
+    private double[] maxEuropeanAqis;
+    private Double[][] boxed;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        tonightLows = random.doubles(locations, -5.0, 25.0).toArray();
+        maxWinds = random.doubles(locations, 0.0, 40.0).toArray();
+        meanHumidities = random.doubles(locations, 30.0, 100.0).toArray();
+        rainSums = random.doubles(locations, 0.0, 4.0).toArray();
+        maxEuropeanAqis = random.doubles(locations, 0.0, 100.0).toArray();
+
+        boxed = new Double[locations][];
+        for (int index = 0; index < locations; index++) {
+            boxed[index] = new Double[]{tonightLows[index], maxWinds[index], meanHumidities[index], rainSums[index],
+                    maxEuropeanAqis[index]};
+        }
+    }
+
+    @Benchmark
+    public void scalarRules(Blackhole blackhole) {
+        for (Double[] metrics : boxed) {
+            WindowDecision decision = windowService.windowDecision(metrics[0], metrics[1], metrics[2], metrics[3],
+                    metrics[4], windowService.thresholds());
+            blackhole.consume(decision);
+        }
+    }
+
+    @Benchmark
+    public int[] batchKernel() {
+        return windowService.windowDecisions(tonightLows, maxWinds, meanHumidities, rainSums, maxEuropeanAqis);
+    }
+}
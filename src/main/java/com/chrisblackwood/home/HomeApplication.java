@@ -1,41 +1,54 @@
 
 package com.chrisblackwood.home;
 
-import com.chrisblackwood.home.dto.WindowDecision;
-import com.chrisblackwood.home.notification.NotificationService;
-import com.chrisblackwood.home.service.WindowService;
+import com.chrisblackwood.home.job.WindowRecommendationJob;
+import com.chrisblackwood.home.web.ServerModeListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
+import java.lang.management.ManagementFactory;
+
 @SpringBootApplication
 public class HomeApplication implements CommandLineRunner {
 
 	private static final Logger log = LoggerFactory.getLogger(HomeApplication.class);
 
-	private final NotificationService notificationService;
-	private final WindowService windowService;
+	private final WindowRecommendationJob windowRecommendationJob;
+	private final String mode;
 
-    public HomeApplication(NotificationService notificationService, WindowService windowService) {
-		this.notificationService = notificationService;
-		this.windowService = windowService;
+    public HomeApplication(WindowRecommendationJob windowRecommendationJob, @Value("${home.mode:one-shot}") String mode) {
+		this.windowRecommendationJob = windowRecommendationJob;
+		this.mode = mode;
 	}
 
 	public static void main(String[] args) {
-		SpringApplication.run(HomeApplication.class, args);
+		SpringApplication application = new SpringApplication(HomeApplication.class);
+		application.addListeners(new ServerModeListener());
+		application.run(args);
 	}
 
 	@Override
 	public void run(String... args) {
-		try {
-			WindowDecision decision = windowService.windowDecision();
-			notificationService.sendNotification(windowService.windowMessage(decision));
-			log.info("Window recommendation sent successfully: {}", decision);
-		} catch (Exception exception) {
-			log.error("Nightly window recommendation run failed", exception);
-			throw exception;
+		if ("daemon".equals(mode)) {
+			log.info("Running as a daemon, window recommendations will be sent on schedule");
+			return;
+		}
+
+		if ("server".equals(mode)) {
+			log.info("Serving window recommendations over HTTP");
+			return;
 		}
+
+		// BacktestRunner, TuningRunner and ScheduleRunner take over in these modes.
+		if ("backtest".equals(mode) || "tune".equals(mode) || "schedule".equals(mode)) {
+			return;
+		}
+
+		windowRecommendationJob.run();
+		log.info("One-shot run finished {} ms after JVM start", ManagementFactory.getRuntimeMXBean().getUptime());
 	}
 }
@@ -0,0 +1,37 @@
+package com.chrisblackwood.home.archive;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reads a {@link BitOutput} stream in place from a buffer, typically a memory-mapped archive file, using absolute
+ * gets so the buffer's own position is never touched.
+ */
+final class BitInput {
+
+    private final ByteBuffer buffer;
+    private long position;
+
+    BitInput(ByteBuffer buffer, int offset) {
+        this.buffer = buffer;
+        this.position = (long) offset << 3;
+    }
+
+    long read(int count) {
+        long value = 0;
+        int remaining = count;
+        while (remaining > 0) {
+            int current = buffer.get((int) (position >>> 3)) & 0xFF;
+            int available = 8 - (int) (position & 7);
+            int taken = Math.min(available, remaining);
+            int bits = (current >>> (available - taken)) & ((1 << taken) - 1);
+            value = (value << taken) | bits;
+            position += taken;
+            remaining -= taken;
+        }
+        return value;
+    }
+
+    boolean readBit() {
+        return read(1) == 1L;
+    }
+}
@@ -0,0 +1,62 @@
+package com.chrisblackwood.home.archive;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Growable big-endian bit stream, written most significant bit first.
+ */
+final class BitOutput {
+
+    private long[] words = new long[16];
+    private long size;
+
+    /**
+     * Appends the low {@code count} bits of {@code value}, {@code count} being 0 to 64.
+     */
+    void write(long value, int count) {
+        if (count == 0) {
+            return;
+        }
+
+        ensureCapacity(size + count);
+        long bits = count == 64 ? value : value & ((1L << count) - 1);
+        int word = (int) (size >>> 6);
+        int free = 64 - (int) (size & 63);
+        if (count <= free) {
+            words[word] |= bits << (free - count);
+        } else {
+            int spill = count - free;
+            words[word] |= bits >>> spill;
+            words[word + 1] |= bits << (64 - spill);
+        }
+        size += count;
+    }
+
+    void writeBit(boolean bit) {
+        write(bit ? 1L : 0L, 1);
+    }
+
+    long size() {
+        return size;
+    }
+
+    /**
+     * The bits written so far, zero-padded to a whole byte.
+     */
+    byte[] toByteArray() {
+        int words = (int) ((size + 63) >>> 6);
+        ByteBuffer buffer = ByteBuffer.allocate(words * 8);
+        for (int index = 0; index < words; index++) {
+            buffer.putLong(this.words[index]);
+        }
+        return Arrays.copyOf(buffer.array(), (int) ((size + 7) >>> 3));
+    }
+
+    private void ensureCapacity(long bits) {
+        int required = (int) ((bits + 63) >>> 6);
+        if (required > words.length) {
+            words = Arrays.copyOf(words, Math.max(required, words.length * 2));
+        }
+    }
+}
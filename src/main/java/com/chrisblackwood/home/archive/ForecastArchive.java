@@ -0,0 +1,362 @@
+package com.chrisblackwood.home.archive;
+
+import com.chrisblackwood.home.dto.HourlyColumns;
+import com.chrisblackwood.home.dto.Location;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Append-only history of every fetched hourly series, kept per upstream in {@code forecast-archive.directory}.
+ * <p>
+ * {@code <upstream>.gorilla} holds blocks, one per fetch and location, with timestamps and every series compressed
+ * by {@link GorillaCodec}. {@code <upstream>.index} holds a fixed-size entry per block with its location, time range
+ * and offset, and is loaded into memory on first use. Both files stay open once used, and each block is read back
+ * through a memory-mapped view of its own byte range, so the data file can grow past 2 GB. Only hours after the last
+ * archived one for a location are appended, so re-decoding a cached response adds nothing. A block is written before
+ * its index entry, and on load both files are cut back to the last complete entry, so a crash mid-append loses at
+ * most that append.
+ * <p>
+ * Archiving is best effort: failures are logged and never fail the fetch that triggered them.
+ */
+@Component
+public class ForecastArchive {
+
+    private static final Logger log = LoggerFactory.getLogger(ForecastArchive.class);
+
+    private static final int DATA_MAGIC = 0x48474131;
+    private static final int INDEX_MAGIC = 0x48474931;
+    private static final int HEADER_BYTES = 4;
+    private static final int INDEX_ENTRY_BYTES = 8 + 8 + 8 + 8 + 8 + 4;
+
+    private final Path directory;
+    private final Map<String, Map<Location, List<IndexEntry>>> indexes = new HashMap<>();
+    private final Map<Path, FileChannel> channels = new HashMap<>();
+
+    public ForecastArchive(@Value("${forecast-archive.directory:}") String directory) {
+        this.directory = directory == null || directory.isBlank() ? null : Path.of(directory);
+    }
+
+    /**
+     * An archive that keeps nothing.
+     */
+    public static ForecastArchive disabled() {
+        return new ForecastArchive("");
+    }
+
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    public synchronized void append(String upstream, HourlyColumns columns) {
+        if (directory == null || columns == null || columns.size() == 0) {
+            return;
+        }
+
+        try {
+            Map<Location, List<IndexEntry>> index = index(upstream);
+            Location location = new Location(columns.latitude(), columns.longitude());
+            List<IndexEntry> entries = index.getOrDefault(location, List.of());
+            long after = entries.isEmpty() ? Long.MIN_VALUE : entries.getLast().lastTime();
+
+            int[] hours = newHours(columns.time(), after);
+            if (hours.length == 0) {
+                return;
+            }
+
+            long[] time = new long[hours.length];
+            for (int hour = 0; hour < hours.length; hour++) {
+                time[hour] = columns.time()[hours[hour]];
+            }
+
+            IndexEntry entry = appendBlock(upstream, location, time, columns, hours);
+            appendIndexEntry(upstream, entry);
+            index.computeIfAbsent(location, ignored -> new ArrayList<>()).add(entry);
+        } catch (IOException | RuntimeException exception) {
+            log.warn("Failed to archive {} series for {},{}", upstream, columns.latitude(), columns.longitude(),
+                    exception);
+        }
+    }
+
+    /**
+     * Every archived hour for {@code location}, which must match the coordinates Open-Meteo answered with, or
+     * {@code null} when nothing was archived there. Series missing from some blocks are filled with {@code NaN}.
+     */
+    public synchronized HourlyColumns read(String upstream, Location location) {
+        if (directory == null) {
+            return null;
+        }
+
+        List<IndexEntry> entries = indexOrEmpty(upstream).get(location);
+        if (entries == null || entries.isEmpty()) {
+            return null;
+        }
+
+        try {
+            FileChannel channel = channel(dataFile(upstream), DATA_MAGIC);
+            List<Block> blocks = new ArrayList<>(entries.size());
+            int size = 0;
+            for (IndexEntry entry : entries) {
+                Block block = readBlock(channel.map(FileChannel.MapMode.READ_ONLY, entry.offset(), entry.length()));
+                blocks.add(block);
+                size += block.time().length;
+            }
+
+            return concatenate(location, blocks, size);
+        } catch (IOException | RuntimeException exception) {
+            throw new IllegalStateException("Failed to read " + upstream + " archive for " + location, exception);
+        }
+    }
+
+    public synchronized List<Location> locations(String upstream) {
+        return directory == null ? List.of() : List.copyOf(indexOrEmpty(upstream).keySet());
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        for (Map.Entry<Path, FileChannel> channel : channels.entrySet()) {
+            try {
+                channel.getValue().close();
+            } catch (IOException exception) {
+                log.warn("Failed to close forecast archive file {}", channel.getKey(), exception);
+            }
+        }
+        channels.clear();
+    }
+
+    // Keeps strictly increasing, valid timestamps after the last archived hour.
+    private static int[] newHours(long[] time, long after) {
+        int[] hours = new int[time.length];
+        int count = 0;
+        long latest = after;
+        for (int index = 0; index < time.length; index++) {
+            long timestamp = time[index];
+            if (timestamp != HourlyColumns.INVALID_TIME && timestamp > latest) {
+                hours[count++] = index;
+                latest = timestamp;
+            }
+        }
+        return Arrays.copyOf(hours, count);
+    }
+
+    private IndexEntry appendBlock(String upstream, Location location, long[] time, HourlyColumns columns,
+                                   int[] hours) throws IOException {
+        List<String> names = List.copyOf(new TreeSet<>(columns.series().keySet()));
+        BitOutput bits = new BitOutput();
+        GorillaCodec.writeTimes(time, bits);
+        for (String name : names) {
+            double[] source = columns.series(name);
+            double[] values = new double[hours.length];
+            for (int hour = 0; hour < hours.length; hour++) {
+                values[hour] = source[hours[hour]];
+            }
+            GorillaCodec.writeValues(values, bits);
+        }
+
+        byte[][] encodedNames =
+                names.stream().map(name -> name.getBytes(StandardCharsets.UTF_8)).toArray(byte[][]::new);
+        int namesBytes = Arrays.stream(encodedNames).mapToInt(name -> 2 + name.length).sum();
+        byte[] payload = bits.toByteArray();
+        ByteBuffer block = ByteBuffer.allocate(4 + 8 + 8 + 2 + namesBytes + payload.length);
+        block.putInt(time.length)
+                .putDouble(location.latitude())
+                .putDouble(location.longitude())
+                .putShort((short) names.size());
+        for (byte[] name : encodedNames) {
+            block.putShort((short) name.length).put(name);
+        }
+        block.put(payload).flip();
+
+        FileChannel channel = channel(dataFile(upstream), DATA_MAGIC);
+        long offset = channel.size();
+        writeAt(channel, block, offset);
+        return new IndexEntry(location, time[0], time[time.length - 1], offset, block.capacity());
+    }
+
+    private void appendIndexEntry(String upstream, IndexEntry entry) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(INDEX_ENTRY_BYTES)
+                .putDouble(entry.location().latitude())
+                .putDouble(entry.location().longitude())
+                .putLong(entry.firstTime())
+                .putLong(entry.lastTime())
+                .putLong(entry.offset())
+                .putInt(entry.length())
+                .flip();
+
+        FileChannel channel = channel(indexFile(upstream), INDEX_MAGIC);
+        writeAt(channel, buffer, channel.size());
+    }
+
+    // Opened after the index is loaded, so the files have already been cut back to the last complete entry.
+    private FileChannel channel(Path file, int magic) throws IOException {
+        FileChannel channel = channels.get(file);
+        if (channel != null) {
+            return channel;
+        }
+
+        Files.createDirectories(directory);
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() == 0) {
+            writeAt(channel, ByteBuffer.allocate(HEADER_BYTES).putInt(magic).flip(), 0);
+        }
+        channels.put(file, channel);
+        return channel;
+    }
+
+    private static void writeAt(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long next = position;
+        while (buffer.hasRemaining()) {
+            next += channel.write(buffer, next);
+        }
+    }
+
+    private static Block readBlock(ByteBuffer data) {
+        int position = 0;
+        int count = data.getInt(position);
+        position += 4 + 8 + 8;
+        int seriesCount = data.getShort(position);
+        position += 2;
+
+        List<String> names = new ArrayList<>(seriesCount);
+        for (int series = 0; series < seriesCount; series++) {
+            int length = data.getShort(position);
+            byte[] name = new byte[length];
+            data.get(position + 2, name);
+            names.add(new String(name, StandardCharsets.UTF_8));
+            position += 2 + length;
+        }
+
+        BitInput bits = new BitInput(data, position);
+        long[] time = GorillaCodec.readTimes(bits, count);
+        Map<String, double[]> series = new LinkedHashMap<>();
+        for (String name : names) {
+            series.put(name, GorillaCodec.readValues(bits, count));
+        }
+        return new Block(time, series);
+    }
+
+    private static HourlyColumns concatenate(Location location, List<Block> blocks, int size) {
+        long[] time = new long[size];
+        Map<String, double[]> series = new HashMap<>();
+        int position = 0;
+        for (Block block : blocks) {
+            int length = block.time().length;
+            System.arraycopy(block.time(), 0, time, position, length);
+            for (Map.Entry<String, double[]> values : block.series().entrySet()) {
+                double[] column = series.computeIfAbsent(values.getKey(), ignored -> {
+                    double[] missing = new double[size];
+                    Arrays.fill(missing, Double.NaN);
+                    return missing;
+                });
+                System.arraycopy(values.getValue(), 0, column, position, length);
+            }
+            position += length;
+        }
+
+        return new HourlyColumns(location.latitude(), location.longitude(), time, series);
+    }
+
+    private Map<Location, List<IndexEntry>> indexOrEmpty(String upstream) {
+        try {
+            return index(upstream);
+        } catch (IOException exception) {
+            log.warn("Ignoring unreadable {} archive index", upstream, exception);
+            return Map.of();
+        }
+    }
+
+    private Map<Location, List<IndexEntry>> index(String upstream) throws IOException {
+        Map<Location, List<IndexEntry>> index = indexes.get(upstream);
+        if (index == null) {
+            index = loadIndex(upstream);
+            indexes.put(upstream, index);
+        }
+        return index;
+    }
+
+    private Map<Location, List<IndexEntry>> loadIndex(String upstream) throws IOException {
+        Map<Location, List<IndexEntry>> index = new HashMap<>();
+        Path indexFile = indexFile(upstream);
+        Path dataFile = dataFile(upstream);
+        if (!Files.exists(dataFile)) {
+            // Entries without their data can only point at garbage once new blocks are written.
+            Files.deleteIfExists(indexFile);
+            return index;
+        }
+
+        ByteBuffer entries;
+        try {
+            entries = ByteBuffer.wrap(Files.readAllBytes(indexFile));
+        } catch (NoSuchFileException exception) {
+            return index;
+        }
+        long dataSize = Files.size(dataFile);
+
+        if (entries.remaining() < HEADER_BYTES || entries.getInt() != INDEX_MAGIC) {
+            throw new IOException("Not a forecast archive index: " + indexFile);
+        }
+
+        long dataEnd = HEADER_BYTES;
+        while (entries.remaining() >= INDEX_ENTRY_BYTES) {
+            IndexEntry entry = new IndexEntry(
+                    new Location(entries.getDouble(), entries.getDouble()),
+                    entries.getLong(),
+                    entries.getLong(),
+                    entries.getLong(),
+                    entries.getInt()
+            );
+            if (entry.offset() + entry.length() > dataSize) {
+                entries.position(entries.position() - INDEX_ENTRY_BYTES);
+                break;
+            }
+            index.computeIfAbsent(entry.location(), ignored -> new ArrayList<>()).add(entry);
+            dataEnd = Math.max(dataEnd, entry.offset() + entry.length());
+        }
+
+        truncate(indexFile, entries.position(), upstream);
+        truncate(dataFile, dataEnd, upstream);
+        return index;
+    }
+
+    private static void truncate(Path file, long size, String upstream) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            if (channel.size() > size) {
+                log.warn("Discarding {} bytes of an interrupted {} archive append from {}", channel.size() - size,
+                        upstream, file);
+                channel.truncate(size);
+            }
+        }
+    }
+
+    private Path dataFile(String upstream) {
+        return directory.resolve(upstream + ".gorilla");
+    }
+
+    private Path indexFile(String upstream) {
+        return directory.resolve(upstream + ".index");
+    }
+
+    private record IndexEntry(Location location, long firstTime, long lastTime, long offset, int length) {
+    }
+
+    private record Block(long[] time, Map<String, double[]> series) {
+    }
+}
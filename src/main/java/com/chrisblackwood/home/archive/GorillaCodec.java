@@ -0,0 +1,148 @@
+package com.chrisblackwood.home.archive;
+
+/**
+ * Timestamp and value compression from Facebook's Gorilla time-series database.
+ * <p>
+ * Timestamps are stored as a delta of deltas, so a regular hourly axis costs one bit per point after the first.
+ * Values are XORed with their predecessor; a repeat costs one bit, and otherwise only the meaningful bits between the
+ * leading and trailing zeros are written, reusing the previous window when they still fit inside it.
+ */
+final class GorillaCodec {
+
+    // Open-Meteo series are hourly, so seeding the first delta with an hour makes it free too.
+    private static final long EXPECTED_DELTA = 3_600L;
+
+    private GorillaCodec() {
+    }
+
+    static void writeTimes(long[] times, BitOutput output) {
+        if (times.length == 0) {
+            return;
+        }
+
+        output.write(times[0], 64);
+        long previousDelta = EXPECTED_DELTA;
+        for (int index = 1; index < times.length; index++) {
+            long delta = times[index] - times[index - 1];
+            long deltaOfDelta = delta - previousDelta;
+            previousDelta = delta;
+
+            if (deltaOfDelta == 0) {
+                output.writeBit(false);
+            } else if (fits(deltaOfDelta, 7)) {
+                output.write(0b10, 2);
+                output.write(deltaOfDelta, 7);
+            } else if (fits(deltaOfDelta, 9)) {
+                output.write(0b110, 3);
+                output.write(deltaOfDelta, 9);
+            } else if (fits(deltaOfDelta, 12)) {
+                output.write(0b1110, 4);
+                output.write(deltaOfDelta, 12);
+            } else {
+                output.write(0b1111, 4);
+                output.write(deltaOfDelta, 64);
+            }
+        }
+    }
+
+    static long[] readTimes(BitInput input, int count) {
+        long[] times = new long[count];
+        if (count == 0) {
+            return times;
+        }
+
+        times[0] = input.read(64);
+        long delta = EXPECTED_DELTA;
+        for (int index = 1; index < count; index++) {
+            long deltaOfDelta;
+            if (!input.readBit()) {
+                deltaOfDelta = 0;
+            } else if (!input.readBit()) {
+                deltaOfDelta = signed(input.read(7), 7);
+            } else if (!input.readBit()) {
+                deltaOfDelta = signed(input.read(9), 9);
+            } else if (!input.readBit()) {
+                deltaOfDelta = signed(input.read(12), 12);
+            } else {
+                deltaOfDelta = input.read(64);
+            }
+
+            delta += deltaOfDelta;
+            times[index] = times[index - 1] + delta;
+        }
+
+        return times;
+    }
+
+    static void writeValues(double[] values, BitOutput output) {
+        if (values.length == 0) {
+            return;
+        }
+
+        long previous = Double.doubleToLongBits(values[0]);
+        output.write(previous, 64);
+        int previousLeading = -1;
+        int previousTrailing = 0;
+
+        for (int index = 1; index < values.length; index++) {
+            long current = Double.doubleToLongBits(values[index]);
+            long xor = current ^ previous;
+            previous = current;
+
+            if (xor == 0) {
+                output.writeBit(false);
+                continue;
+            }
+
+            int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+            int trailing = Long.numberOfTrailingZeros(xor);
+            if (previousLeading >= 0 && leading >= previousLeading && trailing >= previousTrailing) {
+                output.write(0b10, 2);
+                output.write(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+            } else {
+                int meaningful = 64 - leading - trailing;
+                output.write(0b11, 2);
+                output.write(leading, 5);
+                output.write(meaningful - 1, 6);
+                output.write(xor >>> trailing, meaningful);
+                previousLeading = leading;
+                previousTrailing = trailing;
+            }
+        }
+    }
+
+    static double[] readValues(BitInput input, int count) {
+        double[] values = new double[count];
+        if (count == 0) {
+            return values;
+        }
+
+        long previous = input.read(64);
+        values[0] = Double.longBitsToDouble(previous);
+        int leading = 0;
+        int trailing = 0;
+
+        for (int index = 1; index < count; index++) {
+            if (input.readBit()) {
+                if (input.readBit()) {
+                    leading = (int) input.read(5);
+                    int meaningful = (int) input.read(6) + 1;
+                    trailing = 64 - leading - meaningful;
+                }
+                previous ^= input.read(64 - leading - trailing) << trailing;
+            }
+            values[index] = Double.longBitsToDouble(previous);
+        }
+
+        return values;
+    }
+
+    private static boolean fits(long value, int bits) {
+        long limit = 1L << (bits - 1);
+        return value >= -limit && value < limit;
+    }
+
+    private static long signed(long value, int bits) {
+        return (value << (64 - bits)) >> (64 - bits);
+    }
+}
@@ -0,0 +1,63 @@
+package com.chrisblackwood.home.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * The last decoded value per request key, remembered with the {@link XxHash64} and length of the body it came from.
+ * Between model updates Open-Meteo returns byte-identical bodies, so a matching hash means the previous value can be
+ * reused instead of decoding again. Holds at most {@code maxEntries} keys, least recently used first out.
+ */
+public final class DecodedBodyCache<V> {
+
+    private final Map<String, Entry<V>> entries;
+    private final ToLongFunction<byte[]> hash;
+
+    public DecodedBodyCache(int maxEntries) {
+        this(maxEntries, XxHash64::hash);
+    }
+
+    DecodedBodyCache(int maxEntries, ToLongFunction<byte[]> hash) {
+        if (maxEntries <= 0) {
+            throw new IllegalStateException("Decoded body cache size must be positive");
+        }
+
+        this.hash = hash;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry<V>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the value decoded from the previous body for {@code key} when {@code body} is the same, otherwise runs
+     * {@code decoder} and remembers its result for next time.
+     */
+    public V decode(String key, byte[] body, Supplier<V> decoder) {
+        long bodyHash = hash.applyAsLong(body);
+        Entry<V> previous;
+        synchronized (entries) {
+            previous = entries.get(key);
+        }
+        if (previous != null && previous.hash() == bodyHash && previous.length() == body.length) {
+            return previous.value();
+        }
+
+        V value = decoder.get();
+        synchronized (entries) {
+            entries.put(key, new Entry<>(bodyHash, body.length, value));
+        }
+        return value;
+    }
+
+    private record Entry<V>(
+            long hash,
+            int length,
+            V value
+    ) {
+    }
+}
@@ -0,0 +1,325 @@
+package com.chrisblackwood.home.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Caches raw Open-Meteo response bodies by request key (coordinates, timezone and requested variables).
+ * <p>
+ * Entries younger than {@code forecast-cache.ttl} are served without touching the network. Older entries are
+ * revalidated with {@code If-None-Match}/{@code If-Modified-Since} when the upstream sent validators. When
+ * {@code forecast-cache.directory} is set, entries are also written to disk so cron-style restarts can reuse them.
+ * <p>
+ * At most {@code forecast-cache.max-entries} entries are kept, least recently used first out, and an evicted entry's
+ * file is deleted with it, so arbitrary coordinates from server mode cannot grow the cache without bound.
+ * <p>
+ * Expired entries are kept for one more {@code forecast-cache.ttl} so their validators can still be used, then deleted
+ * from memory and disk. The sweep runs on the first write after startup and then at most once per TTL, so keys that
+ * are never requested again (such as yesterday's dated overnight range) do not pile up.
+ * <p>
+ * Concurrent misses for the same key share one upstream request through {@link SingleFlight}, whether or not caching
+ * is enabled.
+ */
+@Component
+public class ForecastCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ForecastCache.class);
+    private static final int FILE_FORMAT_VERSION = 1;
+
+    private final boolean enabled;
+    private final Duration ttl;
+    private final int maxEntries;
+    private final Path directory;
+    private final Clock clock;
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final SingleFlight<String, byte[]> inFlight = new SingleFlight<>();
+    private final AtomicReference<Instant> nextPurge = new AtomicReference<>(Instant.MIN);
+
+    @Autowired
+    public ForecastCache(
+            @Value("${forecast-cache.enabled:true}") boolean enabled,
+            @Value("${forecast-cache.ttl:PT1H}") Duration ttl,
+            @Value("${forecast-cache.max-entries:4096}") int maxEntries,
+            @Value("${forecast-cache.directory:}") String directory
+    ) {
+        this(enabled, ttl, maxEntries, directory, Clock.systemUTC());
+    }
+
+    ForecastCache(boolean enabled, Duration ttl, int maxEntries, String directory, Clock clock) {
+        if (ttl == null || ttl.isNegative()) {
+            throw new IllegalStateException("forecast-cache.ttl must not be negative");
+        }
+        if (maxEntries <= 0) {
+            throw new IllegalStateException("forecast-cache.max-entries must be positive");
+        }
+
+        this.enabled = enabled;
+        this.ttl = ttl;
+        this.maxEntries = maxEntries;
+        this.directory = directory == null || directory.isBlank() ? null : Path.of(directory);
+        this.clock = clock;
+    }
+
+    /**
+     * A cache that never stores anything and always calls through to the upstream.
+     */
+    public static ForecastCache disabled() {
+        return new ForecastCache(false, Duration.ZERO, 1, "", Clock.systemUTC());
+    }
+
+    /**
+     * Returns the body for {@code key}, calling {@code fetcher} only when there is no fresh entry. The fetcher receives
+     * the conditional request headers to send and may answer {@code 304 Not Modified}.
+     */
+    public byte[] fetch(String key, Fetcher fetcher) {
+        if (!enabled) {
+            return inFlight.execute(key, () -> requireBody(fetcher.fetch(new HttpHeaders())));
+        }
+
+        Entry cached = lookup(key);
+        if (cached != null && cached.fetchedAt().plus(ttl).isAfter(clock.instant())) {
+            return cached.body();
+        }
+
+        return inFlight.execute(key, () -> refresh(key, fetcher));
+    }
+
+    private byte[] refresh(String key, Fetcher fetcher) {
+        // Checked again: a caller that just finished refreshing this key may have stored a fresh entry.
+        Instant now = clock.instant();
+        Entry cached = lookup(key);
+        if (cached != null && cached.fetchedAt().plus(ttl).isAfter(now)) {
+            return cached.body();
+        }
+
+        HttpHeaders conditionalHeaders = new HttpHeaders();
+        if (cached != null && cached.etag() != null) {
+            conditionalHeaders.setIfNoneMatch(cached.etag());
+        }
+        if (cached != null && cached.lastModified() != null) {
+            conditionalHeaders.set(HttpHeaders.IF_MODIFIED_SINCE, cached.lastModified());
+        }
+
+        ResponseEntity<byte[]> response = fetcher.fetch(conditionalHeaders);
+        if (cached != null && response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+            store(key, new Entry(cached.body(), cached.etag(), cached.lastModified(), now));
+            return cached.body();
+        }
+
+        byte[] body = requireBody(response);
+        HttpHeaders headers = response.getHeaders();
+        store(key, new Entry(body, headers.getETag(), headers.getFirst(HttpHeaders.LAST_MODIFIED), now));
+        return body;
+    }
+
+    private Entry lookup(String key) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry != null || directory == null) {
+            return entry;
+        }
+
+        entry = read(fileFor(key));
+        if (entry != null) {
+            List<String> evicted;
+            synchronized (entries) {
+                Entry stored = entries.putIfAbsent(key, entry);
+                if (stored != null) {
+                    return stored;
+                }
+                evicted = evictEldest();
+            }
+            deleteFiles(evicted);
+        }
+        return entry;
+    }
+
+    private void store(String key, Entry entry) {
+        List<String> evicted;
+        synchronized (entries) {
+            entries.put(key, entry);
+            evicted = evictEldest();
+        }
+        if (directory != null) {
+            write(fileFor(key), entry);
+            deleteFiles(evicted);
+        }
+        purgeExpired(entry.fetchedAt());
+    }
+
+    // Called holding the entries lock; returns the evicted keys so their files can be deleted outside it.
+    private List<String> evictEldest() {
+        if (entries.size() <= maxEntries) {
+            return List.of();
+        }
+
+        List<String> evicted = new ArrayList<>(entries.size() - maxEntries);
+        Iterator<String> eldest = entries.keySet().iterator();
+        while (entries.size() > maxEntries) {
+            evicted.add(eldest.next());
+            eldest.remove();
+        }
+        return evicted;
+    }
+
+    private void deleteFiles(List<String> keys) {
+        if (directory == null) {
+            return;
+        }
+
+        for (String key : keys) {
+            try {
+                Files.deleteIfExists(fileFor(key));
+            } catch (IOException exception) {
+                log.warn("Failed to delete evicted forecast cache entry {}", key, exception);
+            }
+        }
+    }
+
+    private void purgeExpired(Instant now) {
+        Instant due = nextPurge.get();
+        if (now.isBefore(due) || !nextPurge.compareAndSet(due, now.plus(ttl))) {
+            return;
+        }
+
+        Instant cutoff = now.minus(ttl).minus(ttl);
+        synchronized (entries) {
+            entries.values().removeIf(entry -> !entry.fetchedAt().isAfter(cutoff));
+        }
+        if (directory == null) {
+            return;
+        }
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.bin")) {
+            for (Path file : files) {
+                Instant fetchedAt = readFetchedAt(file);
+                if (fetchedAt == null || !fetchedAt.isAfter(cutoff)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException exception) {
+            log.warn("Failed to purge expired forecast cache entries from {}", directory, exception);
+        }
+    }
+
+    private Entry read(Path file) {
+        try (InputStream inputStream = Files.newInputStream(file);
+             DataInputStream input = new DataInputStream(inputStream)) {
+            if (input.readInt() != FILE_FORMAT_VERSION) {
+                return null;
+            }
+
+            Instant fetchedAt = Instant.ofEpochMilli(input.readLong());
+            String etag = readOptional(input);
+            String lastModified = readOptional(input);
+            byte[] body = input.readNBytes(input.readInt());
+            return new Entry(body, etag, lastModified, fetchedAt);
+        } catch (NoSuchFileException exception) {
+            return null;
+        } catch (IOException exception) {
+            log.warn("Ignoring unreadable forecast cache entry {}", file, exception);
+            return null;
+        }
+    }
+
+    private Instant readFetchedAt(Path file) {
+        try (InputStream inputStream = Files.newInputStream(file);
+             DataInputStream input = new DataInputStream(inputStream)) {
+            return input.readInt() == FILE_FORMAT_VERSION ? Instant.ofEpochMilli(input.readLong()) : null;
+        } catch (IOException exception) {
+            return null;
+        }
+    }
+
+    private void write(Path file, Entry entry) {
+        try {
+            Files.createDirectories(directory);
+            Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try (OutputStream outputStream = Files.newOutputStream(temporary);
+                 DataOutputStream output = new DataOutputStream(outputStream)) {
+                output.writeInt(FILE_FORMAT_VERSION);
+                output.writeLong(entry.fetchedAt().toEpochMilli());
+                writeOptional(output, entry.etag());
+                writeOptional(output, entry.lastModified());
+                output.writeInt(entry.body().length);
+                output.write(entry.body());
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException exception) {
+            log.warn("Failed to write forecast cache entry {}", file, exception);
+        }
+    }
+
+    private String readOptional(DataInputStream input) throws IOException {
+        return input.readBoolean() ? input.readUTF() : null;
+    }
+
+    private void writeOptional(DataOutputStream output, String value) throws IOException {
+        output.writeBoolean(value != null);
+        if (value != null) {
+            output.writeUTF(value);
+        }
+    }
+
+    private Path fileFor(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return directory.resolve(HexFormat.of().formatHex(digest) + ".bin");
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException("SHA-256 is not available", exception);
+        }
+    }
+
+    private byte[] requireBody(ResponseEntity<byte[]> response) {
+        if (response == null || response.getBody() == null) {
+            throw new IllegalStateException("Open-Meteo returned an empty response");
+        }
+
+        return response.getBody();
+    }
+
+    @FunctionalInterface
+    public interface Fetcher {
+        ResponseEntity<byte[]> fetch(HttpHeaders conditionalHeaders);
+    }
+
+    private record Entry(
+            byte[] body,
+            String etag,
+            String lastModified,
+            Instant fetchedAt
+    ) {
+    }
+}
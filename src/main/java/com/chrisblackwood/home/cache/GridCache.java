@@ -0,0 +1,175 @@
+package com.chrisblackwood.home.cache;
+
+import com.chrisblackwood.home.dto.HourlyColumns;
+import com.chrisblackwood.home.dto.Location;
+import com.chrisblackwood.home.metrics.PipelineMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Decoded hourly data per model grid cell, so nearby locations share one fetch.
+ * <p>
+ * Open-Meteo answers from the nearest grid point of the model it uses, so locations within one cell get the same data.
+ * Coordinates are snapped to cells of {@code weather.grid-resolution} degrees for forecasts and
+ * {@code air-quality.grid-resolution} degrees for air quality; the latter defaults to the resolution of the configured
+ * {@code air-quality.domain}. Only cells that are missing or older than {@code forecast-cache.ttl} are fetched, once
+ * each, requested at the cell centre. At most {@code grid-cache.max-cells} cells are kept, least recently used first
+ * out. A resolution of zero turns snapping off for that upstream.
+ */
+@Component
+public class GridCache {
+
+    private static final double CAMS_EUROPE_RESOLUTION = 0.1;
+    private static final double CAMS_GLOBAL_RESOLUTION = 0.4;
+    private static final double COORDINATE_PRECISION = 1e6;
+
+    private final int maxCells;
+    private final Duration ttl;
+    private final Map<String, Double> resolutions;
+    private final Clock clock;
+    private final Map<Cell, Entry> cells;
+
+    @Autowired
+    public GridCache(
+            @Value("${grid-cache.max-cells:4096}") int maxCells,
+            @Value("${forecast-cache.ttl:PT1H}") Duration ttl,
+            @Value("${weather.grid-resolution:0.02}") double weatherResolution,
+            @Value("${air-quality.grid-resolution:#{null}}") Double airQualityResolution,
+            @Value("${air-quality.domain:}") String airQualityDomain
+    ) {
+        this(maxCells, ttl, Map.of(
+                PipelineMetrics.FORECAST, weatherResolution,
+                PipelineMetrics.AIR_QUALITY, airQualityResolution != null
+                        ? airQualityResolution
+                        : domainResolution(airQualityDomain)
+        ), Clock.systemUTC());
+    }
+
+    GridCache(int maxCells, Duration ttl, Map<String, Double> resolutions, Clock clock) {
+        if (maxCells < 0) {
+            throw new IllegalStateException("grid-cache.max-cells must not be negative");
+        }
+        if (ttl == null || ttl.isNegative()) {
+            throw new IllegalStateException("forecast-cache.ttl must not be negative");
+        }
+        resolutions.forEach((upstream, resolution) -> {
+            if (resolution == null || !(resolution >= 0.0)) {
+                throw new IllegalStateException(upstream + " grid resolution must not be negative");
+            }
+        });
+
+        this.maxCells = maxCells;
+        this.ttl = ttl;
+        this.resolutions = Map.copyOf(resolutions);
+        this.clock = clock;
+        this.cells = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Cell, Entry> eldest) {
+                return size() > GridCache.this.maxCells;
+            }
+        };
+    }
+
+    /**
+     * A cache that never snaps or stores anything and passes every location straight to the fetcher.
+     */
+    public static GridCache disabled() {
+        return new GridCache(0, Duration.ZERO, Map.of(), Clock.systemUTC());
+    }
+
+    /**
+     * Returns columns for {@code locations} in order, calling {@code fetch} with the centres of the cells that have no
+     * fresh entry. {@code variant} separates entries that cover different hours of the same cell.
+     */
+    public List<HourlyColumns> columns(String upstream, String variant, List<Location> locations,
+                                       Function<List<Location>, List<HourlyColumns>> fetch) {
+        double resolution = resolutions.getOrDefault(upstream, 0.0);
+        if (maxCells == 0 || resolution == 0.0) {
+            return fetch.apply(locations);
+        }
+
+        Instant now = clock.instant();
+        List<Cell> wanted = new ArrayList<>(locations.size());
+        Map<Cell, HourlyColumns> found = new HashMap<>();
+        List<Cell> missing = new ArrayList<>();
+        Set<Cell> seen = new HashSet<>();
+        synchronized (cells) {
+            for (Location location : locations) {
+                Cell cell = Cell.of(upstream, variant, location, resolution);
+                wanted.add(cell);
+                if (!seen.add(cell)) {
+                    continue;
+                }
+
+                Entry entry = cells.get(cell);
+                if (entry != null && entry.fetchedAt().plus(ttl).isAfter(now)) {
+                    found.put(cell, entry.columns());
+                } else {
+                    missing.add(cell);
+                }
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            List<HourlyColumns> fetched = fetch.apply(missing.stream().map(cell -> cell.centre(resolution)).toList());
+            synchronized (cells) {
+                for (int index = 0; index < missing.size(); index++) {
+                    found.put(missing.get(index), fetched.get(index));
+                    cells.put(missing.get(index), new Entry(fetched.get(index), now));
+                }
+            }
+        }
+
+        return wanted.stream().map(found::get).toList();
+    }
+
+    public int size() {
+        synchronized (cells) {
+            return cells.size();
+        }
+    }
+
+    static double domainResolution(String domain) {
+        return "cams_europe".equals(domain) ? CAMS_EUROPE_RESOLUTION : CAMS_GLOBAL_RESOLUTION;
+    }
+
+    private record Cell(
+            String upstream,
+            String variant,
+            long latitudeIndex,
+            long longitudeIndex
+    ) {
+        static Cell of(String upstream, String variant, Location location, double resolution) {
+            return new Cell(upstream, variant, Math.round(location.latitude() / resolution),
+                    Math.round(location.longitude() / resolution));
+        }
+
+        Location centre(double resolution) {
+            return new Location(round(latitudeIndex * resolution), round(longitudeIndex * resolution));
+        }
+
+        // Keeps centres like 48.5 from coming out as 48.50000000000001 in request URLs and cache keys.
+        private static double round(double coordinate) {
+            return Math.round(coordinate * COORDINATE_PRECISION) / COORDINATE_PRECISION;
+        }
+    }
+
+    private record Entry(
+            HourlyColumns columns,
+            Instant fetchedAt
+    ) {
+    }
+}
@@ -0,0 +1,100 @@
+package com.chrisblackwood.home.cache;
+
+import com.chrisblackwood.home.dto.Location;
+import com.chrisblackwood.home.dto.WindowRecommendation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Caches computed recommendations by location for the current freshness period, so repeated polls for the same place
+ * skip decoding and deciding altogether.
+ * <p>
+ * Time is cut into {@code recommendation-cache.ttl} periods and an entry is only served within the period it was
+ * computed in, so every location moves to the next forecast at the same moment. At most
+ * {@code recommendation-cache.max-entries} locations are kept; when full, entries from earlier periods are dropped and,
+ * if that is not enough, new results are returned without being cached. Concurrent misses for one location are
+ * computed once.
+ */
+@Component
+public class RecommendationCache {
+
+    private final Duration ttl;
+    private final int maxEntries;
+    private final Clock clock;
+    private final Map<Location, Entry> entries = new ConcurrentHashMap<>();
+    private final SingleFlight<Location, WindowRecommendation> inFlight = new SingleFlight<>();
+
+    @Autowired
+    public RecommendationCache(
+            @Value("${recommendation-cache.ttl:PT15M}") Duration ttl,
+            @Value("${recommendation-cache.max-entries:10000}") int maxEntries
+    ) {
+        this(ttl, maxEntries, Clock.systemUTC());
+    }
+
+    RecommendationCache(Duration ttl, int maxEntries, Clock clock) {
+        if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalStateException("recommendation-cache.ttl must be positive");
+        }
+        if (maxEntries < 0) {
+            throw new IllegalStateException("recommendation-cache.max-entries must not be negative");
+        }
+
+        this.ttl = ttl;
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+    }
+
+    /**
+     * Returns the recommendation for {@code location} from the current period, calling {@code compute} when there is
+     * none.
+     */
+    public WindowRecommendation get(Location location, Function<Location, WindowRecommendation> compute) {
+        Entry cached = entries.get(location);
+        if (cached != null && cached.period() == currentPeriod()) {
+            return cached.recommendation();
+        }
+
+        return inFlight.execute(location, () -> computeAndStore(location, compute));
+    }
+
+    private WindowRecommendation computeAndStore(Location location, Function<Location, WindowRecommendation> compute) {
+        long period = currentPeriod();
+        Entry cached = entries.get(location);
+        if (cached != null && cached.period() == period) {
+            return cached.recommendation();
+        }
+
+        WindowRecommendation recommendation = compute.apply(location);
+        if (cached == null && entries.size() >= maxEntries) {
+            entries.values().removeIf(entry -> entry.period() != period);
+            if (entries.size() >= maxEntries) {
+                return recommendation;
+            }
+        }
+
+        entries.put(location, new Entry(period, recommendation));
+        return recommendation;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private long currentPeriod() {
+        return Math.floorDiv(clock.millis(), ttl.toMillis());
+    }
+
+    private record Entry(
+            long period,
+            WindowRecommendation recommendation
+    ) {
+    }
+}
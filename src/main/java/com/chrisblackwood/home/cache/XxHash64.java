@@ -0,0 +1,96 @@
+package com.chrisblackwood.home.cache;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * XXH64 of a byte array, used to tell whether a response body is byte-for-byte the one seen last time without keeping
+ * the previous body around. Reads eight bytes at a time, so hashing a forecast costs a small fraction of decoding it.
+ */
+public final class XxHash64 {
+
+    private static final long PRIME_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME_3 = 0x165667B19E3779F9L;
+    private static final long PRIME_4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME_5 = 0x27D4EB2F165667C5L;
+
+    private static final VarHandle LONGS =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle INTS =
+            MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private XxHash64() {
+    }
+
+    public static long hash(byte[] data) {
+        return hash(data, 0L);
+    }
+
+    public static long hash(byte[] data, long seed) {
+        int length = data.length;
+        int offset = 0;
+        long hash;
+
+        if (length >= 32) {
+            long v1 = seed + PRIME_1 + PRIME_2;
+            long v2 = seed + PRIME_2;
+            long v3 = seed;
+            long v4 = seed - PRIME_1;
+            int limit = length - 32;
+            do {
+                v1 = round(v1, (long) LONGS.get(data, offset));
+                v2 = round(v2, (long) LONGS.get(data, offset + 8));
+                v3 = round(v3, (long) LONGS.get(data, offset + 16));
+                v4 = round(v4, (long) LONGS.get(data, offset + 24));
+                offset += 32;
+            } while (offset <= limit);
+
+            hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12)
+                    + Long.rotateLeft(v4, 18);
+            hash = merge(hash, v1);
+            hash = merge(hash, v2);
+            hash = merge(hash, v3);
+            hash = merge(hash, v4);
+        } else {
+            hash = seed + PRIME_5;
+        }
+
+        hash += length;
+
+        while (offset + 8 <= length) {
+            hash ^= round(0L, (long) LONGS.get(data, offset));
+            hash = Long.rotateLeft(hash, 27) * PRIME_1 + PRIME_4;
+            offset += 8;
+        }
+        if (offset + 4 <= length) {
+            hash ^= ((int) INTS.get(data, offset) & 0xFFFFFFFFL) * PRIME_1;
+            hash = Long.rotateLeft(hash, 23) * PRIME_2 + PRIME_3;
+            offset += 4;
+        }
+        while (offset < length) {
+            hash ^= (data[offset] & 0xFFL) * PRIME_5;
+            hash = Long.rotateLeft(hash, 11) * PRIME_1;
+            offset++;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= PRIME_2;
+        hash ^= hash >>> 29;
+        hash *= PRIME_3;
+        hash ^= hash >>> 32;
+        return hash;
+    }
+
+    private static long round(long accumulator, long input) {
+        accumulator += input * PRIME_2;
+        accumulator = Long.rotateLeft(accumulator, 31);
+        return accumulator * PRIME_1;
+    }
+
+    private static long merge(long hash, long accumulator) {
+        hash ^= round(0L, accumulator);
+        return hash * PRIME_1 + PRIME_4;
+    }
+}
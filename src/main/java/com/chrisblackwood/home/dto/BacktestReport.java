@@ -0,0 +1,13 @@
+package com.chrisblackwood.home.dto;
+
+import java.time.Duration;
+import java.util.Map;
+
+public record BacktestReport(
+        int locations,
+        int skippedArchives,
+        long nights,
+        Map<WindowDecision, Long> histogram,
+        Duration elapsed
+) {
+}
@@ -0,0 +1,169 @@
+package com.chrisblackwood.home.dto;
+
+import com.chrisblackwood.home.json.HourlyColumnsDeserializer;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Column-oriented view of an Open-Meteo hourly payload. Timestamps are local wall-clock times encoded as epoch
+ * seconds (as if they were UTC), and every series is a {@code double[]} of the same length with {@link Double#NaN}
+ * standing in for missing values.
+ */
+@JsonDeserialize(using = HourlyColumnsDeserializer.class)
+public record HourlyColumns(
+        double latitude,
+        double longitude,
+        long[] time,
+        Map<String, double[]> series
+) {
+    public static final long INVALID_TIME = Long.MIN_VALUE;
+
+    public int size() {
+        return time.length;
+    }
+
+    public double[] series(String name) {
+        return series.get(name);
+    }
+
+    /**
+     * Copies the hours in {@code [from, to)} into a new instance, clamping {@code to} to the end of the axis.
+     */
+    public HourlyColumns slice(int from, int to) {
+        int end = Math.min(to, time.length);
+        Map<String, double[]> sliced = new HashMap<>();
+        series.forEach((name, values) -> sliced.put(name, Arrays.copyOfRange(values, from, end)));
+        return new HourlyColumns(latitude, longitude, Arrays.copyOfRange(time, from, end), sliced);
+    }
+
+    public static HourlyColumns from(ForecastResponse forecastResponse) {
+        if (forecastResponse == null || forecastResponse.hourly() == null || forecastResponse.hourly().time() == null) {
+            return null;
+        }
+
+        ForecastResponse.Hourly hourly = forecastResponse.hourly();
+        long[] time = parseTimes(hourly.time());
+        Map<String, double[]> series = new HashMap<>();
+        series.put("temperature_2m", toColumn(hourly.temperature_2m(), time.length));
+        series.put("wind_speed_10m", toColumn(hourly.wind_speed_10m(), time.length));
+        series.put("relative_humidity_2m", toColumn(hourly.relative_humidity_2m(), time.length));
+        series.put("rain", toColumn(hourly.rain(), time.length));
+        return new HourlyColumns(forecastResponse.latitude(), forecastResponse.longitude(), time, series);
+    }
+
+    public static HourlyColumns from(AirQualityResponse airQualityResponse) {
+        if (airQualityResponse == null || airQualityResponse.hourly() == null || airQualityResponse.hourly().time() == null) {
+            return null;
+        }
+
+        AirQualityResponse.Hourly hourly = airQualityResponse.hourly();
+        long[] time = parseTimes(hourly.time());
+        Map<String, double[]> series = new HashMap<>();
+        series.put("european_aqi", toColumn(hourly.european_aqi(), time.length));
+        return new HourlyColumns(airQualityResponse.latitude(), airQualityResponse.longitude(), time, series);
+    }
+
+    /**
+     * Parses an Open-Meteo {@code yyyy-MM-ddTHH:mm} local timestamp into epoch seconds without allocating, falling back
+     * to {@link LocalDateTime#parse} for any other shape. Returns {@link #INVALID_TIME} when the value is unusable.
+     */
+    public static long parseTime(char[] chars, int offset, int length) {
+        if (length == 16
+                && chars[offset + 4] == '-'
+                && chars[offset + 7] == '-'
+                && chars[offset + 10] == 'T'
+                && chars[offset + 13] == ':') {
+            int year = digits(chars, offset, 4);
+            int month = digits(chars, offset + 5, 2);
+            int day = digits(chars, offset + 8, 2);
+            int hour = digits(chars, offset + 11, 2);
+            int minute = digits(chars, offset + 14, 2);
+            if (year >= 0 && month >= 1 && month <= 12 && day >= 1 && day <= lengthOfMonth(year, month)
+                    && hour >= 0 && hour <= 23 && minute >= 0 && minute <= 59) {
+                return epochDay(year, month, day) * 86_400L + hour * 3_600L + minute * 60L;
+            }
+        }
+
+        if (length == 0) {
+            return INVALID_TIME;
+        }
+
+        return parseTime(new String(chars, offset, length));
+    }
+
+    public static long parseTime(String value) {
+        if (value == null || value.isBlank()) {
+            return INVALID_TIME;
+        }
+
+        try {
+            return LocalDateTime.parse(value).toEpochSecond(ZoneOffset.UTC);
+        } catch (DateTimeParseException exception) {
+            return INVALID_TIME;
+        }
+    }
+
+    private static long[] parseTimes(List<String> values) {
+        long[] time = new long[values.size()];
+        for (int index = 0; index < time.length; index++) {
+            time[index] = parseTime(values.get(index));
+        }
+
+        return time;
+    }
+
+    private static double[] toColumn(List<Double> values, int length) {
+        double[] column = new double[length];
+        Arrays.fill(column, Double.NaN);
+        if (values == null) {
+            return column;
+        }
+
+        for (int index = 0; index < Math.min(length, values.size()); index++) {
+            Double value = values.get(index);
+            if (value != null) {
+                column[index] = value;
+            }
+        }
+
+        return column;
+    }
+
+    private static int digits(char[] chars, int offset, int count) {
+        int value = 0;
+        for (int index = offset; index < offset + count; index++) {
+            int digit = chars[index] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+
+        return value;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        return switch (month) {
+            case 2 -> (year % 4 == 0 && year % 100 != 0) || year % 400 == 0 ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    // Howard Hinnant's days_from_civil, valid for the proleptic Gregorian calendar.
+    private static long epochDay(int year, int month, int day) {
+        int adjustedYear = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(adjustedYear, 400);
+        int yearOfEra = adjustedYear - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146_097L + dayOfEra - 719_468L;
+    }
+}
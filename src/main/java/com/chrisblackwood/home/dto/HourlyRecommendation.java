@@ -0,0 +1,18 @@
+package com.chrisblackwood.home.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * The decision for opening at {@code hour}, judged on the hours from then until the window closes or the night ends.
+ */
+public record HourlyRecommendation(
+        LocalDateTime hour,
+        WindowDecision decision,
+        boolean open,
+        Double low,
+        Double maxWind,
+        Double meanHumidity,
+        Double rainSum,
+        Double maxEuropeanAqi
+) {
+}
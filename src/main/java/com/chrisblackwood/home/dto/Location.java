@@ -0,0 +1,6 @@
+package com.chrisblackwood.home.dto;
+
+public record Location(
+        double latitude,
+        double longitude
+) {}
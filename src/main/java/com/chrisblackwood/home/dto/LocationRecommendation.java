@@ -0,0 +1,6 @@
+package com.chrisblackwood.home.dto;
+
+public record LocationRecommendation(
+        Location location,
+        WindowRecommendation recommendation
+) {}
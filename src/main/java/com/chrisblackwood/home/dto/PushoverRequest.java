@@ -1,7 +1,15 @@
 package com.chrisblackwood.home.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public record PushoverRequest (
         String token,
         String user,
-        String message
-) {}
+        String message,
+        String device
+) {
+    public PushoverRequest(String token, String user, String message) {
+        this(token, user, message, null);
+    }
+}
@@ -0,0 +1,20 @@
+package com.chrisblackwood.home.dto;
+
+import java.util.Map;
+
+/**
+ * One entry of {@code notification.recipients-file}: a Pushover user or group key, an optional device list, the
+ * location to forecast for and any {@code window.*} threshold overrides.
+ */
+public record Recipient(
+        String name,
+        String user,
+        String device,
+        Double latitude,
+        Double longitude,
+        Map<String, Double> thresholds
+) {
+    public Location location() {
+        return new Location(latitude, longitude);
+    }
+}
@@ -0,0 +1,11 @@
+package com.chrisblackwood.home.dto;
+
+import java.util.List;
+
+public record RecipientDelivery(
+        String recipient,
+        WindowDecision decision,
+        boolean delivered,
+        int status,
+        List<String> errors
+) {}
@@ -0,0 +1,11 @@
+package com.chrisblackwood.home.dto;
+
+import java.util.Map;
+
+public record TuningCandidate(
+        Map<String, Double> overrides,
+        WindowThresholds thresholds,
+        int matches,
+        double accuracy
+) {
+}
@@ -0,0 +1,14 @@
+package com.chrisblackwood.home.dto;
+
+import java.time.Duration;
+import java.util.List;
+
+public record TuningReport(
+        int labeledNights,
+        long evaluated,
+        long rejected,
+        TuningCandidate baseline,
+        List<TuningCandidate> best,
+        Duration elapsed
+) {
+}
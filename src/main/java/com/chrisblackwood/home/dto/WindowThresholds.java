@@ -0,0 +1,84 @@
+package com.chrisblackwood.home.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The temperature bands and weather adjustments behind a {@link WindowDecision}. The defaults come from the
+ * {@code window.*} properties; recipients may override individual values using the same property names.
+ */
+public record WindowThresholds(
+        double fiveMinuteVentMaxTemp,
+        double tenMinuteVentMaxTemp,
+        double tenToFifteenMinuteVentAndCrackMaxTemp,
+        double crackOvernightMaxTemp,
+        double openOvernightMaxTemp,
+        double strongWindThreshold,
+        double strongWindCoolingAdjustment,
+        double highHumidityThreshold,
+        double highHumidityWarmingAdjustment,
+        double lightRainThreshold,
+        double heavyRainThreshold,
+        double maxOvernightEuropeanAqi
+) {
+
+    /**
+     * The {@code window.*} property names without their prefix, in component order.
+     */
+    public static final List<String> NAMES = List.of(
+            "five-minute-vent-max-temp",
+            "ten-minute-vent-max-temp",
+            "ten-to-fifteen-minute-vent-and-crack-max-temp",
+            "crack-overnight-max-temp",
+            "open-overnight-max-temp",
+            "strong-wind-threshold",
+            "strong-wind-cooling-adjustment",
+            "high-humidity-threshold",
+            "high-humidity-warming-adjustment",
+            "light-rain-threshold",
+            "heavy-rain-threshold",
+            "max-overnight-european-aqi"
+    );
+
+    public WindowThresholds {
+        if (!(fiveMinuteVentMaxTemp <= tenMinuteVentMaxTemp
+                && tenMinuteVentMaxTemp <= tenToFifteenMinuteVentAndCrackMaxTemp
+                && tenToFifteenMinuteVentAndCrackMaxTemp <= crackOvernightMaxTemp
+                && crackOvernightMaxTemp <= openOvernightMaxTemp)) {
+            throw new IllegalStateException("Window temperature thresholds must be ordered ascending");
+        }
+    }
+
+    /**
+     * Returns a copy with the given values replaced, keyed by the {@code window.*} property name without its prefix,
+     * e.g. {@code open-overnight-max-temp}.
+     */
+    public WindowThresholds withOverrides(Map<String, Double> overrides) {
+        if (overrides == null || overrides.isEmpty()) {
+            return this;
+        }
+
+        double[] values = {
+                fiveMinuteVentMaxTemp, tenMinuteVentMaxTemp, tenToFifteenMinuteVentAndCrackMaxTemp,
+                crackOvernightMaxTemp, openOvernightMaxTemp, strongWindThreshold, strongWindCoolingAdjustment,
+                highHumidityThreshold, highHumidityWarmingAdjustment, lightRainThreshold, heavyRainThreshold,
+                maxOvernightEuropeanAqi
+        };
+
+        overrides.forEach((name, value) -> {
+            if (value == null) {
+                throw new IllegalStateException("Window threshold " + name + " must have a value");
+            }
+
+            int index = NAMES.indexOf(name);
+            if (index < 0) {
+                throw new IllegalStateException("Unknown window threshold: " + name);
+            }
+
+            values[index] = value;
+        });
+
+        return new WindowThresholds(values[0], values[1], values[2], values[3], values[4], values[5], values[6],
+                values[7], values[8], values[9], values[10], values[11]);
+    }
+}
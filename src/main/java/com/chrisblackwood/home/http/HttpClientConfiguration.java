@@ -0,0 +1,56 @@
+package com.chrisblackwood.home.http;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestClientCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * One JDK {@link HttpClient} shared by every {@code RestClient} in the application, so Open-Meteo and Pushover calls
+ * reuse pooled keep-alive connections and negotiate HTTP/2. Read timeouts are set per upstream host and responses are
+ * requested gzip-compressed.
+ */
+@Configuration
+public class HttpClientConfiguration {
+
+    static final String WEATHER_HOST = "api.open-meteo.com";
+    static final String AIR_QUALITY_HOST = "air-quality-api.open-meteo.com";
+    static final String PUSHOVER_HOST = "api.pushover.net";
+
+    @Bean
+    public HttpClient sharedHttpClient(@Value("${http.connect-timeout:PT5S}") Duration connectTimeout) {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    @Bean
+    public UpstreamRequestFactory upstreamRequestFactory(
+            HttpClient sharedHttpClient,
+            @Value("${http.read-timeout:PT15S}") Duration defaultReadTimeout,
+            @Value("${http.weather.read-timeout:PT10S}") Duration weatherReadTimeout,
+            @Value("${http.air-quality.read-timeout:PT10S}") Duration airQualityReadTimeout,
+            @Value("${http.pushover.read-timeout:PT10S}") Duration pushoverReadTimeout
+    ) {
+        return new UpstreamRequestFactory(sharedHttpClient, defaultReadTimeout, Map.of(
+                WEATHER_HOST, weatherReadTimeout,
+                AIR_QUALITY_HOST, airQualityReadTimeout,
+                PUSHOVER_HOST, pushoverReadTimeout
+        ));
+    }
+
+    @Bean
+    public RestClientCustomizer sharedHttpClientCustomizer(UpstreamRequestFactory upstreamRequestFactory,
+                                                           HttpClientMetrics httpClientMetrics) {
+        return builder -> builder
+                .requestFactory(upstreamRequestFactory)
+                .requestInterceptor(new GzipDecompressingInterceptor())
+                .requestInterceptor(new MetricsRecordingInterceptor(httpClientMetrics));
+    }
+}
@@ -0,0 +1,85 @@
+package com.chrisblackwood.home.http;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-upstream counters for the shared HTTP client: requests, failures, bytes received on the wire and time to
+ * response headers. The hot path only bumps {@link LongAdder}s; Micrometer reads them through function meters
+ * registered the first time each host is seen.
+ */
+@Component
+public class HttpClientMetrics {
+
+    private final MeterRegistry registry;
+    private final Map<String, UpstreamCounters> upstreams = new ConcurrentHashMap<>();
+
+    public HttpClientMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    void recordExchange(String host, long durationNanos, long wireBytes, boolean failed) {
+        UpstreamCounters counters = upstreams.computeIfAbsent(host, this::register);
+        counters.requests.increment();
+        counters.durationNanos.add(durationNanos);
+        if (wireBytes > 0) {
+            counters.wireBytes.add(wireBytes);
+        }
+        if (failed) {
+            counters.failures.increment();
+        }
+    }
+
+    public Map<String, Snapshot> snapshot() {
+        Map<String, Snapshot> snapshot = new TreeMap<>();
+        upstreams.forEach((host, counters) -> snapshot.put(host, new Snapshot(
+                counters.requests.sum(),
+                counters.failures.sum(),
+                counters.wireBytes.sum(),
+                counters.durationNanos.sum() / 1_000_000
+        )));
+        return snapshot;
+    }
+
+    private UpstreamCounters register(String host) {
+        UpstreamCounters counters = new UpstreamCounters();
+        FunctionTimer.builder("upstream.requests", counters,
+                        c -> c.requests.sum(), c -> c.durationNanos.sum(), TimeUnit.NANOSECONDS)
+                .description("Exchanges through the shared HTTP client and time to response headers")
+                .tag("host", host)
+                .register(registry);
+        FunctionCounter.builder("upstream.failures", counters, c -> c.failures.sum())
+                .description("Exchanges that failed or returned an error status")
+                .tag("host", host)
+                .register(registry);
+        FunctionCounter.builder("upstream.received", counters, c -> c.wireBytes.sum())
+                .description("Response bytes received on the wire, before decompression")
+                .baseUnit("bytes")
+                .tag("host", host)
+                .register(registry);
+        return counters;
+    }
+
+    public record Snapshot(
+            long requests,
+            long failures,
+            long wireBytes,
+            long totalMillis
+    ) {
+    }
+
+    private static final class UpstreamCounters {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder wireBytes = new LongAdder();
+        private final LongAdder durationNanos = new LongAdder();
+    }
+}
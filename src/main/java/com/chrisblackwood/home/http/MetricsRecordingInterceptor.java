@@ -0,0 +1,38 @@
+package com.chrisblackwood.home.http;
+
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+
+/**
+ * Records every exchange made through the shared client into {@link HttpClientMetrics}. Registered after
+ * {@link GzipDecompressingInterceptor} so it sees the compressed {@code Content-Length}.
+ */
+public class MetricsRecordingInterceptor implements ClientHttpRequestInterceptor {
+
+    private final HttpClientMetrics metrics;
+
+    public MetricsRecordingInterceptor(HttpClientMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        String host = request.getURI().getHost() == null ? "unknown" : request.getURI().getHost();
+        long start = System.nanoTime();
+
+        try {
+            ClientHttpResponse response = execution.execute(request, body);
+            metrics.recordExchange(host, System.nanoTime() - start, response.getHeaders().getContentLength(),
+                    response.getStatusCode().isError());
+            return response;
+        } catch (IOException | RuntimeException exception) {
+            metrics.recordExchange(host, System.nanoTime() - start, 0, true);
+            throw exception;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.chrisblackwood.home.http;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Creates requests on the shared {@link HttpClient}, applying the read timeout configured for the target host so a
+ * hung upstream cannot stall a run indefinitely.
+ */
+public class UpstreamRequestFactory implements ClientHttpRequestFactory {
+
+    private final JdkClientHttpRequestFactory defaultFactory;
+    private final Map<String, JdkClientHttpRequestFactory> factoriesByHost = new HashMap<>();
+
+    public UpstreamRequestFactory(HttpClient httpClient, Duration defaultReadTimeout, Map<String, Duration> readTimeouts) {
+        this.defaultFactory = factory(httpClient, defaultReadTimeout);
+        readTimeouts.forEach((host, readTimeout) -> factoriesByHost.put(host, factory(httpClient, readTimeout)));
+    }
+
+    @Override
+    public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+        return factoryFor(uri).createRequest(uri, httpMethod);
+    }
+
+    JdkClientHttpRequestFactory factoryFor(URI uri) {
+        return uri.getHost() == null ? defaultFactory : factoriesByHost.getOrDefault(uri.getHost(), defaultFactory);
+    }
+
+    private static JdkClientHttpRequestFactory factory(HttpClient httpClient, Duration readTimeout) {
+        JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(httpClient);
+        factory.setReadTimeout(readTimeout);
+        return factory;
+    }
+}
@@ -0,0 +1,33 @@
+package com.chrisblackwood.home.job;
+
+import com.chrisblackwood.home.dto.BacktestReport;
+import com.chrisblackwood.home.service.BacktestService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs {@link BacktestService} once in {@code home.mode=backtest} instead of sending tonight's recommendation.
+ */
+@Component
+@ConditionalOnProperty(name = "home.mode", havingValue = "backtest")
+public class BacktestRunner implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(BacktestRunner.class);
+
+    private final BacktestService backtestService;
+
+    public BacktestRunner(BacktestService backtestService) {
+        this.backtestService = backtestService;
+    }
+
+    @Override
+    public void run(String... args) {
+        BacktestReport report = backtestService.run();
+        if (report.skippedArchives() > 0) {
+            log.warn("{} backtest archives could not be read and were skipped", report.skippedArchives());
+        }
+    }
+}
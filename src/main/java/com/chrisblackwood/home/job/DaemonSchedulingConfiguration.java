@@ -0,0 +1,78 @@
+package com.chrisblackwood.home.job;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.scheduling.support.CronTrigger;
+
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.time.ZoneId;
+
+/**
+ * Keeps the application running in {@code home.mode=daemon} and triggers {@link WindowRecommendationJob} on a
+ * schedule. {@code daemon.cron} wins when set; otherwise the job runs {@code daemon.bedtime-offset} before the 22:00
+ * bedtime, in the configured {@code weather.timezone}, or the system timezone when that is {@code auto} and only
+ * Open-Meteo can resolve it.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "home.mode", havingValue = "daemon")
+public class DaemonSchedulingConfiguration implements SchedulingConfigurer {
+
+    private static final Logger log = LoggerFactory.getLogger(DaemonSchedulingConfiguration.class);
+    private static final LocalTime BEDTIME = LocalTime.of(22, 0);
+
+    private final WindowRecommendationJob job;
+    private final String cron;
+    private final ZoneId zone;
+
+    public DaemonSchedulingConfiguration(
+            WindowRecommendationJob job,
+            @Value("${daemon.cron:}") String cron,
+            @Value("${daemon.bedtime-offset:PT1H}") Duration bedtimeOffset,
+            @Value("${weather.timezone:}") String timezone
+    ) {
+        this.job = job;
+        this.cron = cron == null || cron.isBlank() ? cronBefore(bedtimeOffset) : cron;
+        this.zone = zoneOf(timezone);
+    }
+
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        log.info("Daemon mode: window recommendations scheduled with cron '{}' in {}", cron, zone);
+        registrar.addTriggerTask(this::runJob, new CronTrigger(cron, zone));
+    }
+
+    static String cronBefore(Duration bedtimeOffset) {
+        if (bedtimeOffset == null || bedtimeOffset.isNegative() || bedtimeOffset.compareTo(Duration.ofDays(1)) >= 0) {
+            throw new IllegalStateException("daemon.bedtime-offset must be between 0 and 24 hours");
+        }
+
+        LocalTime runAt = BEDTIME.minus(bedtimeOffset);
+        return "%d %d %d * * *".formatted(runAt.getSecond(), runAt.getMinute(), runAt.getHour());
+    }
+
+    static ZoneId zoneOf(String timezone) {
+        try {
+            return timezone == null || timezone.isBlank() ? ZoneId.systemDefault() : ZoneId.of(timezone);
+        } catch (DateTimeException exception) {
+            return ZoneId.systemDefault();
+        }
+    }
+
+    // A failed night must not stop the schedule, so failures are logged by the job and swallowed here.
+    private void runJob() {
+        try {
+            job.run();
+        } catch (RuntimeException exception) {
+            log.warn("Scheduled window recommendation run failed, waiting for the next trigger");
+        }
+    }
+}
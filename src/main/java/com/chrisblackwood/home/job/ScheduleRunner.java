@@ -0,0 +1,42 @@
+package com.chrisblackwood.home.job;
+
+import com.chrisblackwood.home.dto.HourlyRecommendation;
+import com.chrisblackwood.home.notification.NotificationQueue;
+import com.chrisblackwood.home.service.ScheduleService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Builds the hourly schedule once in {@code home.mode=schedule}, logs every hour and sends the condensed schedule.
+ */
+@Component
+@ConditionalOnProperty(name = "home.mode", havingValue = "schedule")
+public class ScheduleRunner implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ScheduleRunner.class);
+
+    private final ScheduleService scheduleService;
+    private final NotificationQueue notificationQueue;
+
+    public ScheduleRunner(ScheduleService scheduleService, NotificationQueue notificationQueue) {
+        this.scheduleService = scheduleService;
+        this.notificationQueue = notificationQueue;
+    }
+
+    @Override
+    public void run(String... args) {
+        List<HourlyRecommendation> schedule = scheduleService.schedule();
+        for (HourlyRecommendation hour : schedule) {
+            log.info("{} {} (low {}, max wind {}, mean humidity {}, rain {}, max European AQI {})", hour.hour(),
+                    hour.decision(), hour.low(), hour.maxWind(), hour.meanHumidity(), hour.rainSum(),
+                    hour.maxEuropeanAqi());
+        }
+
+        notificationQueue.enqueue(scheduleService.scheduleMessage(schedule));
+    }
+}
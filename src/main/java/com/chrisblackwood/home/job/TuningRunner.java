@@ -0,0 +1,47 @@
+package com.chrisblackwood.home.job;
+
+import com.chrisblackwood.home.dto.TuningCandidate;
+import com.chrisblackwood.home.dto.TuningReport;
+import com.chrisblackwood.home.service.TuningService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Runs {@link TuningService} once in {@code home.mode=tune} and logs the best configurations as {@code window.*}
+ * properties.
+ */
+@Component
+@ConditionalOnProperty(name = "home.mode", havingValue = "tune")
+public class TuningRunner implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(TuningRunner.class);
+
+    private final TuningService tuningService;
+
+    public TuningRunner(TuningService tuningService) {
+        this.tuningService = tuningService;
+    }
+
+    @Override
+    public void run(String... args) {
+        TuningReport report = tuningService.run();
+        List<TuningCandidate> best = report.best();
+        for (int rank = 0; rank < best.size(); rank++) {
+            TuningCandidate candidate = best.get(rank);
+            log.info("#{} accuracy {} ({}/{}): {}", rank + 1, candidate.accuracy(), candidate.matches(),
+                    report.labeledNights(), properties(candidate));
+        }
+    }
+
+    static String properties(TuningCandidate candidate) {
+        return candidate.overrides().entrySet().stream()
+                .map(override -> "window." + override.getKey() + "=" + override.getValue())
+                .collect(Collectors.joining(" "));
+    }
+}
@@ -0,0 +1,109 @@
+package com.chrisblackwood.home.job;
+
+import com.chrisblackwood.home.dto.LocationRecommendation;
+import com.chrisblackwood.home.dto.RecipientDelivery;
+import com.chrisblackwood.home.dto.WindowRecommendation;
+import com.chrisblackwood.home.journal.DecisionJournal;
+import com.chrisblackwood.home.journal.JournalKey;
+import com.chrisblackwood.home.metrics.FlightRecording;
+import com.chrisblackwood.home.notification.NotificationQueue;
+import com.chrisblackwood.home.service.FleetService;
+import com.chrisblackwood.home.service.RecipientFanOutService;
+import com.chrisblackwood.home.service.WindowService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * One nightly recommendation run: every recipient in {@code notification.recipients-file} when configured, every
+ * {@code fleet.locations} entry when fleet mode is enabled, or else the single configured location with a queued
+ * Pushover notification. Shared by one-shot and daemon mode. The flight recording,
+ * when enabled, is dumped after every run whether it succeeded or not.
+ * <p>
+ * With a {@link DecisionJournal} configured, a night that was already queued or delivered is skipped, so a retried run
+ * does not notify twice.
+ */
+@Component
+public class WindowRecommendationJob {
+
+    private static final Logger log = LoggerFactory.getLogger(WindowRecommendationJob.class);
+
+    private final NotificationQueue notificationQueue;
+    private final WindowService windowService;
+    private final FleetService fleetService;
+    private final RecipientFanOutService recipientFanOutService;
+    private final FlightRecording flightRecording;
+    private final DecisionJournal decisionJournal;
+
+    public WindowRecommendationJob(NotificationQueue notificationQueue, WindowService windowService,
+                                   FleetService fleetService, RecipientFanOutService recipientFanOutService,
+                                   FlightRecording flightRecording, DecisionJournal decisionJournal) {
+        this.notificationQueue = notificationQueue;
+        this.windowService = windowService;
+        this.fleetService = fleetService;
+        this.recipientFanOutService = recipientFanOutService;
+        this.flightRecording = flightRecording;
+        this.decisionJournal = decisionJournal;
+    }
+
+    public void run() {
+        try {
+            if (recipientFanOutService.isEnabled()) {
+                runRecipients();
+            } else if (fleetService.isEnabled()) {
+                runFleet();
+            } else {
+                runSingle();
+            }
+        } finally {
+            flightRecording.dump();
+        }
+    }
+
+    private void runSingle() {
+        try {
+            JournalKey key = decisionJournal.tonight(windowService.location(), null);
+            if (decisionJournal.isComplete(key)) {
+                log.info("Window recommendation for {} was already sent, skipping", key.night());
+                return;
+            }
+
+            WindowRecommendation recommendation = windowService.windowRecommendation();
+            decisionJournal.decided(key, recommendation,
+                    DecisionJournal.inputsHash(recommendation, windowService.thresholds()));
+            decisionJournal.sync();
+            notificationQueue.enqueue(recommendation.message(), key);
+            log.info("Window recommendation queued for delivery: {}", recommendation.decision());
+        } catch (Exception exception) {
+            log.error("Nightly window recommendation run failed", exception);
+            throw exception;
+        }
+    }
+
+    private void runRecipients() {
+        try {
+            for (RecipientDelivery delivery : recipientFanOutService.deliver()) {
+                if (delivery.delivered()) {
+                    log.info("Window recommendation for {} delivered: {}", delivery.recipient(), delivery.decision());
+                } else {
+                    log.warn("Window recommendation for {} not delivered: {}", delivery.recipient(), delivery.errors());
+                }
+            }
+        } catch (Exception exception) {
+            log.error("Recipient fan-out run failed", exception);
+            throw exception;
+        }
+    }
+
+    private void runFleet() {
+        try {
+            for (LocationRecommendation recommendation : fleetService.recommendations()) {
+                log.info("Window recommendation for {}: {}",
+                        recommendation.location(), recommendation.recommendation().decision());
+            }
+        } catch (Exception exception) {
+            log.error("Fleet window recommendation run failed", exception);
+            throw exception;
+        }
+    }
+}
@@ -0,0 +1,296 @@
+package com.chrisblackwood.home.journal;
+
+import com.chrisblackwood.home.dto.Location;
+import com.chrisblackwood.home.dto.WindowRecommendation;
+import com.chrisblackwood.home.dto.WindowThresholds;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-ahead journal of nightly runs in {@code journal.file}, one JSON record per line, keyed by night, location and
+ * recipient.
+ * <p>
+ * A run writes {@link JournalRecord.Stage#DECIDED} and syncs before sending anything, then records how delivery went.
+ * Re-runs skip keys that already completed and retry the rest, so a crash after sending no longer causes a duplicate
+ * and a crash before sending leaves a record that the night is still owed. The one remaining window is a crash after
+ * Pushover accepted a message but before its outcome reached the disk; that message is sent again.
+ * <p>
+ * Syncs are group-committed: records are appended without forcing, and a caller that needs durability forces once
+ * for every record written so far, so a fan-out batch or a drained notification buffer shares one fsync. On load a
+ * torn final line is cut off. Without a file configured nothing is recorded and nothing is skipped.
+ */
+@Component
+public class DecisionJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(DecisionJournal.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Path file;
+    private final ZoneId zone;
+    private final Clock clock;
+    private final Map<JournalKey, JournalRecord> latest = new ConcurrentHashMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private FileChannel channel;
+    private long written;
+    private long synced;
+
+    @Autowired
+    public DecisionJournal(
+            @Value("${journal.file:}") String file,
+            @Value("${weather.timezone:}") String timezone
+    ) {
+        this(file == null || file.isBlank() ? null : Path.of(file), zoneOf(timezone), Clock.systemUTC());
+    }
+
+    DecisionJournal(Path file, ZoneId zone, Clock clock) {
+        this.file = file;
+        this.zone = zone;
+        this.clock = clock;
+        if (file != null) {
+            open();
+        }
+    }
+
+    /**
+     * A journal that records nothing and never reports a night as complete.
+     */
+    public static DecisionJournal disabled() {
+        return new DecisionJournal(null, ZoneId.systemDefault(), Clock.systemUTC());
+    }
+
+    public boolean isEnabled() {
+        return file != null;
+    }
+
+    /**
+     * Tonight's key for {@code location}, using the same local date the forecast request is trimmed to.
+     */
+    public JournalKey tonight(Location location, String recipient) {
+        return new JournalKey(LocalDate.now(clock.withZone(zone)).toString(), location, recipient);
+    }
+
+    public JournalRecord latest(JournalKey key) {
+        return latest.get(key);
+    }
+
+    public boolean isComplete(JournalKey key) {
+        JournalRecord record = latest.get(key);
+        return record != null && record.isComplete();
+    }
+
+    /**
+     * Records a decision without syncing; call {@link #sync()} once the batch is written and before sending.
+     */
+    public void decided(JournalKey key, WindowRecommendation recommendation, String inputsHash) {
+        append(new JournalRecord(key, JournalRecord.Stage.DECIDED, inputsHash, recommendation, 0, List.of(),
+                clock.millis()));
+    }
+
+    /**
+     * Records that a durable outbox holds the key's message, without syncing; call {@link #sync()} once the batch is
+     * written.
+     */
+    public void queued(JournalKey key) {
+        append(outcome(key, JournalRecord.Stage.QUEUED, 0, List.of()));
+    }
+
+    /**
+     * Records a delivery without syncing; call {@link #sync()} once the batch is written.
+     */
+    public void delivered(JournalKey key, int status) {
+        append(outcome(key, JournalRecord.Stage.DELIVERED, status, List.of()));
+    }
+
+    /**
+     * Records a failed delivery without syncing; call {@link #sync()} once the batch is written.
+     */
+    public void failed(JournalKey key, int status, List<String> errors) {
+        append(outcome(key, JournalRecord.Stage.FAILED, status, errors));
+    }
+
+    /**
+     * Forces every record written so far to disk.
+     */
+    public void sync() {
+        long sequence;
+        writeLock.lock();
+        try {
+            sequence = written;
+        } finally {
+            writeLock.unlock();
+        }
+
+        awaitDurable(sequence);
+    }
+
+    /**
+     * Hash of everything the decision depended on: the overnight metrics and the thresholds they were judged by.
+     */
+    public static String inputsHash(WindowRecommendation recommendation, WindowThresholds thresholds) {
+        String inputs = recommendation.tonightLow() + "|" + recommendation.maxWind() + "|"
+                + recommendation.meanHumidity() + "|" + recommendation.rainSum() + "|"
+                + recommendation.maxEuropeanAqi() + "|" + thresholds;
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(inputs.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException("SHA-256 is not available", exception);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (channel == null) {
+            return;
+        }
+
+        try {
+            sync();
+            channel.close();
+        } catch (IOException exception) {
+            log.warn("Failed to close decision journal {}", file, exception);
+        }
+    }
+
+    private JournalRecord outcome(JournalKey key, JournalRecord.Stage stage, int status, List<String> errors) {
+        JournalRecord decided = latest.get(key);
+        return new JournalRecord(key, stage, decided == null ? null : decided.inputsHash(),
+                decided == null ? null : decided.recommendation(), status, errors == null ? List.of() : errors,
+                clock.millis());
+    }
+
+    private long append(JournalRecord record) {
+        if (file == null) {
+            return 0;
+        }
+
+        ByteBuffer line;
+        try {
+            line = ByteBuffer.wrap((MAPPER.writeValueAsString(record) + "\n").getBytes(StandardCharsets.UTF_8));
+        } catch (JsonProcessingException exception) {
+            throw new IllegalStateException("Failed to encode decision journal record", exception);
+        }
+
+        writeLock.lock();
+        try {
+            while (line.hasRemaining()) {
+                channel.write(line);
+            }
+            latest.put(record.key(), record);
+            return ++written;
+        } catch (IOException exception) {
+            throw new IllegalStateException("Failed to write decision journal " + file, exception);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Whoever gets the sync lock forces on behalf of every record written before it looked.
+    private void awaitDurable(long sequence) {
+        if (file == null) {
+            return;
+        }
+
+        syncLock.lock();
+        try {
+            if (synced >= sequence) {
+                return;
+            }
+
+            long target;
+            writeLock.lock();
+            try {
+                target = written;
+            } finally {
+                writeLock.unlock();
+            }
+
+            channel.force(false);
+            synced = target;
+        } catch (IOException exception) {
+            throw new IllegalStateException("Failed to sync decision journal " + file, exception);
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private void open() {
+        try {
+            long validLength = load();
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            if (channel.size() > validLength) {
+                log.warn("Discarding a torn record at the end of decision journal {}", file);
+                channel.truncate(validLength);
+            }
+            channel.position(validLength);
+        } catch (IOException exception) {
+            throw new IllegalStateException("Failed to open decision journal " + file, exception);
+        }
+    }
+
+    private long load() throws IOException {
+        byte[] content;
+        try {
+            content = Files.readAllBytes(file);
+        } catch (NoSuchFileException exception) {
+            return 0;
+        }
+
+        int start = 0;
+        for (int index = 0; index < content.length; index++) {
+            if (content[index] != '\n') {
+                continue;
+            }
+
+            try {
+                JournalRecord record = MAPPER.readValue(content, start, index - start, JournalRecord.class);
+                latest.put(record.key(), record);
+            } catch (IOException exception) {
+                throw new IOException("Corrupt record at byte " + start + " of decision journal " + file, exception);
+            }
+            start = index + 1;
+        }
+
+        // Anything after the last newline is a record whose write was interrupted.
+        return start;
+    }
+
+    private static ZoneId zoneOf(String timezone) {
+        try {
+            return timezone == null || timezone.isBlank() ? ZoneId.systemDefault() : ZoneId.of(timezone);
+        } catch (DateTimeException exception) {
+            return ZoneId.systemDefault();
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.chrisblackwood.home.journal;
+
+import com.chrisblackwood.home.dto.Location;
+
+/**
+ * What a journal record is about: one night at one location, and the recipient when the run fans out.
+ */
+public record JournalKey(
+        String night,
+        Location location,
+        String recipient
+) {
+}
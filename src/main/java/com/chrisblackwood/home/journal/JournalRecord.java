@@ -0,0 +1,40 @@
+package com.chrisblackwood.home.journal;
+
+import com.chrisblackwood.home.dto.WindowRecommendation;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.List;
+
+/**
+ * One line of the {@link DecisionJournal}. Outcome records carry the recommendation and inputs hash of the decision
+ * they complete, so the latest record for a key is always self-contained.
+ */
+public record JournalRecord(
+        JournalKey key,
+        Stage stage,
+        String inputsHash,
+        WindowRecommendation recommendation,
+        int status,
+        List<String> errors,
+        long recordedAt
+) {
+
+    public enum Stage {
+        /** Decided and about to be sent. A run that stops here is retried. */
+        DECIDED,
+        /**
+         * Handed to a durable notification outbox, which owns redelivery from here. Only written when
+         * {@code notification.outbox-file} is set; without it a queued message is lost in a crash, so the night stays
+         * owed until delivery is recorded.
+         */
+        QUEUED,
+        DELIVERED,
+        /** Sending failed; the next run retries it. */
+        FAILED
+    }
+
+    @JsonIgnore
+    public boolean isComplete() {
+        return stage == Stage.QUEUED || stage == Stage.DELIVERED;
+    }
+}
@@ -0,0 +1,132 @@
+package com.chrisblackwood.home.json;
+
+import com.chrisblackwood.home.dto.HourlyColumns;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Streams an Open-Meteo response straight into {@link HourlyColumns}, reading timestamps from the parser's character
+ * buffer and numbers as primitives so no per-value objects are allocated. Unknown fields are skipped.
+ */
+public class HourlyColumnsDeserializer extends JsonDeserializer<HourlyColumns> {
+
+    private static final int INITIAL_CAPACITY = 192;
+
+    @Override
+    public HourlyColumns deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            return context.reportInputMismatch(HourlyColumns.class, "Expected an Open-Meteo response object");
+        }
+
+        double latitude = Double.NaN;
+        double longitude = Double.NaN;
+        long[] time = new long[0];
+        Map<String, double[]> series = new HashMap<>();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+
+            switch (field) {
+                case "latitude" -> latitude = value.isNumeric() ? parser.getDoubleValue() : Double.NaN;
+                case "longitude" -> longitude = value.isNumeric() ? parser.getDoubleValue() : Double.NaN;
+                case "hourly" -> {
+                    if (value == JsonToken.START_OBJECT) {
+                        time = readHourly(parser, series);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+
+        return new HourlyColumns(latitude, longitude, time, padSeries(series, time.length));
+    }
+
+    private long[] readHourly(JsonParser parser, Map<String, double[]> series) throws IOException {
+        long[] time = new long[0];
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+
+            if (value != JsonToken.START_ARRAY) {
+                parser.skipChildren();
+            } else if ("time".equals(field)) {
+                time = readTimes(parser);
+            } else {
+                series.put(field, readValues(parser));
+            }
+        }
+
+        return time;
+    }
+
+    private long[] readTimes(JsonParser parser) throws IOException {
+        long[] times = new long[INITIAL_CAPACITY];
+        int size = 0;
+
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (size == times.length) {
+                times = Arrays.copyOf(times, size * 2);
+            }
+
+            if (token == JsonToken.VALUE_STRING) {
+                times[size++] = HourlyColumns.parseTime(
+                        parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+            } else {
+                parser.skipChildren();
+                times[size++] = HourlyColumns.INVALID_TIME;
+            }
+        }
+
+        return Arrays.copyOf(times, size);
+    }
+
+    private double[] readValues(JsonParser parser) throws IOException {
+        double[] values = new double[INITIAL_CAPACITY];
+        int size = 0;
+
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+
+            if (token.isNumeric()) {
+                values[size++] = parser.getDoubleValue();
+            } else {
+                parser.skipChildren();
+                values[size++] = Double.NaN;
+            }
+        }
+
+        return Arrays.copyOf(values, size);
+    }
+
+    // Series are aligned with the time axis: short series are padded with NaN, longer ones truncated.
+    private Map<String, double[]> padSeries(Map<String, double[]> series, int length) {
+        series.replaceAll((name, values) -> {
+            if (values.length == length) {
+                return values;
+            }
+
+            double[] aligned = Arrays.copyOf(values, length);
+            if (values.length < length) {
+                Arrays.fill(aligned, values.length, length, Double.NaN);
+            }
+            return aligned;
+        });
+
+        return series;
+    }
+}
@@ -0,0 +1,64 @@
+package com.chrisblackwood.home.json;
+
+import com.chrisblackwood.home.dto.HourlyColumns;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * Decodes raw Open-Meteo response bodies into {@link HourlyColumns}.
+ */
+public final class OpenMeteoJson {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private OpenMeteoJson() {
+    }
+
+    public static HourlyColumns readColumns(byte[] body) {
+        try {
+            return MAPPER.readValue(body, HourlyColumns.class);
+        } catch (IOException exception) {
+            throw new IllegalStateException("Failed to decode Open-Meteo response", exception);
+        }
+    }
+
+    /**
+     * Decodes straight from a stream, so large archived responses never have to be held as a byte array.
+     */
+    public static HourlyColumns readColumns(InputStream body) {
+        try {
+            return MAPPER.readValue(body, HourlyColumns.class);
+        } catch (IOException exception) {
+            throw new IllegalStateException("Failed to decode Open-Meteo response", exception);
+        }
+    }
+
+    /**
+     * Decodes a multi-coordinate response. Open-Meteo only answers with an array when more than one coordinate pair
+     * was requested, so a single object is returned as a one-element list.
+     */
+    public static List<HourlyColumns> readColumnsBatch(byte[] body) {
+        if (!startsWithArray(body)) {
+            return List.of(readColumns(body));
+        }
+
+        try {
+            return List.of(MAPPER.readValue(body, HourlyColumns[].class));
+        } catch (IOException exception) {
+            throw new IllegalStateException("Failed to decode Open-Meteo response", exception);
+        }
+    }
+
+    private static boolean startsWithArray(byte[] body) {
+        for (byte value : body) {
+            if (!Character.isWhitespace(value)) {
+                return value == '[';
+            }
+        }
+
+        return false;
+    }
+}
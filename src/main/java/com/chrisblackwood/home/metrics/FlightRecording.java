@@ -0,0 +1,122 @@
+package com.chrisblackwood.home.metrics;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * In-process JDK Flight Recorder recording with the home-app events enabled on top of a JDK profile. When
+ * {@code jfr.recording-directory} is set, {@link #dump()} writes everything recorded in the last
+ * {@code jfr.max-age} to a timestamped file, so a slow night can be inspected after the fact.
+ */
+@Component
+public class FlightRecording {
+
+    private static final Logger log = LoggerFactory.getLogger(FlightRecording.class);
+    private static final String HOME_SETTINGS = "/jfr/home.jfc";
+    private static final DateTimeFormatter FILE_TIMESTAMP =
+            DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'").withZone(ZoneOffset.UTC);
+
+    private final Path directory;
+    private final String baseSettings;
+    private final Duration maxAge;
+    private final Clock clock;
+    private Recording recording;
+
+    @Autowired
+    public FlightRecording(
+            @Value("${jfr.recording-directory:}") String directory,
+            @Value("${jfr.settings:default}") String baseSettings,
+            @Value("${jfr.max-age:PT24H}") Duration maxAge
+    ) {
+        this(directory, baseSettings, maxAge, Clock.systemUTC());
+    }
+
+    FlightRecording(String directory, String baseSettings, Duration maxAge, Clock clock) {
+        this.directory = directory == null || directory.isBlank() ? null : Path.of(directory);
+        this.baseSettings = baseSettings;
+        this.maxAge = maxAge;
+        this.clock = clock;
+    }
+
+    public static FlightRecording disabled() {
+        return new FlightRecording("", "default", Duration.ZERO);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (directory == null) {
+            return;
+        }
+
+        recording = new Recording(settings());
+        recording.setName("home-app");
+        recording.setToDisk(true);
+        recording.setMaxAge(maxAge);
+        recording.start();
+        log.info("Flight recording started, dumps go to {}", directory);
+    }
+
+    /**
+     * Writes the current recording to {@code jfr.recording-directory}; a no-op when recording is disabled. Failures
+     * are logged rather than thrown so diagnostics never fail a run.
+     */
+    public Path dump() {
+        if (recording == null) {
+            return null;
+        }
+
+        Path file = directory.resolve("home-" + FILE_TIMESTAMP.format(clock.instant()) + ".jfr");
+        try {
+            Files.createDirectories(directory);
+            recording.dump(file);
+            log.info("Flight recording dumped to {}", file);
+            return file;
+        } catch (IOException exception) {
+            log.warn("Failed to dump flight recording to {}", file, exception);
+            return null;
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    private Map<String, String> settings() {
+        try (InputStream input = FlightRecording.class.getResourceAsStream(HOME_SETTINGS)) {
+            if (input == null) {
+                throw new IllegalStateException("Missing Flight Recorder settings " + HOME_SETTINGS);
+            }
+
+            Map<String, String> settings = new HashMap<>(Configuration.getConfiguration(baseSettings).getSettings());
+            settings.putAll(Configuration.create(new InputStreamReader(input, StandardCharsets.UTF_8)).getSettings());
+            return settings;
+        } catch (IOException | ParseException exception) {
+            throw new IllegalStateException("Failed to load Flight Recorder settings", exception);
+        }
+    }
+}
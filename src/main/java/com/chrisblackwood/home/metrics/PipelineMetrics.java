@@ -0,0 +1,115 @@
+package com.chrisblackwood.home.metrics;
+
+import com.chrisblackwood.home.dto.WindowDecision;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Micrometer instrumentation for each stage of the pipeline: Open-Meteo fetches and decoding, the window decision
+ * and Pushover delivery.
+ */
+@Component
+public class PipelineMetrics {
+
+    public static final String FORECAST = "forecast";
+    public static final String AIR_QUALITY = "air-quality";
+
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+
+    private final MeterRegistry registry;
+    private final Counter airQualityFallbacks;
+    private final Map<WindowDecision, Timer> decisionTimers = new EnumMap<>(WindowDecision.class);
+
+    public PipelineMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.airQualityFallbacks = Counter.builder("window.air-quality.fallbacks")
+                .description("Decisions made weather-only because air quality was unavailable")
+                .register(registry);
+
+        // Registered up front so the decision path is a map lookup rather than a meter registration.
+        for (WindowDecision decision : WindowDecision.values()) {
+            decisionTimers.put(decision, Timer.builder("window.decision")
+                    .description("Overnight aggregation and decision for one location")
+                    .tag("decision", decision.name())
+                    .publishPercentiles(PERCENTILES)
+                    .register(registry));
+        }
+    }
+
+    /**
+     * Metrics backed by an in-memory registry, for code paths built outside the Spring context.
+     */
+    public static PipelineMetrics inMemory() {
+        return new PipelineMetrics(new SimpleMeterRegistry());
+    }
+
+    public MeterRegistry registry() {
+        return registry;
+    }
+
+    public <T> T timeFetch(String upstream, Supplier<T> fetch) {
+        return time(fetch, outcome -> Timer.builder("openmeteo.fetch")
+                .description("Open-Meteo round trip, excluding cache hits")
+                .tag("upstream", upstream)
+                .tag("outcome", outcome)
+                .publishPercentiles(PERCENTILES)
+                .register(registry));
+    }
+
+    public void recordPayload(String upstream, long bytes) {
+        DistributionSummary.builder("openmeteo.payload")
+                .description("Open-Meteo response body size")
+                .baseUnit("bytes")
+                .tag("upstream", upstream)
+                .publishPercentiles(PERCENTILES)
+                .register(registry)
+                .record(bytes);
+    }
+
+    public <T> T timeDecode(String upstream, Supplier<T> decode) {
+        return time(decode, outcome -> Timer.builder("openmeteo.decode")
+                .description("Decoding an Open-Meteo response into columns")
+                .tag("upstream", upstream)
+                .tag("outcome", outcome)
+                .publishPercentiles(PERCENTILES)
+                .register(registry));
+    }
+
+    public void recordAirQualityFallback() {
+        airQualityFallbacks.increment();
+    }
+
+    public void recordDecision(WindowDecision decision, long durationNanos) {
+        decisionTimers.get(decision).record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public <T> T timeNotification(Supplier<T> send) {
+        return time(send, outcome -> Timer.builder("pushover.send")
+                .description("Pushover message delivery")
+                .tag("outcome", outcome)
+                .publishPercentiles(PERCENTILES)
+                .register(registry));
+    }
+
+    private <T> T time(Supplier<T> call, Function<String, Timer> timer) {
+        long start = System.nanoTime();
+        String outcome = "failure";
+        try {
+            T result = call.get();
+            outcome = "success";
+            return result;
+        } finally {
+            timer.apply(outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.chrisblackwood.home.metrics;
+
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Writes the final metrics of a one-shot run to {@code metrics.file} in the Prometheus text format when the context
+ * shuts down, ready for node_exporter's textfile collector. The file is replaced atomically so a collector never reads
+ * a partial scrape.
+ */
+@Component
+@ConditionalOnExpression("'${home.mode:one-shot}' != 'daemon' && '${metrics.file:}' != ''")
+public class PrometheusFileExporter {
+
+    private static final Logger log = LoggerFactory.getLogger(PrometheusFileExporter.class);
+
+    private final PrometheusMeterRegistry registry;
+    private final Path file;
+
+    public PrometheusFileExporter(PrometheusMeterRegistry registry, @Value("${metrics.file}") String file) {
+        this.registry = registry;
+        this.file = Path.of(file);
+    }
+
+    @PreDestroy
+    void export() {
+        try {
+            Path directory = file.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            Files.writeString(temporary, registry.scrape(), StandardCharsets.UTF_8);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Wrote run metrics to {}", file);
+        } catch (IOException exception) {
+            log.warn("Failed to write run metrics to {}", file, exception);
+        }
+    }
+}
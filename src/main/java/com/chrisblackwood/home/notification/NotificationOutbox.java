@@ -0,0 +1,257 @@
+package com.chrisblackwood.home.notification;
+
+import com.chrisblackwood.home.journal.DecisionJournal;
+import com.chrisblackwood.home.journal.JournalKey;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Notifications that were accepted but not yet delivered or given up on.
+ * <p>
+ * With a file configured, every change is appended to it as one JSON line, either an added entry or a removed id.
+ * Additions are forced to disk before {@link #put} returns, so an accepted message survives a crash or power loss and
+ * is resent on the next start. Removals are not forced: losing one only means a delivered message is sent again. The
+ * log is compacted to the live entries on load and once it holds {@value #COMPACTION_SLACK} records more than that,
+ * by writing and forcing a new file, moving it over the old one and forcing the directory. A torn final line is
+ * ignored.
+ */
+class NotificationOutbox {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationOutbox.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<List<Entry>> LEGACY_ENTRIES = new TypeReference<>() {
+    };
+    private static final int COMPACTION_SLACK = 1024;
+
+    private final Path file;
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private FileChannel channel;
+    private int records;
+
+    NotificationOutbox(Path file) {
+        this.file = file;
+    }
+
+    synchronized List<Entry> load() {
+        if (file == null) {
+            return List.of();
+        }
+
+        try {
+            replay(Files.readAllBytes(file));
+        } catch (NoSuchFileException exception) {
+            return List.of();
+        } catch (IOException exception) {
+            log.warn("Ignoring unreadable notification outbox {}", file, exception);
+            entries.clear();
+        }
+
+        compact();
+        return List.copyOf(entries.values());
+    }
+
+    synchronized void put(Entry entry) {
+        entries.put(entry.id(), entry);
+        append(new Change(entry, null), true);
+    }
+
+    synchronized void remove(String id) {
+        if (entries.remove(id) != null) {
+            append(new Change(null, id), false);
+        }
+        if (entries.isEmpty()) {
+            notifyAll();
+        }
+    }
+
+    boolean isDurable() {
+        return file != null;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Waits until every entry has been removed, returning {@code false} if {@code timeout} elapsed first.
+     */
+    synchronized boolean awaitEmpty(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (!entries.isEmpty()) {
+            long remainingMillis = (deadline - System.nanoTime()) / 1_000_000;
+            if (remainingMillis <= 0) {
+                return false;
+            }
+            wait(remainingMillis);
+        }
+
+        return true;
+    }
+
+    synchronized void close() {
+        if (channel == null) {
+            return;
+        }
+
+        try {
+            channel.close();
+        } catch (IOException exception) {
+            log.warn("Failed to close notification outbox {}", file, exception);
+        }
+        channel = null;
+    }
+
+    private void replay(byte[] content) throws IOException {
+        // Outboxes written before the log format were a single JSON array of the pending entries.
+        if (content.length > 0 && content[0] == '[') {
+            for (Entry entry : MAPPER.readValue(content, LEGACY_ENTRIES)) {
+                entries.put(entry.id(), entry);
+            }
+            return;
+        }
+
+        int start = 0;
+        for (int index = 0; index < content.length; index++) {
+            if (content[index] != '\n') {
+                continue;
+            }
+
+            try {
+                Change change = MAPPER.readValue(content, start, index - start, Change.class);
+                if (change.put() != null) {
+                    entries.put(change.put().id(), change.put());
+                } else if (change.remove() != null) {
+                    entries.remove(change.remove());
+                }
+            } catch (IOException exception) {
+                log.warn("Skipping unreadable record at byte {} of notification outbox {}", start, file, exception);
+            }
+            start = index + 1;
+        }
+    }
+
+    private void append(Change change, boolean force) {
+        if (file == null) {
+            return;
+        }
+
+        try {
+            if (channel == null) {
+                channel = openForAppend();
+            }
+
+            byte[] line = (MAPPER.writeValueAsString(change) + "\n").getBytes(StandardCharsets.UTF_8);
+            ByteBuffer buffer = ByteBuffer.wrap(line);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (force) {
+                channel.force(false);
+            }
+            records++;
+        } catch (IOException exception) {
+            log.warn("Failed to write notification outbox {}", file, exception);
+            // An interrupted write closes the channel; the next change reopens it.
+            close();
+            return;
+        }
+
+        if (records > entries.size() + COMPACTION_SLACK) {
+            compact();
+        }
+    }
+
+    private void compact() {
+        try {
+            Path directory = file.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try (FileChannel output = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                StringBuilder lines = new StringBuilder();
+                for (Entry entry : entries.values()) {
+                    lines.append(MAPPER.writeValueAsString(new Change(entry, null))).append('\n');
+                }
+                ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining()) {
+                    output.write(buffer);
+                }
+                output.force(true);
+            }
+
+            close();
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            forceDirectory(directory);
+            channel = openForAppend();
+            records = entries.size();
+        } catch (IOException exception) {
+            log.warn("Failed to compact notification outbox {}", file, exception);
+        }
+    }
+
+    private FileChannel openForAppend() throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    // Makes the rename itself durable; not every platform lets a directory be opened, and those don't need it.
+    private static void forceDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException exception) {
+            log.debug("Could not force directory {}", directory, exception);
+        }
+    }
+
+    /**
+     * A queued message. {@code user} and {@code device} are {@code null} for messages to the configured
+     * {@code pushover.user}; {@code journalKeys} are the {@link DecisionJournal} keys its outcome is recorded under.
+     */
+    record Entry(
+            String id,
+            String user,
+            String device,
+            String message,
+            int attempts,
+            List<JournalKey> journalKeys
+    ) {
+        Entry {
+            journalKeys = journalKeys == null ? List.of() : List.copyOf(journalKeys);
+        }
+
+        Entry(String id, String message, int attempts) {
+            this(id, null, null, message, attempts, List.of());
+        }
+
+        Entry retried() {
+            return new Entry(id, user, device, message, attempts + 1, journalKeys);
+        }
+    }
+
+    /**
+     * One line of the log: an entry added or replaced, or the id of one removed.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    record Change(
+            Entry put,
+            String remove
+    ) {
+    }
+}
@@ -0,0 +1,324 @@
+package com.chrisblackwood.home.notification;
+
+import com.chrisblackwood.home.dto.PushoverResponse;
+import com.chrisblackwood.home.journal.DecisionJournal;
+import com.chrisblackwood.home.journal.JournalKey;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivers notifications off the caller's thread. Messages go into a bounded buffer and the durable
+ * {@link NotificationOutbox}, and a single sender drains them. Retryable failures (transport errors, 429 and 5xx) are
+ * retried with jittered exponential backoff up to {@code notification.retry.max-attempts}. Rejected requests are
+ * dropped.
+ * <p>
+ * Callers that need the outcome use {@link #send}, which delivers on the caller's thread with the same outbox and
+ * retries. Every Pushover user or group key has its own {@link TokenBucket}, so concurrent sends to different
+ * recipients don't wait for each other.
+ * <p>
+ * Messages can carry {@link DecisionJournal} keys. Whichever thread delivers the message appends its outcome to the
+ * journal under them, and the background sender syncs the journal whenever its buffer runs empty. Keys travel with the
+ * outbox entry, so a message resent after a restart still completes its night.
+ * <p>
+ * On shutdown the queue waits up to {@code notification.shutdown-timeout} for outstanding messages; anything still
+ * undelivered stays in the outbox and is resent on the next start.
+ */
+@Service
+public class NotificationQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationQueue.class);
+
+    private final NotificationService notificationService;
+    private final DecisionJournal decisionJournal;
+    private final BlockingQueue<NotificationOutbox.Entry> queue;
+    private final NotificationOutbox outbox;
+    private final Map<String, TokenBucket> rateLimiters = new ConcurrentHashMap<>();
+    private final int burst;
+    private final Duration refillInterval;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration shutdownTimeout;
+    private final ScheduledExecutorService retries =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("pushover-retry").factory());
+    private Thread sender;
+
+    @Autowired
+    public NotificationQueue(
+            NotificationService notificationService,
+            DecisionJournal decisionJournal,
+            @Value("${notification.queue-capacity:100}") int capacity,
+            @Value("${notification.outbox-file:}") String outboxFile,
+            @Value("${notification.rate-limit.burst:5}") int burst,
+            @Value("${notification.rate-limit.refill-interval:PT1S}") Duration refillInterval,
+            @Value("${notification.retry.max-attempts:5}") int maxAttempts,
+            @Value("${notification.retry.initial-backoff:PT2S}") Duration initialBackoff,
+            @Value("${notification.retry.max-backoff:PT1M}") Duration maxBackoff,
+            @Value("${notification.shutdown-timeout:PT30S}") Duration shutdownTimeout
+    ) {
+        if (capacity <= 0) {
+            throw new IllegalStateException("notification.queue-capacity must be positive");
+        }
+        if (maxAttempts <= 0) {
+            throw new IllegalStateException("notification.retry.max-attempts must be positive");
+        }
+
+        this.notificationService = notificationService;
+        this.decisionJournal = decisionJournal;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.outbox = new NotificationOutbox(outboxFile == null || outboxFile.isBlank() ? null : Path.of(outboxFile));
+        this.burst = burst;
+        this.refillInterval = refillInterval;
+        rateLimiter(null);
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.shutdownTimeout = shutdownTimeout;
+    }
+
+    @PostConstruct
+    public void start() {
+        for (NotificationOutbox.Entry entry : outbox.load()) {
+            if (!queue.offer(entry)) {
+                log.warn("Notification queue full, leaving {} in the outbox for the next start", entry.id());
+            }
+        }
+        if (!queue.isEmpty()) {
+            log.info("Resending {} undelivered notification(s) from the outbox", queue.size());
+        }
+
+        sender = Thread.ofVirtual().name("pushover-sender").start(this::drain);
+    }
+
+    /**
+     * Accepts {@code message} for delivery and returns immediately.
+     *
+     * @throws IllegalStateException when the buffer is full
+     */
+    public void enqueue(String message) {
+        enqueue(message, List.of());
+    }
+
+    /**
+     * Like {@link #enqueue(String)}, recording the outcome in the {@link DecisionJournal} under {@code key}. With
+     * {@code notification.outbox-file} set the outbox owns redelivery, so the key is journalled and synced as queued
+     * before this returns; without one a crash before delivery loses the message, and the key stays owed until the
+     * sender records how delivery went.
+     *
+     * @throws IllegalStateException when the buffer is full, after journalling the key as failed
+     */
+    public void enqueue(String message, JournalKey key) {
+        enqueue(message, List.of(key));
+    }
+
+    private void enqueue(String message, List<JournalKey> keys) {
+        NotificationOutbox.Entry entry = new NotificationOutbox.Entry(UUID.randomUUID().toString(), null, null,
+                message, 0, keys);
+        outbox.put(entry);
+        if (outbox.isDurable() && !keys.isEmpty()) {
+            keys.forEach(decisionJournal::queued);
+            decisionJournal.sync();
+        }
+
+        if (!queue.offer(entry)) {
+            outbox.remove(entry.id());
+            journalFailed(entry, 0, List.of("Notification queue is full"));
+            decisionJournal.sync();
+            throw new IllegalStateException("Notification queue is full");
+        }
+    }
+
+    /**
+     * Delivers {@code message} to a Pushover user or group key on the caller's thread, retrying retryable failures
+     * like the sender does, and returns Pushover's response. The message is in the outbox until this returns, so a
+     * send cut short by a crash is resent on the next start.
+     * <p>
+     * The outcome is appended to the {@link DecisionJournal} under {@code journalKeys} without syncing; callers
+     * sending a batch call {@link DecisionJournal#sync()} once it is done.
+     *
+     * @throws PushoverDeliveryException when Pushover rejected the request or every attempt failed
+     */
+    public PushoverResponse send(String user, String device, String message, List<JournalKey> journalKeys)
+            throws InterruptedException {
+        NotificationOutbox.Entry entry = new NotificationOutbox.Entry(UUID.randomUUID().toString(), user, device,
+                message, 0, journalKeys);
+        outbox.put(entry);
+        TokenBucket rateLimiter = rateLimiter(user);
+
+        while (true) {
+            rateLimiter.acquire();
+            try {
+                PushoverResponse response = notificationService.sendNotification(user, device, message);
+                journalResponse(entry, response);
+                outbox.remove(entry.id());
+                return response;
+            } catch (RuntimeException exception) {
+                NotificationOutbox.Entry retried = entry.retried();
+                if (!isRetryable(exception) || retried.attempts() >= maxAttempts) {
+                    journalFailure(entry, exception);
+                    outbox.remove(entry.id());
+                    throw exception;
+                }
+
+                entry = retried;
+                outbox.put(entry);
+                Duration backoff = backoff(entry.attempts());
+                log.warn("Notification {} failed, retry {} of {} in {} ms",
+                        entry.id(), entry.attempts(), maxAttempts - 1, backoff.toMillis());
+                TimeUnit.NANOSECONDS.sleep(backoff.toNanos());
+            }
+        }
+    }
+
+    public int pending() {
+        return outbox.size();
+    }
+
+    @PreDestroy
+    public void stop() {
+        try {
+            if (!outbox.awaitEmpty(shutdownTimeout)) {
+                log.warn("{} notification(s) still undelivered at shutdown, kept in the outbox", outbox.size());
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        } finally {
+            retries.shutdownNow();
+            if (sender != null) {
+                sender.interrupt();
+            }
+            outbox.close();
+        }
+    }
+
+    private void drain() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                NotificationOutbox.Entry entry = queue.take();
+                rateLimiter(entry.user()).acquire();
+                try {
+                    deliver(entry);
+                } catch (RuntimeException exception) {
+                    log.error("Failed to record the outcome of notification {}", entry.id(), exception);
+                }
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void deliver(NotificationOutbox.Entry entry) {
+        try {
+            PushoverResponse response = entry.user() == null
+                    ? notificationService.sendNotification(entry.message())
+                    : notificationService.sendNotification(entry.user(), entry.device(), entry.message());
+            if (response == null || response.status() != 1) {
+                log.error("Pushover rejected notification {}: {}", entry.id(),
+                        response == null ? null : response.errors());
+            } else {
+                log.info("Notification {} delivered", entry.id());
+            }
+            journalResponse(entry, response);
+        } catch (RuntimeException exception) {
+            if (isRetryable(exception)) {
+                retry(entry, exception);
+                return;
+            }
+
+            PushoverDeliveryException rejected = (PushoverDeliveryException) exception;
+            log.error("Pushover rejected notification {} with HTTP {}: {}", entry.id(), rejected.httpStatus(),
+                    rejected.response() == null ? null : rejected.response().errors());
+            journalFailure(entry, exception);
+        }
+        complete(entry);
+    }
+
+    // The journal is synced once the buffer runs dry and before the last entry leaves the outbox, so stop() never
+    // returns, or interrupts the sender, ahead of the sync.
+    private void complete(NotificationOutbox.Entry entry) {
+        if (queue.isEmpty()) {
+            decisionJournal.sync();
+        }
+        outbox.remove(entry.id());
+    }
+
+    private void journalResponse(NotificationOutbox.Entry entry, PushoverResponse response) {
+        int status = response == null ? 0 : response.status();
+        if (status == 1) {
+            entry.journalKeys().forEach(key -> decisionJournal.delivered(key, status));
+        } else {
+            journalFailed(entry, status, response == null || response.errors() == null ? List.of() : response.errors());
+        }
+    }
+
+    private void journalFailure(NotificationOutbox.Entry entry, RuntimeException exception) {
+        PushoverResponse response =
+                exception instanceof PushoverDeliveryException delivery ? delivery.response() : null;
+        if (response != null && response.errors() != null) {
+            journalFailed(entry, response.status(), response.errors());
+        } else {
+            journalFailed(entry, 0, List.of(String.valueOf(exception.getMessage())));
+        }
+    }
+
+    private void journalFailed(NotificationOutbox.Entry entry, int status, List<String> errors) {
+        entry.journalKeys().forEach(key -> decisionJournal.failed(key, status, errors));
+    }
+
+    // Anything but a Pushover rejection is a transport or server problem worth another attempt.
+    private static boolean isRetryable(RuntimeException exception) {
+        return !(exception instanceof PushoverDeliveryException delivery) || delivery.isRetryable();
+    }
+
+    // Messages to the configured pushover.user have no user key of their own and share one bucket.
+    private TokenBucket rateLimiter(String user) {
+        return rateLimiters.computeIfAbsent(user == null ? "" : user,
+                ignored -> new TokenBucket(burst, refillInterval));
+    }
+
+    private void retry(NotificationOutbox.Entry entry, RuntimeException exception) {
+        NotificationOutbox.Entry retried = entry.retried();
+        if (retried.attempts() >= maxAttempts) {
+            log.error("Giving up on notification {} after {} attempts", entry.id(), retried.attempts());
+            journalFailure(entry, exception);
+            complete(entry);
+            return;
+        }
+
+        outbox.put(retried);
+        Duration backoff = backoff(retried.attempts());
+        log.warn("Notification {} failed, retry {} of {} in {} ms",
+                entry.id(), retried.attempts(), maxAttempts - 1, backoff.toMillis());
+        retries.schedule(() -> {
+            if (!queue.offer(retried)) {
+                log.warn("Notification queue full, leaving {} in the outbox for the next start", entry.id());
+            }
+        }, backoff.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    // Equal jitter: half the exponential delay is fixed, the other half random, so retries from restarts spread out.
+    private Duration backoff(int attempt) {
+        long exponential = initialBackoff.toNanos() << Math.min(attempt - 1, 30);
+        long capped = Math.min(exponential < 0 ? Long.MAX_VALUE : exponential, maxBackoff.toNanos());
+        long half = capped / 2;
+        return Duration.ofNanos(half + ThreadLocalRandom.current().nextLong(half + 1));
+    }
+}
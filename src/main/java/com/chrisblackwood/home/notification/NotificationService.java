@@ -2,6 +2,7 @@ package com.chrisblackwood.home.notification;
 
 import com.chrisblackwood.home.dto.PushoverRequest;
 import com.chrisblackwood.home.dto.PushoverResponse;
+import com.chrisblackwood.home.metrics.PipelineMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,6 +11,7 @@ import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestClientResponseException;
 
 @Service
 public class NotificationService {
@@ -19,31 +21,61 @@ public class NotificationService {
     private final RestClient restClient;
     private final String token;
     private final String user;
+    private final PipelineMetrics metrics;
 
     @Autowired
-    public NotificationService(RestClient.Builder restClientBuilder,
+    public NotificationService(RestClient.Builder restClientBuilder, PipelineMetrics metrics,
                                @Value("${pushover.token:}") String token, @Value("${pushover.user:}") String user) {
         String baseUrl = "https://api.pushover.net/1";
         this.restClient = restClientBuilder.baseUrl(baseUrl).build();
         this.token = requireText(token, "pushover.token");
         this.user = requireText(user, "pushover.user");
+        this.metrics = metrics;
     }
 
     public PushoverResponse sendNotification(String message) {
+        return sendNotification(user, null, message);
+    }
+
+    /**
+     * Sends {@code message} to a Pushover user or group key. {@code device} may name one device or a comma-separated
+     * list; {@code null} delivers to all of the user's devices.
+     */
+    public PushoverResponse sendNotification(String user, String device, String message) {
 
-        PushoverRequest request = new PushoverRequest(token, user, message);
+        PushoverRequest request = new PushoverRequest(token, user, message, device);
 
+        PushoverDeliveryEvent event = PushoverDeliveryEvent.begin(message);
         try {
-            return restClient.post()
+            PushoverResponse response = metrics.timeNotification(() -> restClient.post()
                     .uri("/messages.json")
                     .contentType(MediaType.APPLICATION_JSON)
                     .body(request)
                     .retrieve()
-                    .body(PushoverResponse.class);
+                    .body(PushoverResponse.class));
+            event.succeeded(response);
+            return response;
         } catch (RestClientException exception) {
+            event.failed(exception);
             log.error("Failed to send notification to Pushover");
-            throw new IllegalStateException("Failed to send notification to Pushover", exception);
+            throw deliveryFailure(exception);
+        }
+    }
+
+    private PushoverDeliveryException deliveryFailure(RestClientException exception) {
+        if (!(exception instanceof RestClientResponseException responseException)) {
+            return new PushoverDeliveryException("Failed to send notification to Pushover", exception, 0, null);
         }
+
+        PushoverResponse response;
+        try {
+            response = responseException.getResponseBodyAs(PushoverResponse.class);
+        } catch (RuntimeException decodingException) {
+            response = null;
+        }
+
+        return new PushoverDeliveryException("Failed to send notification to Pushover", exception,
+                responseException.getStatusCode().value(), response);
     }
 
     private String requireText(String value, String propertyName) {
@@ -0,0 +1,58 @@
+package com.chrisblackwood.home.notification;
+
+import com.chrisblackwood.home.dto.PushoverResponse;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.springframework.web.client.RestClientResponseException;
+
+/**
+ * Flight Recorder event for one Pushover delivery attempt.
+ */
+@Name("com.chrisblackwood.home.PushoverDelivery")
+@Label("Pushover Delivery")
+@Category({"Home App", "Upstream"})
+@Description("HTTP delivery of a notification to Pushover")
+@StackTrace(false)
+class PushoverDeliveryEvent extends jdk.jfr.Event {
+
+    @Label("Message Length")
+    int messageLength;
+
+    @Label("HTTP Status")
+    int httpStatus;
+
+    @Label("Pushover Status")
+    int pushoverStatus;
+
+    @Label("Outcome")
+    String outcome;
+
+    static PushoverDeliveryEvent begin(String message) {
+        PushoverDeliveryEvent event = new PushoverDeliveryEvent();
+        event.begin();
+        event.messageLength = message == null ? 0 : message.length();
+        return event;
+    }
+
+    void succeeded(PushoverResponse response) {
+        if (shouldCommit()) {
+            httpStatus = 200;
+            pushoverStatus = response == null ? 0 : response.status();
+            outcome = "success";
+            commit();
+        }
+    }
+
+    void failed(RuntimeException exception) {
+        if (shouldCommit()) {
+            httpStatus = exception instanceof RestClientResponseException responseException
+                    ? responseException.getStatusCode().value()
+                    : 0;
+            outcome = "failure";
+            commit();
+        }
+    }
+}
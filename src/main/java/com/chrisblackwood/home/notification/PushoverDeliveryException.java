@@ -0,0 +1,35 @@
+package com.chrisblackwood.home.notification;
+
+import com.chrisblackwood.home.dto.PushoverResponse;
+
+/**
+ * A failed Pushover delivery, carrying the HTTP status and the decoded Pushover error body when there was one.
+ * Transport failures have an HTTP status of {@code 0}.
+ */
+public class PushoverDeliveryException extends IllegalStateException {
+
+    private final int httpStatus;
+    private final PushoverResponse response;
+
+    public PushoverDeliveryException(String message, Throwable cause, int httpStatus, PushoverResponse response) {
+        super(message, cause);
+        this.httpStatus = httpStatus;
+        this.response = response;
+    }
+
+    public int httpStatus() {
+        return httpStatus;
+    }
+
+    public PushoverResponse response() {
+        return response;
+    }
+
+    /**
+     * Pushover asks clients to retry on rate limiting and server errors only; any other 4xx means the request itself
+     * is invalid and will fail again.
+     */
+    public boolean isRetryable() {
+        return httpStatus == 0 || httpStatus == 429 || httpStatus >= 500;
+    }
+}
@@ -0,0 +1,57 @@
+package com.chrisblackwood.home.notification;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket holding up to {@code capacity} tokens, refilled one token per {@code refillInterval}. Callers reserve
+ * a token up front and are told how long to wait for it, so concurrent callers queue fairly instead of spinning.
+ */
+class TokenBucket {
+
+    private final long capacity;
+    private final long nanosPerToken;
+    private final LongSupplier nanoTime;
+    private double tokens;
+    private long lastRefill;
+
+    TokenBucket(long capacity, Duration refillInterval) {
+        this(capacity, refillInterval, System::nanoTime);
+    }
+
+    TokenBucket(long capacity, Duration refillInterval, LongSupplier nanoTime) {
+        if (capacity <= 0) {
+            throw new IllegalStateException("notification.rate-limit.burst must be positive");
+        }
+        if (refillInterval == null || refillInterval.isZero() || refillInterval.isNegative()) {
+            throw new IllegalStateException("notification.rate-limit.refill-interval must be positive");
+        }
+
+        this.capacity = capacity;
+        this.nanosPerToken = refillInterval.toNanos();
+        this.nanoTime = nanoTime;
+        this.tokens = capacity;
+        this.lastRefill = nanoTime.getAsLong();
+    }
+
+    /**
+     * Takes a token and returns how many nanoseconds the caller must wait before using it; {@code 0} when one was
+     * available. The bucket may go into debt so later callers wait behind earlier ones.
+     */
+    synchronized long reserve() {
+        long now = nanoTime.getAsLong();
+        tokens = Math.min(capacity, tokens + (double) (now - lastRefill) / nanosPerToken);
+        lastRefill = now;
+        tokens -= 1;
+
+        return tokens >= 0 ? 0 : (long) Math.ceil(-tokens * nanosPerToken);
+    }
+
+    void acquire() throws InterruptedException {
+        long waitNanos = reserve();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+}
@@ -1,58 +1,247 @@
 package com.chrisblackwood.home.service;
 
-import com.chrisblackwood.home.dto.AirQualityResponse;
+import com.chrisblackwood.home.archive.ForecastArchive;
+import com.chrisblackwood.home.cache.DecodedBodyCache;
+import com.chrisblackwood.home.cache.ForecastCache;
+import com.chrisblackwood.home.cache.GridCache;
+import com.chrisblackwood.home.dto.HourlyColumns;
+import com.chrisblackwood.home.dto.Location;
+import com.chrisblackwood.home.json.OpenMeteoJson;
+import com.chrisblackwood.home.metrics.PipelineMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestClientException;
 
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Collectors;
+
 @Service
 public class AirQualityService {
 
     private static final Logger log = LoggerFactory.getLogger(AirQualityService.class);
+    private static final int DECODED_BODY_CACHE_SIZE = 256;
 
     private final double latitude;
     private final double longitude;
     private final String timezone;
     private final String domain;
+    private final int batchSize;
     private final RestClient restClient;
+    private final ForecastCache forecastCache;
+    private final ForecastArchive forecastArchive;
+    private final GridCache gridCache;
+    private final DecodedBodyCache<List<HourlyColumns>> decodedBodies = new DecodedBodyCache<>(DECODED_BODY_CACHE_SIZE);
+    private final PipelineMetrics metrics;
+    private final boolean trimToOvernight;
+    private final Clock clock;
 
     @Autowired
     public AirQualityService(
             RestClient.Builder restClientBuilder,
+            ForecastCache forecastCache,
+            ForecastArchive forecastArchive,
+            GridCache gridCache,
+            PipelineMetrics metrics,
             @Value("${weather.latitude:#{null}}") Double latitude,
             @Value("${weather.longitude:#{null}}") Double longitude,
             @Value("${weather.timezone:}") String timezone,
-            @Value("${air-quality.domain:}") String domain
+            @Value("${air-quality.domain:}") String domain,
+            @Value("${air-quality.batch-size:50}") int batchSize,
+            @Value("${weather.trim-to-overnight:true}") boolean trimToOvernight
+    ) {
+        this(restClientBuilder, forecastCache, forecastArchive, gridCache, metrics, latitude, longitude, timezone,
+                domain, batchSize, trimToOvernight, Clock.systemUTC());
+    }
+
+    AirQualityService(
+            RestClient.Builder restClientBuilder,
+            ForecastCache forecastCache,
+            ForecastArchive forecastArchive,
+            GridCache gridCache,
+            PipelineMetrics metrics,
+            Double latitude,
+            Double longitude,
+            String timezone,
+            String domain,
+            int batchSize,
+            boolean trimToOvernight,
+            Clock clock
     ) {
         String baseUrl = "https://air-quality-api.open-meteo.com/v1";
         this.latitude = requireCoordinate(latitude, "weather.latitude");
         this.longitude = requireCoordinate(longitude, "weather.longitude");
         this.timezone = requireText(timezone, "weather.timezone");
         this.domain = requireText(domain, "air-quality.domain");
+        this.batchSize = requirePositive(batchSize, "air-quality.batch-size");
         this.restClient = restClientBuilder.baseUrl(baseUrl).build();
+        this.forecastCache = forecastCache;
+        this.forecastArchive = forecastArchive;
+        this.gridCache = gridCache;
+        this.metrics = metrics;
+        this.trimToOvernight = trimToOvernight;
+        this.clock = clock;
+    }
+
+    /**
+     * Fetches the configured location's air quality decoded straight into primitive columns.
+     */
+    public HourlyColumns getForecastColumns() {
+        return getForecastColumns(1);
     }
 
-    public AirQualityResponse getForecast() {
+    /**
+     * Like {@link #getForecastColumns()}, covering the next {@code nights} bedtime-to-wake windows.
+     */
+    public HourlyColumns getForecastColumns(int nights) {
         try {
-            return restClient.get()
-                    .uri(uriBuilder -> uriBuilder
-                            .path("/air-quality")
-                            .queryParam("latitude", latitude)
-                            .queryParam("longitude", longitude)
-                            .queryParam("hourly", "european_aqi")
-                            .queryParam("domains", domain)
-                            .queryParam("timezone", timezone)
-                            .build())
-                    .retrieve()
-                    .body(AirQualityResponse.class);
+            String latitudes = String.valueOf(latitude);
+            String longitudes = String.valueOf(longitude);
+            RequestedHours hours = requestedHours(nights);
+            byte[] body = fetchAirQualityBody(latitudes, longitudes, hours);
+            return decode(cacheKey(latitudes, longitudes, hours), body,
+                    () -> List.of(OpenMeteoJson.readColumns(body))).getFirst();
         } catch (RestClientException exception) {
             log.error("Failed to fetch air quality from Open-Meteo");
-            throw new IllegalStateException("Failed to fetch air quality from Open-Meteo", exception);
+            throw new OpenMeteoFetchException("Failed to fetch air quality from Open-Meteo", exception);
+        }
+    }
+
+    /**
+     * Fetches air quality for many locations, packing up to {@code air-quality.batch-size} coordinates into each
+     * Open-Meteo request. Locations in the same grid cell of {@code air-quality.domain} share one fetch through
+     * {@link GridCache}. Results are returned in the same order as {@code locations}.
+     */
+    public List<HourlyColumns> getForecastColumns(List<Location> locations) {
+        return getForecastColumns(locations, true);
+    }
+
+    /**
+     * Like {@link #getForecastColumns(List)}; with {@code snap} off the exact coordinates are requested and
+     * {@link GridCache} is bypassed, for points that are already spread out on purpose, such as a fleet lattice.
+     */
+    public List<HourlyColumns> getForecastColumns(List<Location> locations, boolean snap) {
+        RequestedHours hours = requestedHours();
+        if (!snap) {
+            return getForecastBatches(locations, hours);
         }
+
+        return gridCache.columns(PipelineMetrics.AIR_QUALITY, domain + hours.cacheKey(), locations,
+                cells -> getForecastBatches(cells, hours));
+    }
+
+    private List<HourlyColumns> getForecastBatches(List<Location> locations, RequestedHours hours) {
+        List<HourlyColumns> forecasts = new ArrayList<>(locations.size());
+        for (int start = 0; start < locations.size(); start += batchSize) {
+            List<Location> batch = locations.subList(start, Math.min(start + batchSize, locations.size()));
+            forecasts.addAll(getForecastBatch(batch, hours));
+        }
+        return forecasts;
+    }
+
+    private List<HourlyColumns> getForecastBatch(List<Location> batch, RequestedHours hours) {
+        try {
+            String latitudes = joinCoordinates(batch, Location::latitude);
+            String longitudes = joinCoordinates(batch, Location::longitude);
+            byte[] body = fetchAirQualityBody(latitudes, longitudes, hours);
+            List<HourlyColumns> forecasts = decode(cacheKey(latitudes, longitudes, hours), body,
+                    () -> OpenMeteoJson.readColumnsBatch(body));
+            if (forecasts.size() != batch.size()) {
+                throw new OpenMeteoFetchException("Open-Meteo returned an unexpected number of air quality forecasts");
+            }
+
+            return forecasts;
+        } catch (RestClientException exception) {
+            log.error("Failed to fetch air quality batch of {} locations from Open-Meteo", batch.size());
+            throw new OpenMeteoFetchException("Failed to fetch air quality from Open-Meteo", exception);
+        }
+    }
+
+    private RestClient.RequestHeadersSpec<?> airQualityRequest(String latitudes, String longitudes,
+                                                               RequestedHours hours) {
+        return restClient.get()
+                .uri(uriBuilder -> hours.applyTo(uriBuilder
+                        .path("/air-quality")
+                        .queryParam("latitude", latitudes)
+                        .queryParam("longitude", longitudes)
+                        .queryParam("hourly", "european_aqi")
+                        .queryParam("domains", domain)
+                        .queryParam("timezone", timezone))
+                        .build());
+    }
+
+    private String cacheKey(String latitudes, String longitudes, RequestedHours hours) {
+        return "air-quality?latitude=" + latitudes + "&longitude=" + longitudes
+                + "&hourly=european_aqi&domains=" + domain + "&timezone=" + timezone + hours.cacheKey();
+    }
+
+    private byte[] fetchAirQualityBody(String latitudes, String longitudes, RequestedHours hours) {
+        return forecastCache.fetch(cacheKey(latitudes, longitudes, hours), conditionalHeaders -> {
+            OpenMeteoFetchEvent event = OpenMeteoFetchEvent.begin(PipelineMetrics.AIR_QUALITY, latitudes, longitudes);
+            try {
+                ResponseEntity<byte[]> response = metrics.timeFetch(PipelineMetrics.AIR_QUALITY,
+                        () -> airQualityRequest(latitudes, longitudes, hours)
+                                .headers(headers -> headers.addAll(conditionalHeaders))
+                                .retrieve()
+                                .toEntity(byte[].class));
+                if (response.getBody() != null) {
+                    metrics.recordPayload(PipelineMetrics.AIR_QUALITY, response.getBody().length);
+                }
+                event.succeeded(response);
+                return response;
+            } catch (RuntimeException exception) {
+                event.failed(exception);
+                throw exception;
+            }
+        });
+    }
+
+    // Bodies identical to the last one for the same request reuse its columns, skipping decoding and archiving.
+    private List<HourlyColumns> decode(String cacheKey, byte[] body, Supplier<List<HourlyColumns>> decoder) {
+        return decodedBodies.decode(cacheKey, body, () -> decodeChanged(body, decoder));
+    }
+
+    private List<HourlyColumns> decodeChanged(byte[] body, Supplier<List<HourlyColumns>> decoder) {
+        OpenMeteoDecodeEvent event = OpenMeteoDecodeEvent.begin(PipelineMetrics.AIR_QUALITY, body);
+        try {
+            List<HourlyColumns> columns = metrics.timeDecode(PipelineMetrics.AIR_QUALITY, decoder);
+            event.succeeded(columns.size());
+            columns.forEach(column -> forecastArchive.append(PipelineMetrics.AIR_QUALITY, column));
+            return columns;
+        } catch (RuntimeException exception) {
+            event.failed();
+            throw exception;
+        }
+    }
+
+    private RequestedHours requestedHours() {
+        return trimToOvernight ? RequestedHours.tonight(timezone, clock) : RequestedHours.all();
+    }
+
+    private RequestedHours requestedHours(int nights) {
+        return trimToOvernight ? RequestedHours.nights(timezone, clock, nights) : RequestedHours.all();
+    }
+
+    private String joinCoordinates(List<Location> batch, ToDoubleFunction<Location> coordinate) {
+        return batch.stream()
+                .map(location -> String.valueOf(coordinate.applyAsDouble(location)))
+                .collect(Collectors.joining(","));
+    }
+
+    private int requirePositive(int value, String propertyName) {
+        if (value <= 0) {
+            throw new IllegalStateException(propertyName + " must be positive");
+        }
+
+        return value;
     }
 
     private double requireCoordinate(Double value, String propertyName) {
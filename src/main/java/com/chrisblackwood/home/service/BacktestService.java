@@ -0,0 +1,363 @@
+package com.chrisblackwood.home.service;
+
+import com.chrisblackwood.home.dto.BacktestReport;
+import com.chrisblackwood.home.dto.HourlyColumns;
+import com.chrisblackwood.home.dto.WindowDecision;
+import com.chrisblackwood.home.dto.WindowRecommendation;
+import com.chrisblackwood.home.json.OpenMeteoJson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Replays archived Open-Meteo responses through the configured window thresholds.
+ * <p>
+ * {@code backtest.directory} holds one {@code <name>.forecast.json} per location, optionally gzipped, with a matching
+ * {@code <name>.air-quality.json} when air quality was archived too. Both use the live response shapes and may span
+ * any number of days. Archives are split across a fork-join pool, each one by night, and only the archives currently
+ * being decided are held in memory. Per-night results are streamed to {@code backtest.output} as CSV, one location at
+ * a time, and the decisions are summed into a histogram.
+ */
+@Service
+public class BacktestService {
+
+    private static final Logger log = LoggerFactory.getLogger(BacktestService.class);
+
+    static final String FORECAST_SUFFIX = ".forecast.json";
+    static final String AIR_QUALITY_SUFFIX = ".air-quality.json";
+    static final String CSV_HEADER = "location,latitude,longitude,night,decision,tonight_low,max_wind,"
+            + "mean_humidity,rain_sum,effective_night_low,max_european_aqi";
+
+    private static final String GZIP_SUFFIX = ".gz";
+    private static final long SECONDS_PER_HOUR = 3_600L;
+    private static final long SECONDS_PER_DAY = 86_400L;
+    private static final int NIGHT_HOURS = 24 - OvernightWindow.BEDTIME_HOUR + OvernightWindow.WAKE_HOUR + 1;
+    private static final int NIGHTS_PER_TASK = 256;
+
+    private final WindowService windowService;
+    private final Path directory;
+    private final Path output;
+    private final int parallelism;
+
+    @Autowired
+    public BacktestService(
+            WindowService windowService,
+            @Value("${backtest.directory:}") String directory,
+            @Value("${backtest.output:}") String output,
+            @Value("${backtest.parallelism:0}") int parallelism
+    ) {
+        if (parallelism < 0) {
+            throw new IllegalStateException("backtest.parallelism must not be negative");
+        }
+
+        this.windowService = windowService;
+        this.directory = directory == null || directory.isBlank() ? null : Path.of(directory);
+        this.output = output == null || output.isBlank() ? null : Path.of(output);
+        this.parallelism = parallelism == 0 ? Runtime.getRuntime().availableProcessors() : parallelism;
+    }
+
+    public BacktestReport run() {
+        if (directory == null) {
+            throw new IllegalStateException("backtest.directory must be set to run a backtest");
+        }
+
+        try {
+            if (output == null) {
+                return run(directory, null);
+            }
+
+            try (BufferedWriter writer = Files.newBufferedWriter(output)) {
+                return run(directory, writer);
+            }
+        } catch (IOException exception) {
+            throw new IllegalStateException("Failed to write backtest results to " + output, exception);
+        }
+    }
+
+    /**
+     * Backtests every archive in {@code directory}, writing per-night CSV rows to {@code writer} when it is not null.
+     * Rows are grouped by location and ordered by night within each location.
+     */
+    BacktestReport run(Path directory, Writer writer) throws IOException {
+        long start = System.nanoTime();
+        List<Path> archives = forecastArchives(directory);
+        if (writer != null) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        Tally tally;
+        try {
+            tally = pool.invoke(new ArchiveTask(archives, 0, archives.size(), writer));
+        } finally {
+            pool.shutdown();
+        }
+
+        Map<WindowDecision, Long> histogram = new EnumMap<>(WindowDecision.class);
+        for (WindowDecision decision : WindowDecision.values()) {
+            histogram.put(decision, tally.histogram[decision.ordinal()]);
+        }
+
+        BacktestReport report = new BacktestReport(tally.locations, tally.skippedArchives, tally.nights, histogram,
+                Duration.ofNanos(System.nanoTime() - start));
+        log.info("Backtested {} nights across {} locations in {} ms: {}", report.nights(), report.locations(),
+                report.elapsed().toMillis(), report.histogram());
+        return report;
+    }
+
+    static List<Path> forecastArchives(Path directory) {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(file -> {
+                        String name = file.getFileName().toString();
+                        return name.endsWith(FORECAST_SUFFIX) || name.endsWith(FORECAST_SUFFIX + GZIP_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        } catch (IOException exception) {
+            throw new IllegalStateException("Failed to list backtest archives in " + directory, exception);
+        }
+    }
+
+    /**
+     * Indexes of every bedtime on the time axis; each night is decided from the hours up to the next wake time.
+     */
+    static int[] bedtimes(long[] time) {
+        int[] bedtimes = new int[time.length / 24 + 1];
+        int count = 0;
+        for (int index = 0; index < time.length; index++) {
+            long timestamp = time[index];
+            if (timestamp != HourlyColumns.INVALID_TIME
+                    && Math.floorMod(timestamp, SECONDS_PER_DAY) == OvernightWindow.BEDTIME_HOUR * SECONDS_PER_HOUR) {
+                if (count == bedtimes.length) {
+                    bedtimes = Arrays.copyOf(bedtimes, count * 2);
+                }
+                bedtimes[count++] = index;
+            }
+        }
+
+        return Arrays.copyOf(bedtimes, count);
+    }
+
+    private Tally backtestArchive(Path forecastArchive, Writer writer) {
+        String location = locationName(forecastArchive);
+        HourlyColumns forecast;
+        HourlyColumns airQuality;
+        try {
+            forecast = readArchive(forecastArchive);
+            airQuality = readAirQualityArchive(forecastArchive, location);
+        } catch (RuntimeException exception) {
+            log.warn("Skipping backtest archive {}", forecastArchive, exception);
+            return Tally.skipped();
+        }
+
+        int[] bedtimes = bedtimes(forecast.time());
+        WindowRecommendation[] recommendations = new WindowRecommendation[bedtimes.length];
+        new NightTask(forecast, airQuality, bedtimes, 0, bedtimes.length, recommendations).invoke();
+
+        Tally tally = new Tally();
+        tally.locations = 1;
+        tally.nights = bedtimes.length;
+        StringBuilder rows = writer == null ? null : new StringBuilder(bedtimes.length * 96);
+        for (int night = 0; night < bedtimes.length; night++) {
+            WindowRecommendation recommendation = recommendations[night];
+            tally.histogram[recommendation.decision().ordinal()]++;
+            if (rows != null) {
+                appendRow(rows, location, forecast, forecast.time()[bedtimes[night]], recommendation);
+            }
+        }
+
+        if (rows != null) {
+            synchronized (writer) {
+                try {
+                    writer.append(rows);
+                } catch (IOException exception) {
+                    throw new IllegalStateException("Failed to write backtest results for " + location, exception);
+                }
+            }
+        }
+
+        return tally;
+    }
+
+    private WindowRecommendation backtestNight(HourlyColumns forecast, HourlyColumns airQuality, int bedtime) {
+        HourlyColumns night = forecast.slice(bedtime, bedtime + NIGHT_HOURS);
+        HourlyColumns nightAirQuality = null;
+        if (airQuality != null) {
+            int airQualityBedtime = Arrays.binarySearch(airQuality.time(), forecast.time()[bedtime]);
+            if (airQualityBedtime >= 0) {
+                nightAirQuality = airQuality.slice(airQualityBedtime, airQualityBedtime + NIGHT_HOURS);
+            }
+        }
+
+        return windowService.replayRecommendation(night, nightAirQuality);
+    }
+
+    private HourlyColumns readAirQualityArchive(Path forecastArchive, String location) {
+        Path plain = forecastArchive.resolveSibling(location + AIR_QUALITY_SUFFIX);
+        Path gzipped = forecastArchive.resolveSibling(location + AIR_QUALITY_SUFFIX + GZIP_SUFFIX);
+        if (Files.exists(plain)) {
+            return readArchive(plain);
+        }
+        return Files.exists(gzipped) ? readArchive(gzipped) : null;
+    }
+
+    private static HourlyColumns readArchive(Path archive) {
+        try (InputStream input = Files.newInputStream(archive)) {
+            if (archive.getFileName().toString().endsWith(GZIP_SUFFIX)) {
+                try (InputStream gunzipped = new GZIPInputStream(input, 64 * 1024)) {
+                    return OpenMeteoJson.readColumns(gunzipped);
+                }
+            }
+            return OpenMeteoJson.readColumns(input);
+        } catch (IOException exception) {
+            throw new IllegalStateException("Failed to read backtest archive " + archive, exception);
+        }
+    }
+
+    private static String locationName(Path forecastArchive) {
+        String name = forecastArchive.getFileName().toString();
+        if (name.endsWith(GZIP_SUFFIX)) {
+            name = name.substring(0, name.length() - GZIP_SUFFIX.length());
+        }
+        return name.substring(0, name.length() - FORECAST_SUFFIX.length());
+    }
+
+    private static void appendRow(StringBuilder rows, String location, HourlyColumns forecast, long bedtime,
+                                  WindowRecommendation recommendation) {
+        rows.append(location).append(',')
+                .append(forecast.latitude()).append(',')
+                .append(forecast.longitude()).append(',')
+                .append(LocalDate.ofEpochDay(Math.floorDiv(bedtime, SECONDS_PER_DAY))).append(',')
+                .append(recommendation.decision());
+        appendValue(rows, recommendation.tonightLow());
+        appendValue(rows, recommendation.maxWind());
+        appendValue(rows, recommendation.meanHumidity());
+        appendValue(rows, recommendation.rainSum());
+        appendValue(rows, recommendation.effectiveNightLow());
+        appendValue(rows, recommendation.maxEuropeanAqi());
+        rows.append('\n');
+    }
+
+    private static void appendValue(StringBuilder rows, Double value) {
+        rows.append(',');
+        if (value != null) {
+            rows.append(value.doubleValue());
+        }
+    }
+
+    private static final class Tally {
+
+        private final long[] histogram = new long[WindowDecision.values().length];
+        private int locations;
+        private int skippedArchives;
+        private long nights;
+
+        static Tally skipped() {
+            Tally tally = new Tally();
+            tally.skippedArchives = 1;
+            return tally;
+        }
+
+        Tally plus(Tally other) {
+            Tally sum = new Tally();
+            for (int index = 0; index < histogram.length; index++) {
+                sum.histogram[index] = histogram[index] + other.histogram[index];
+            }
+            sum.locations = locations + other.locations;
+            sum.skippedArchives = skippedArchives + other.skippedArchives;
+            sum.nights = nights + other.nights;
+            return sum;
+        }
+    }
+
+    // Splits the archive list in halves so an archive is only opened once a worker actually picks it up.
+    private final class ArchiveTask extends RecursiveTask<Tally> {
+
+        private final List<Path> archives;
+        private final int from;
+        private final int to;
+        private final Writer writer;
+
+        ArchiveTask(List<Path> archives, int from, int to, Writer writer) {
+            this.archives = archives;
+            this.from = from;
+            this.to = to;
+            this.writer = writer;
+        }
+
+        @Override
+        protected Tally compute() {
+            if (to - from == 0) {
+                return new Tally();
+            }
+
+            if (to - from == 1) {
+                return backtestArchive(archives.get(from), writer);
+            }
+
+            int middle = (from + to) >>> 1;
+            ArchiveTask right = new ArchiveTask(archives, middle, to, writer);
+            right.fork();
+            Tally left = new ArchiveTask(archives, from, middle, writer).compute();
+            return left.plus(right.join());
+        }
+    }
+
+    private final class NightTask extends RecursiveAction {
+
+        private final HourlyColumns forecast;
+        private final HourlyColumns airQuality;
+        private final int[] bedtimes;
+        private final int from;
+        private final int to;
+        private final WindowRecommendation[] recommendations;
+
+        NightTask(HourlyColumns forecast, HourlyColumns airQuality, int[] bedtimes, int from, int to,
+                  WindowRecommendation[] recommendations) {
+            this.forecast = forecast;
+            this.airQuality = airQuality;
+            this.bedtimes = bedtimes;
+            this.from = from;
+            this.to = to;
+            this.recommendations = recommendations;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= NIGHTS_PER_TASK) {
+                for (int night = from; night < to; night++) {
+                    recommendations[night] = backtestNight(forecast, airQuality, bedtimes[night]);
+                }
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(
+                    new NightTask(forecast, airQuality, bedtimes, from, middle, recommendations),
+                    new NightTask(forecast, airQuality, bedtimes, middle, to, recommendations)
+            );
+        }
+    }
+}
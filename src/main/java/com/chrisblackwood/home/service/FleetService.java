@@ -0,0 +1,218 @@
+package com.chrisblackwood.home.service;
+
+import com.chrisblackwood.home.dto.HourlyColumns;
+import com.chrisblackwood.home.dto.Location;
+import com.chrisblackwood.home.dto.LocationRecommendation;
+import com.chrisblackwood.home.dto.WindowRecommendation;
+import com.chrisblackwood.home.dto.WindowThresholds;
+import com.chrisblackwood.home.metrics.PipelineMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+/**
+ * Runs the window decision for every configured {@code fleet.locations} entry, fetching weather and air quality in
+ * multi-coordinate batches instead of two requests per location.
+ * <p>
+ * With {@code fleet.lattice-step} set, a lattice of points that many degrees apart is fetched over the locations'
+ * bounding box instead, and each location's series are interpolated from it, so the number of points fetched depends
+ * on the area covered rather than on the number of locations. {@code fleet.lattice-max-points} guards against a
+ * bounding box that is accidentally continent-sized.
+ */
+@Service
+public class FleetService {
+
+    private static final Logger log = LoggerFactory.getLogger(FleetService.class);
+
+    private final WeatherService weatherService;
+    private final AirQualityService airQualityService;
+    private final WindowService windowService;
+    private final PipelineMetrics metrics;
+    private final List<Location> locations;
+    private final double latticeStep;
+    private final int latticeMaxPoints;
+
+    @Autowired
+    public FleetService(
+            WeatherService weatherService,
+            AirQualityService airQualityService,
+            WindowService windowService,
+            PipelineMetrics metrics,
+            @Value("${fleet.locations:}") String locations,
+            @Value("${fleet.lattice-step:0}") double latticeStep,
+            @Value("${fleet.lattice-max-points:2500}") int latticeMaxPoints
+    ) {
+        if (!(latticeStep >= 0.0)) {
+            throw new IllegalStateException("fleet.lattice-step must not be negative");
+        }
+        if (latticeMaxPoints <= 0) {
+            throw new IllegalStateException("fleet.lattice-max-points must be positive");
+        }
+
+        this.weatherService = weatherService;
+        this.airQualityService = airQualityService;
+        this.windowService = windowService;
+        this.metrics = metrics;
+        this.locations = parseLocations(locations);
+        this.latticeStep = latticeStep;
+        this.latticeMaxPoints = latticeMaxPoints;
+    }
+
+    public boolean isEnabled() {
+        return !locations.isEmpty();
+    }
+
+    public List<Location> locations() {
+        return locations;
+    }
+
+    public List<LocationRecommendation> recommendations() {
+        List<WindowRecommendation> recommendations =
+                recommendations(locations, Collections.nCopies(locations.size(), windowService.thresholds()));
+
+        return IntStream.range(0, locations.size())
+                .mapToObj(index -> new LocationRecommendation(locations.get(index), recommendations.get(index)))
+                .toList();
+    }
+
+    /**
+     * Recommends for a single, arbitrary location with the configured thresholds.
+     */
+    public WindowRecommendation recommendation(Location location) {
+        return recommendations(List.of(location), List.of(windowService.thresholds())).get(0);
+    }
+
+    /**
+     * Recommends for each location with its own thresholds, in input order. Repeated locations are fetched once.
+     */
+    List<WindowRecommendation> recommendations(List<Location> locations, List<WindowThresholds> thresholds) {
+        List<Location> distinct = locations.stream().distinct().toList();
+        Map<Location, Integer> positions = new HashMap<>();
+        for (int index = 0; index < distinct.size(); index++) {
+            positions.put(distinct.get(index), index);
+        }
+
+        FleetForecasts fleetForecasts = fetchForecasts(distinct);
+        List<HourlyColumns> forecasts = fleetForecasts.forecasts();
+        List<HourlyColumns> airQuality = fleetForecasts.airQuality();
+
+        return IntStream.range(0, locations.size())
+                .parallel()
+                .mapToObj(index -> {
+                    int position = positions.get(locations.get(index));
+                    return windowService.windowRecommendation(
+                            forecasts.get(position),
+                            airQuality == null ? null : airQuality.get(position),
+                            thresholds.get(index)
+                    );
+                })
+                .toList();
+    }
+
+    private FleetForecasts fetchForecasts(List<Location> locations) {
+        if (latticeStep == 0.0) {
+            return fetchPointForecasts(locations, true);
+        }
+
+        ForecastLattice.Grid grid = ForecastLattice.Grid.covering(locations, latticeStep);
+        if (grid.size() > latticeMaxPoints) {
+            throw new IllegalStateException("Fleet lattice of " + grid.rows() + "x" + grid.columns()
+                    + " points exceeds fleet.lattice-max-points");
+        }
+
+        // The lattice already sets the spacing; snapping its nodes to model cells would move them off the grid that
+        // the interpolation assumes.
+        FleetForecasts lattice = fetchPointForecasts(grid.points(), false);
+        ForecastLattice forecasts = ForecastLattice.of(grid, lattice.forecasts());
+        ForecastLattice airQuality = lattice.airQuality() == null ? null : ForecastLattice.of(grid, lattice.airQuality());
+        return new FleetForecasts(
+                locations.stream().map(forecasts::interpolate).toList(),
+                airQuality == null ? null : locations.stream().map(airQuality::interpolate).toList()
+        );
+    }
+
+    private FleetForecasts fetchPointForecasts(List<Location> locations, boolean snap) {
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            Future<List<HourlyColumns>> airQuality =
+                    executor.submit(() -> getAirQualityForecastsOrNull(locations, snap));
+            Future<List<HourlyColumns>> forecasts =
+                    executor.submit(() -> weatherService.getForecastColumns(locations, snap));
+
+            try {
+                return new FleetForecasts(forecasts.get(), airQuality.get());
+            } catch (ExecutionException exception) {
+                airQuality.cancel(true);
+                if (exception.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw new IllegalStateException("Failed to fetch fleet forecasts", exception.getCause());
+            } catch (InterruptedException exception) {
+                forecasts.cancel(true);
+                airQuality.cancel(true);
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while fetching fleet forecasts", exception);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private List<HourlyColumns> getAirQualityForecastsOrNull(List<Location> locations, boolean snap) {
+        try {
+            return airQualityService.getForecastColumns(locations, snap);
+        } catch (RuntimeException exception) {
+            log.warn("Air quality unavailable for fleet, falling back to weather-only decisions", exception);
+            metrics.recordAirQualityFallback();
+            return null;
+        }
+    }
+
+    static List<Location> parseLocations(String value) {
+        if (value == null || value.isBlank()) {
+            return List.of();
+        }
+
+        List<Location> locations = new ArrayList<>();
+        for (String entry : value.split(";")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+
+            String[] coordinates = entry.split(",");
+            if (coordinates.length != 2) {
+                throw new IllegalStateException("fleet.locations entries must be latitude,longitude pairs: " + entry);
+            }
+
+            try {
+                locations.add(new Location(
+                        Double.parseDouble(coordinates[0].trim()),
+                        Double.parseDouble(coordinates[1].trim())
+                ));
+            } catch (NumberFormatException exception) {
+                throw new IllegalStateException("fleet.locations entries must be latitude,longitude pairs: " + entry);
+            }
+        }
+
+        return List.copyOf(locations);
+    }
+
+    private record FleetForecasts(
+            List<HourlyColumns> forecasts,
+            List<HourlyColumns> airQuality
+    ) {
+    }
+}
@@ -0,0 +1,164 @@
+package com.chrisblackwood.home.service;
+
+import com.chrisblackwood.home.dto.HourlyColumns;
+import com.chrisblackwood.home.dto.Location;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hourly series on a regular latitude/longitude lattice, from which the series at any point inside it is derived by
+ * bilinear interpolation.
+ * <p>
+ * Each variable is one flat array holding every lattice point's hours back to back, row by row from the south-west
+ * corner, so interpolating a point reads four contiguous runs. Corners with a missing value are left out and the
+ * remaining weights renormalised; the value is only missing when all four are.
+ */
+final class ForecastLattice {
+
+    private final Grid grid;
+    private final long[] time;
+    private final Map<String, double[]> series;
+
+    private ForecastLattice(Grid grid, long[] time, Map<String, double[]> series) {
+        this.grid = grid;
+        this.time = time;
+        this.series = series;
+    }
+
+    /**
+     * Packs the columns fetched for {@link Grid#points()}, in that order. Every point must share one time axis.
+     */
+    static ForecastLattice of(Grid grid, List<HourlyColumns> columns) {
+        if (columns.size() != grid.size()) {
+            throw new IllegalStateException("Expected " + grid.size() + " lattice points but got " + columns.size());
+        }
+
+        long[] time = columns.getFirst().time();
+        int hours = time.length;
+        Map<String, double[]> series = new HashMap<>();
+        for (int point = 0; point < columns.size(); point++) {
+            HourlyColumns pointColumns = columns.get(point);
+            if (!Arrays.equals(time, pointColumns.time())) {
+                throw new IllegalStateException("Lattice points returned different time axes");
+            }
+
+            for (Map.Entry<String, double[]> entry : pointColumns.series().entrySet()) {
+                double[] values = series.computeIfAbsent(entry.getKey(), name -> {
+                    double[] missing = new double[grid.size() * hours];
+                    Arrays.fill(missing, Double.NaN);
+                    return missing;
+                });
+                System.arraycopy(entry.getValue(), 0, values, point * hours, hours);
+            }
+        }
+
+        return new ForecastLattice(grid, time, series);
+    }
+
+    /**
+     * The series at {@code location}. Points outside the lattice take the values at its nearest edge.
+     */
+    HourlyColumns interpolate(Location location) {
+        double row = clamp((location.latitude() - grid.south()) / grid.step(), grid.rows() - 1);
+        double column = clamp((location.longitude() - grid.west()) / grid.step(), grid.columns() - 1);
+        int row0 = (int) row;
+        int column0 = (int) column;
+        int row1 = Math.min(row0 + 1, grid.rows() - 1);
+        int column1 = Math.min(column0 + 1, grid.columns() - 1);
+        double rowWeight = row - row0;
+        double columnWeight = column - column0;
+
+        int hours = time.length;
+        int[] corners = {
+                grid.index(row0, column0) * hours,
+                grid.index(row0, column1) * hours,
+                grid.index(row1, column0) * hours,
+                grid.index(row1, column1) * hours
+        };
+        double[] weights = {
+                (1.0 - rowWeight) * (1.0 - columnWeight),
+                (1.0 - rowWeight) * columnWeight,
+                rowWeight * (1.0 - columnWeight),
+                rowWeight * columnWeight
+        };
+
+        Map<String, double[]> interpolated = new HashMap<>();
+        series.forEach((name, values) -> {
+            double[] result = new double[hours];
+            for (int hour = 0; hour < hours; hour++) {
+                double sum = 0.0;
+                double weight = 0.0;
+                for (int corner = 0; corner < corners.length; corner++) {
+                    double value = values[corners[corner] + hour];
+                    if (!Double.isNaN(value) && weights[corner] > 0.0) {
+                        sum += weights[corner] * value;
+                        weight += weights[corner];
+                    }
+                }
+                result[hour] = weight == 0.0 ? Double.NaN : sum / weight;
+            }
+            interpolated.put(name, result);
+        });
+
+        return new HourlyColumns(location.latitude(), location.longitude(), time, interpolated);
+    }
+
+    private static double clamp(double value, int max) {
+        return Math.max(0.0, Math.min(value, max));
+    }
+
+    /**
+     * Lattice of {@code rows} by {@code columns} points {@code step} degrees apart from the south-west corner.
+     */
+    record Grid(double south, double west, double step, int rows, int columns) {
+
+        /**
+         * The smallest lattice on multiples of {@code step} that contains every location.
+         */
+        static Grid covering(List<Location> locations, double step) {
+            double minLatitude = Double.POSITIVE_INFINITY;
+            double maxLatitude = Double.NEGATIVE_INFINITY;
+            double minLongitude = Double.POSITIVE_INFINITY;
+            double maxLongitude = Double.NEGATIVE_INFINITY;
+            for (Location location : locations) {
+                minLatitude = Math.min(minLatitude, location.latitude());
+                maxLatitude = Math.max(maxLatitude, location.latitude());
+                minLongitude = Math.min(minLongitude, location.longitude());
+                maxLongitude = Math.max(maxLongitude, location.longitude());
+            }
+
+            long southIndex = (long) Math.floor(minLatitude / step);
+            long westIndex = (long) Math.floor(minLongitude / step);
+            int rows = (int) ((long) Math.ceil(maxLatitude / step) - southIndex) + 1;
+            int columns = (int) ((long) Math.ceil(maxLongitude / step) - westIndex) + 1;
+            return new Grid(round(southIndex * step), round(westIndex * step), step, rows, columns);
+        }
+
+        int size() {
+            return rows * columns;
+        }
+
+        int index(int row, int column) {
+            return row * columns + column;
+        }
+
+        List<Location> points() {
+            List<Location> points = new ArrayList<>(size());
+            for (int row = 0; row < rows; row++) {
+                for (int column = 0; column < columns; column++) {
+                    points.add(new Location(round(south + row * step), round(west + column * step)));
+                }
+            }
+            return points;
+        }
+
+        // Keeps points like 48.5 from coming out as 48.50000000000001 in request URLs and cache keys.
+        private static double round(double coordinate) {
+            return Math.round(coordinate * 1e6) / 1e6;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.chrisblackwood.home.service;
+
+import com.chrisblackwood.home.dto.HourlyColumns;
+import com.chrisblackwood.home.dto.HourlyRecommendation;
+import com.chrisblackwood.home.dto.WindowDecision;
+import com.chrisblackwood.home.dto.WindowThresholds;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Per-hour decisions over each bedtime-to-wake window. Every hour is judged on the {@code windowHours} hours starting
+ * there, cut off at wake time, using the same rules and thresholds as the nightly decision.
+ * <p>
+ * Each night is walked once from wake back to bedtime, so a window gains its first hour and loses its last at every
+ * step. Minimum temperature and maximum wind and air quality come from monotonic deques, and humidity and rain from
+ * running sums, so the whole schedule is linear in the number of hours whatever the window length.
+ */
+final class HourlySchedule {
+
+    private static final long SECONDS_PER_HOUR = 3_600L;
+    private static final long SECONDS_PER_DAY = 86_400L;
+    private static final int NIGHT_HOURS = 24 - OvernightWindow.BEDTIME_HOUR + OvernightWindow.WAKE_HOUR + 1;
+
+    private HourlySchedule() {
+    }
+
+    static List<HourlyRecommendation> evaluate(HourlyColumns forecast, HourlyColumns airQuality, int windowHours,
+                                               int nights, WindowService windowService, WindowThresholds thresholds) {
+        if (forecast == null || forecast.size() == 0) {
+            return List.of();
+        }
+
+        long[] time = forecast.time();
+        double[] temperatures = column(forecast, "temperature_2m");
+        double[] winds = column(forecast, "wind_speed_10m");
+        double[] humidities = column(forecast, "relative_humidity_2m");
+        double[] rains = column(forecast, "rain");
+        double[] europeanAqis = alignedAirQuality(time, airQuality);
+
+        List<HourlyRecommendation> schedule = new ArrayList<>();
+        int night = 0;
+        for (int index = 0; index < time.length && night < nights; index++) {
+            if (time[index] == HourlyColumns.INVALID_TIME
+                    || Math.floorMod(time[index], SECONDS_PER_DAY) != OvernightWindow.BEDTIME_HOUR * SECONDS_PER_HOUR) {
+                continue;
+            }
+
+            int to = index + 1;
+            while (to < time.length && to - index < NIGHT_HOURS
+                    && time[to] == time[index] + (to - index) * SECONDS_PER_HOUR) {
+                to++;
+            }
+
+            HourlyRecommendation[] hours = new HourlyRecommendation[to - index];
+            evaluateNight(index, to, windowHours, time, temperatures, winds, humidities, rains, europeanAqis,
+                    windowService, thresholds, hours);
+            schedule.addAll(Arrays.asList(hours));
+            night++;
+            index = to - 1;
+        }
+
+        return schedule;
+    }
+
+    private static void evaluateNight(int from, int to, int windowHours, long[] time, double[] temperatures,
+                                      double[] winds, double[] humidities, double[] rains, double[] europeanAqis,
+                                      WindowService windowService, WindowThresholds thresholds,
+                                      HourlyRecommendation[] hours) {
+        MonotonicDeque lowest = new MonotonicDeque(temperatures, windowHours, true);
+        MonotonicDeque windiest = new MonotonicDeque(winds, windowHours, false);
+        MonotonicDeque worstAir = new MonotonicDeque(europeanAqis, windowHours, false);
+        RunningSum humidity = new RunningSum(humidities);
+        RunningSum rain = new RunningSum(rains);
+
+        for (int index = to - 1; index >= from; index--) {
+            int leaving = index + windowHours;
+            if (leaving < to) {
+                humidity.remove(leaving);
+                rain.remove(leaving);
+            }
+            lowest.push(index, leaving);
+            windiest.push(index, leaving);
+            worstAir.push(index, leaving);
+            humidity.add(index);
+            rain.add(index);
+
+            Double low = lowest.best();
+            Double maxWind = windiest.best();
+            Double meanHumidity = humidity.mean();
+            Double rainSum = rain.sum();
+            Double maxEuropeanAqi = worstAir.best();
+            WindowDecision decision = windowService.windowDecision(low, maxWind, meanHumidity, rainSum,
+                    maxEuropeanAqi, thresholds);
+            hours[index - from] = new HourlyRecommendation(
+                    LocalDateTime.ofEpochSecond(time[index], 0, ZoneOffset.UTC),
+                    decision,
+                    windowService.opensOvernight(decision),
+                    low,
+                    maxWind,
+                    meanHumidity,
+                    rainSum,
+                    maxEuropeanAqi
+            );
+        }
+    }
+
+    // Air quality has its own time axis; both are sorted, so one merge pass lines it up with the forecast.
+    private static double[] alignedAirQuality(long[] time, HourlyColumns airQuality) {
+        double[] aligned = new double[time.length];
+        Arrays.fill(aligned, Double.NaN);
+        if (airQuality == null || airQuality.series("european_aqi") == null) {
+            return aligned;
+        }
+
+        long[] airQualityTime = airQuality.time();
+        double[] europeanAqis = airQuality.series("european_aqi");
+        int cursor = 0;
+        for (int index = 0; index < time.length; index++) {
+            while (cursor < airQualityTime.length && airQualityTime[cursor] < time[index]) {
+                cursor++;
+            }
+            if (cursor < airQualityTime.length && airQualityTime[cursor] == time[index]) {
+                aligned[index] = europeanAqis[cursor];
+            }
+        }
+        return aligned;
+    }
+
+    private static double[] column(HourlyColumns columns, String name) {
+        double[] values = columns.series(name);
+        if (values != null) {
+            return values;
+        }
+
+        double[] missing = new double[columns.size()];
+        Arrays.fill(missing, Double.NaN);
+        return missing;
+    }
+
+    /**
+     * Indexes of the values that can still be the window's minimum (or maximum), best at the head. Indexes arrive in
+     * descending order, so the head is also the first to fall out of the window. {@code NaN} values are skipped.
+     */
+    private static final class MonotonicDeque {
+
+        private final double[] values;
+        private final boolean minimum;
+        private final int[] indexes;
+        private int head;
+        private int size;
+
+        MonotonicDeque(double[] values, int windowHours, boolean minimum) {
+            this.values = values;
+            this.minimum = minimum;
+            this.indexes = new int[windowHours + 1];
+        }
+
+        void push(int index, int leaving) {
+            while (size > 0 && indexes[head] >= leaving) {
+                head = (head + 1) % indexes.length;
+                size--;
+            }
+
+            double value = values[index];
+            if (Double.isNaN(value)) {
+                return;
+            }
+
+            while (size > 0 && !better(values[indexes[tail()]], value)) {
+                size--;
+            }
+            indexes[(head + size) % indexes.length] = index;
+            size++;
+        }
+
+        Double best() {
+            return size == 0 ? null : values[indexes[head]];
+        }
+
+        private int tail() {
+            return (head + size - 1) % indexes.length;
+        }
+
+        private boolean better(double current, double candidate) {
+            return minimum ? current < candidate : current > candidate;
+        }
+    }
+
+    private static final class RunningSum {
+
+        private final double[] values;
+        private double sum;
+        private int count;
+
+        RunningSum(double[] values) {
+            this.values = values;
+        }
+
+        void add(int index) {
+            if (!Double.isNaN(values[index])) {
+                sum += values[index];
+                count++;
+            }
+        }
+
+        void remove(int index) {
+            if (!Double.isNaN(values[index])) {
+                sum -= values[index];
+                count--;
+            }
+        }
+
+        Double sum() {
+            // Subtracting what was added can leave rounding noise once every value has left the window.
+            return count == 0 ? null : Math.max(sum, 0.0);
+        }
+
+        Double mean() {
+            return count == 0 ? null : sum / count;
+        }
+    }
+}
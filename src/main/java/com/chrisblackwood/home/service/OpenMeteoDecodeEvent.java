@@ -0,0 +1,55 @@
+package com.chrisblackwood.home.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for decoding an Open-Meteo body into {@link com.chrisblackwood.home.dto.HourlyColumns}.
+ */
+@Name("com.chrisblackwood.home.OpenMeteoDecode")
+@Label("Open-Meteo Decode")
+@Category({"Home App", "Upstream"})
+@Description("Streaming decode of an Open-Meteo response into hourly columns")
+@StackTrace(false)
+class OpenMeteoDecodeEvent extends jdk.jfr.Event {
+
+    @Label("Upstream")
+    String upstream;
+
+    @Label("Body Size")
+    @DataAmount
+    long bytes;
+
+    @Label("Locations")
+    int locations;
+
+    @Label("Outcome")
+    String outcome;
+
+    static OpenMeteoDecodeEvent begin(String upstream, byte[] body) {
+        OpenMeteoDecodeEvent event = new OpenMeteoDecodeEvent();
+        event.begin();
+        event.upstream = upstream;
+        event.bytes = body == null ? 0 : body.length;
+        return event;
+    }
+
+    void succeeded(int locations) {
+        if (shouldCommit()) {
+            this.locations = locations;
+            outcome = "success";
+            commit();
+        }
+    }
+
+    void failed() {
+        if (shouldCommit()) {
+            outcome = "failure";
+            commit();
+        }
+    }
+}
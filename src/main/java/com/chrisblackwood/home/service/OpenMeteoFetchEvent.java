@@ -0,0 +1,68 @@
+package com.chrisblackwood.home.service;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestClientResponseException;
+
+/**
+ * Flight Recorder event for one Open-Meteo round trip. Cache hits never reach the network and are not recorded.
+ */
+@Name("com.chrisblackwood.home.OpenMeteoFetch")
+@Label("Open-Meteo Fetch")
+@Category({"Home App", "Upstream"})
+@Description("HTTP round trip to an Open-Meteo API")
+@StackTrace(false)
+class OpenMeteoFetchEvent extends jdk.jfr.Event {
+
+    @Label("Upstream")
+    String upstream;
+
+    @Label("Latitudes")
+    String latitudes;
+
+    @Label("Longitudes")
+    String longitudes;
+
+    @Label("HTTP Status")
+    int status;
+
+    @Label("Body Size")
+    @DataAmount
+    long bytes;
+
+    @Label("Outcome")
+    String outcome;
+
+    static OpenMeteoFetchEvent begin(String upstream, String latitudes, String longitudes) {
+        OpenMeteoFetchEvent event = new OpenMeteoFetchEvent();
+        event.begin();
+        event.upstream = upstream;
+        event.latitudes = latitudes;
+        event.longitudes = longitudes;
+        return event;
+    }
+
+    void succeeded(ResponseEntity<byte[]> response) {
+        if (shouldCommit()) {
+            status = response.getStatusCode().value();
+            bytes = response.getBody() == null ? 0 : response.getBody().length;
+            outcome = "success";
+            commit();
+        }
+    }
+
+    void failed(RuntimeException exception) {
+        if (shouldCommit()) {
+            status = exception instanceof RestClientResponseException responseException
+                    ? responseException.getStatusCode().value()
+                    : 0;
+            outcome = "failure";
+            commit();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.chrisblackwood.home.service;
+
+/**
+ * Open-Meteo could not be reached, answered with an error status or returned a different number of series than
+ * requested. Configuration and programming errors stay plain {@link IllegalStateException}s.
+ */
+public class OpenMeteoFetchException extends IllegalStateException {
+
+    public OpenMeteoFetchException(String message) {
+        super(message);
+    }
+
+    public OpenMeteoFetchException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
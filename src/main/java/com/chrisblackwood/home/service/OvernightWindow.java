@@ -0,0 +1,87 @@
+package com.chrisblackwood.home.service;
+
+import com.chrisblackwood.home.dto.HourlyColumns;
+
+/**
+ * Index range of the first bedtime-to-wake window in an hourly time axis.
+ * <p>
+ * Open-Meteo series are regularly spaced, so the window is normally found by arithmetic on the first timestamp and
+ * every index in {@code [from, to)} belongs to it. Irregular series fall back to comparing each timestamp against
+ * {@code [start, end]}.
+ */
+record OvernightWindow(int from, int to, long start, long end, boolean contiguous) {
+
+    static final int BEDTIME_HOUR = 22;
+    static final int WAKE_HOUR = 8;
+
+    private static final long SECONDS_PER_HOUR = 3_600L;
+    private static final long SECONDS_PER_DAY = 86_400L;
+    private static final OvernightWindow EMPTY = new OvernightWindow(0, 0, 0L, 0L, true);
+
+    static OvernightWindow locate(long[] time) {
+        if (time == null || time.length == 0) {
+            return EMPTY;
+        }
+
+        OvernightWindow window = locateByArithmetic(time);
+        return window != null ? window : locateByScan(time);
+    }
+
+    boolean isEmpty() {
+        return from >= to;
+    }
+
+    boolean includes(long[] time, int index) {
+        if (contiguous) {
+            return true;
+        }
+
+        long timestamp = time[index];
+        return timestamp != HourlyColumns.INVALID_TIME && timestamp >= start && timestamp <= end;
+    }
+
+    private static OvernightWindow locateByArithmetic(long[] time) {
+        long first = time[0];
+        int last = time.length - 1;
+        if (first == HourlyColumns.INVALID_TIME
+                || (last > 0 && time[last] != first + last * SECONDS_PER_HOUR)) {
+            return null;
+        }
+
+        int bedtimeIndex = Math.floorMod(BEDTIME_HOUR - hourOfDay(first), 24);
+        if (bedtimeIndex > last) {
+            return EMPTY;
+        }
+
+        long start = first + bedtimeIndex * SECONDS_PER_HOUR;
+        long end = wakeTimeAfter(start);
+        int to = (int) Math.min(last, bedtimeIndex + (end - start) / SECONDS_PER_HOUR) + 1;
+
+        // The endpoints agree with a regular axis; make sure the slice we aggregate over does too.
+        for (int index = bedtimeIndex; index < to; index++) {
+            if (time[index] != first + index * SECONDS_PER_HOUR) {
+                return null;
+            }
+        }
+
+        return new OvernightWindow(bedtimeIndex, to, start, end, true);
+    }
+
+    private static OvernightWindow locateByScan(long[] time) {
+        for (long timestamp : time) {
+            if (timestamp != HourlyColumns.INVALID_TIME && hourOfDay(timestamp) == BEDTIME_HOUR) {
+                return new OvernightWindow(0, time.length, timestamp, wakeTimeAfter(timestamp), false);
+            }
+        }
+
+        return EMPTY;
+    }
+
+    private static long wakeTimeAfter(long bedtime) {
+        return (Math.floorDiv(bedtime, SECONDS_PER_DAY) + 1) * SECONDS_PER_DAY + WAKE_HOUR * SECONDS_PER_HOUR;
+    }
+
+    private static int hourOfDay(long timestamp) {
+        return (int) (Math.floorMod(timestamp, SECONDS_PER_DAY) / SECONDS_PER_HOUR);
+    }
+}
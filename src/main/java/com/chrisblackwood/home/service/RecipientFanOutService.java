@@ -0,0 +1,253 @@
+package com.chrisblackwood.home.service;
+
+import com.chrisblackwood.home.dto.PushoverResponse;
+import com.chrisblackwood.home.dto.Recipient;
+import com.chrisblackwood.home.dto.RecipientDelivery;
+import com.chrisblackwood.home.dto.WindowRecommendation;
+import com.chrisblackwood.home.dto.WindowThresholds;
+import com.chrisblackwood.home.journal.DecisionJournal;
+import com.chrisblackwood.home.journal.JournalKey;
+import com.chrisblackwood.home.journal.JournalRecord;
+import com.chrisblackwood.home.notification.NotificationQueue;
+import com.chrisblackwood.home.notification.PushoverDeliveryException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Sends every recipient in {@code notification.recipients-file} a recommendation for their own location and
+ * thresholds. Recipients sharing a Pushover user or group key and receiving the same text are coalesced into one
+ * message with their devices combined. Messages are sent with {@link NotificationQueue#send} on virtual threads, at
+ * most {@code notification.fan-out.max-concurrency} at a time, so the per-recipient rate limit, retries and outbox
+ * apply to each one and its Pushover outcome comes back.
+ * <p>
+ * Every decision is journalled and synced before anything is sent. The queue journals each recipient's outcome as its
+ * message returns, and the journal is synced once after the whole batch. Recipients the {@link DecisionJournal}
+ * already shows as delivered tonight are not decided or sent again, so a re-run after a crash finishes only what the
+ * previous run left.
+ */
+@Service
+public class RecipientFanOutService {
+
+    private static final Logger log = LoggerFactory.getLogger(RecipientFanOutService.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final FleetService fleetService;
+    private final NotificationQueue notificationQueue;
+    private final DecisionJournal decisionJournal;
+    private final List<Recipient> recipients;
+    private final List<WindowThresholds> thresholds;
+    private final int maxConcurrency;
+
+    @Autowired
+    public RecipientFanOutService(
+            FleetService fleetService,
+            WindowService windowService,
+            NotificationQueue notificationQueue,
+            DecisionJournal decisionJournal,
+            @Value("${notification.recipients-file:}") String recipientsFile,
+            @Value("${notification.fan-out.max-concurrency:8}") int maxConcurrency
+    ) {
+        this(fleetService, windowService, notificationQueue, decisionJournal, loadRecipients(recipientsFile),
+                maxConcurrency);
+    }
+
+    RecipientFanOutService(FleetService fleetService, WindowService windowService,
+                           NotificationQueue notificationQueue, DecisionJournal decisionJournal,
+                           List<Recipient> recipients, int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalStateException("notification.fan-out.max-concurrency must be positive");
+        }
+
+        this.fleetService = fleetService;
+        this.notificationQueue = notificationQueue;
+        this.decisionJournal = decisionJournal;
+        this.recipients = recipients;
+        this.thresholds = recipients.stream()
+                .map(recipient -> windowService.thresholds().withOverrides(recipient.thresholds()))
+                .toList();
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    public boolean isEnabled() {
+        return !recipients.isEmpty();
+    }
+
+    /**
+     * Computes and delivers every recipient's recommendation, returning one result per recipient in file order.
+     */
+    public List<RecipientDelivery> deliver() {
+        List<JournalKey> keys = recipients.stream()
+                .map(recipient -> decisionJournal.tonight(recipient.location(), recipient.name()))
+                .toList();
+        List<Integer> pending = new ArrayList<>();
+        for (int index = 0; index < recipients.size(); index++) {
+            if (!decisionJournal.isComplete(keys.get(index))) {
+                pending.add(index);
+            }
+        }
+
+        List<WindowRecommendation> recommendations = pending.isEmpty() ? List.of() : fleetService.recommendations(
+                pending.stream().map(index -> recipients.get(index).location()).toList(),
+                pending.stream().map(thresholds::get).toList());
+
+        Map<DeliveryKey, List<Integer>> groups = new LinkedHashMap<>();
+        Map<Integer, WindowRecommendation> decided = new HashMap<>();
+        for (int position = 0; position < pending.size(); position++) {
+            int index = pending.get(position);
+            WindowRecommendation recommendation = recommendations.get(position);
+            decided.put(index, recommendation);
+            decisionJournal.decided(keys.get(index), recommendation,
+                    DecisionJournal.inputsHash(recommendation, thresholds.get(index)));
+            DeliveryKey key = new DeliveryKey(recipients.get(index).user(), recommendation.message());
+            groups.computeIfAbsent(key, ignored -> new ArrayList<>()).add(index);
+        }
+        decisionJournal.sync();
+
+        Map<DeliveryKey, DeliveryOutcome> outcomes = send(groups, keys);
+        decisionJournal.sync();
+
+        List<RecipientDelivery> deliveries = new ArrayList<>(recipients.size());
+        for (int index = 0; index < recipients.size(); index++) {
+            WindowRecommendation recommendation = decided.get(index);
+            if (recommendation == null) {
+                JournalRecord record = decisionJournal.latest(keys.get(index));
+                deliveries.add(new RecipientDelivery(recipients.get(index).name(),
+                        record.recommendation() == null ? null : record.recommendation().decision(),
+                        true, record.status(), List.of()));
+                continue;
+            }
+
+            DeliveryOutcome outcome =
+                    outcomes.get(new DeliveryKey(recipients.get(index).user(), recommendation.message()));
+            deliveries.add(new RecipientDelivery(recipients.get(index).name(), recommendation.decision(),
+                    outcome.delivered(), outcome.status(), outcome.errors()));
+        }
+
+        log.info("Fan-out sent {} Pushover message(s) for {} recipient(s), {} delivered, {} already done",
+                groups.size(), recipients.size(), deliveries.stream().filter(RecipientDelivery::delivered).count(),
+                recipients.size() - pending.size());
+        return deliveries;
+    }
+
+    private Map<DeliveryKey, DeliveryOutcome> send(Map<DeliveryKey, List<Integer>> groups, List<JournalKey> keys) {
+        Semaphore permits = new Semaphore(maxConcurrency);
+        Map<DeliveryKey, Future<DeliveryOutcome>> pending = new LinkedHashMap<>();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            groups.forEach((key, members) -> pending.put(key, executor.submit(() -> {
+                permits.acquire();
+                try {
+                    return send(key, devices(members), members.stream().map(keys::get).toList());
+                } finally {
+                    permits.release();
+                }
+            })));
+
+            Map<DeliveryKey, DeliveryOutcome> outcomes = new LinkedHashMap<>();
+            for (Map.Entry<DeliveryKey, Future<DeliveryOutcome>> entry : pending.entrySet()) {
+                outcomes.put(entry.getKey(), entry.getValue().get());
+            }
+            return outcomes;
+        } catch (ExecutionException exception) {
+            throw new IllegalStateException("Failed to fan out notifications", exception.getCause());
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while fanning out notifications", exception);
+        }
+    }
+
+    private DeliveryOutcome send(DeliveryKey key, String devices, List<JournalKey> journalKeys)
+            throws InterruptedException {
+        try {
+            PushoverResponse response = notificationQueue.send(key.user(), devices, key.message(), journalKeys);
+            int status = response == null ? 0 : response.status();
+            return new DeliveryOutcome(status == 1, status, response == null ? List.of() : errors(response));
+        } catch (PushoverDeliveryException exception) {
+            PushoverResponse response = exception.response();
+            return new DeliveryOutcome(false, response == null ? 0 : response.status(),
+                    response == null ? List.of(exception.getMessage()) : errors(response));
+        } catch (RuntimeException exception) {
+            return new DeliveryOutcome(false, 0, List.of(String.valueOf(exception.getMessage())));
+        }
+    }
+
+    // A recipient without a device wants every device, which covers any device list the others asked for.
+    private String devices(List<Integer> members) {
+        TreeSet<String> devices = new TreeSet<>();
+        for (int index : members) {
+            String device = recipients.get(index).device();
+            if (device == null || device.isBlank()) {
+                return null;
+            }
+            for (String name : device.split(",")) {
+                devices.add(name.trim());
+            }
+        }
+
+        return String.join(",", devices);
+    }
+
+    private List<String> errors(PushoverResponse response) {
+        return response.errors() == null ? List.of() : response.errors();
+    }
+
+    static List<Recipient> loadRecipients(String file) {
+        if (file == null || file.isBlank()) {
+            return List.of();
+        }
+
+        List<Recipient> recipients;
+        try {
+            recipients = MAPPER.readValue(Files.readAllBytes(Path.of(file)), new TypeReference<List<Recipient>>() {
+            });
+        } catch (IOException exception) {
+            throw new IllegalStateException("Failed to read notification.recipients-file " + file, exception);
+        }
+
+        for (Recipient recipient : recipients) {
+            if (recipient.name() == null || recipient.name().isBlank()
+                    || recipient.user() == null || recipient.user().isBlank()) {
+                throw new IllegalStateException("notification.recipients-file entries need a name and a user");
+            }
+            if (recipient.latitude() == null || recipient.longitude() == null) {
+                throw new IllegalStateException(
+                        "notification.recipients-file entry " + recipient.name() + " needs a latitude and a longitude");
+            }
+        }
+
+        return List.copyOf(recipients);
+    }
+
+    private record DeliveryKey(
+            String user,
+            String message
+    ) {
+    }
+
+    private record DeliveryOutcome(
+            boolean delivered,
+            int status,
+            List<String> errors
+    ) {
+    }
+}
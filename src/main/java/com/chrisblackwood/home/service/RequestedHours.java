@@ -0,0 +1,61 @@
+package com.chrisblackwood.home.service;
+
+import org.springframework.web.util.UriBuilder;
+
+import java.time.Clock;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Open-Meteo query parameters that restrict the hourly range of a request. The decision only looks at the first
+ * 22:00-08:00 window, so requesting just those eleven hours instead of the default seven days cuts the payload by
+ * roughly 90%.
+ */
+record RequestedHours(Map<String, String> queryParams) {
+
+    private static final RequestedHours ALL = new RequestedHours(Map.of());
+
+    static RequestedHours all() {
+        return ALL;
+    }
+
+    /**
+     * Tonight's bedtime-to-wake window in the configured timezone. Open-Meteo also accepts {@code auto}, which cannot
+     * be resolved locally; in that case the request is limited to today and tomorrow, which always covers tonight.
+     */
+    static RequestedHours tonight(String timezone, Clock clock) {
+        return nights(timezone, clock, 1);
+    }
+
+    /**
+     * From tonight's bedtime to the wake time after the last of {@code nights} nights.
+     */
+    static RequestedHours nights(String timezone, Clock clock, int nights) {
+        ZoneId zone;
+        try {
+            zone = ZoneId.of(timezone);
+        } catch (DateTimeException exception) {
+            return new RequestedHours(Map.of("forecast_days", String.valueOf(nights + 1)));
+        }
+
+        LocalDate today = LocalDate.now(clock.withZone(zone));
+        Map<String, String> queryParams = new LinkedHashMap<>();
+        queryParams.put("start_hour", today.atTime(OvernightWindow.BEDTIME_HOUR, 0).toString());
+        queryParams.put("end_hour", today.plusDays(nights).atTime(OvernightWindow.WAKE_HOUR, 0).toString());
+        return new RequestedHours(queryParams);
+    }
+
+    UriBuilder applyTo(UriBuilder uriBuilder) {
+        queryParams.forEach(uriBuilder::queryParam);
+        return uriBuilder;
+    }
+
+    String cacheKey() {
+        StringBuilder key = new StringBuilder();
+        queryParams.forEach((name, value) -> key.append('&').append(name).append('=').append(value));
+        return key.toString();
+    }
+}
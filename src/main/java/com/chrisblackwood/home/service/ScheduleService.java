@@ -0,0 +1,131 @@
+package com.chrisblackwood.home.service;
+
+import com.chrisblackwood.home.dto.HourlyColumns;
+import com.chrisblackwood.home.dto.HourlyRecommendation;
+import com.chrisblackwood.home.dto.WindowDecision;
+import com.chrisblackwood.home.metrics.PipelineMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Hour-by-hour open/close schedule for the next {@code schedule.nights} nights, each hour judged on the
+ * {@code schedule.window-hours} hours that follow it.
+ */
+@Service
+public class ScheduleService {
+
+    static final int MAX_NIGHTS = 7;
+    static final int MAX_MESSAGE_LENGTH = 1024;
+
+    private static final Logger log = LoggerFactory.getLogger(ScheduleService.class);
+    private static final DateTimeFormatter DAY = DateTimeFormatter.ofPattern("EEE", Locale.ENGLISH);
+    private static final DateTimeFormatter HOUR = DateTimeFormatter.ofPattern("HH:mm");
+
+    private final WeatherService weatherService;
+    private final AirQualityService airQualityService;
+    private final WindowService windowService;
+    private final PipelineMetrics metrics;
+    private final int windowHours;
+    private final int nights;
+
+    @Autowired
+    public ScheduleService(
+            WeatherService weatherService,
+            AirQualityService airQualityService,
+            WindowService windowService,
+            PipelineMetrics metrics,
+            @Value("${schedule.window-hours:3}") int windowHours,
+            @Value("${schedule.nights:1}") int nights
+    ) {
+        if (windowHours < 1) {
+            throw new IllegalStateException("schedule.window-hours must be at least 1");
+        }
+        if (nights < 1 || nights > MAX_NIGHTS) {
+            throw new IllegalStateException("schedule.nights must be between 1 and " + MAX_NIGHTS);
+        }
+
+        this.weatherService = weatherService;
+        this.airQualityService = airQualityService;
+        this.windowService = windowService;
+        this.metrics = metrics;
+        this.windowHours = windowHours;
+        this.nights = nights;
+    }
+
+    public List<HourlyRecommendation> schedule() {
+        return schedule(weatherService.getForecastColumns(nights), getAirQualityColumnsOrNull());
+    }
+
+    List<HourlyRecommendation> schedule(HourlyColumns forecast, HourlyColumns airQuality) {
+        return HourlySchedule.evaluate(forecast, airQuality, windowHours, nights, windowService,
+                windowService.thresholds());
+    }
+
+    /**
+     * One line per run of hours with the same advice, e.g. {@code Fri 22:00-01:00 open}. Capped at Pushover's message
+     * length by dropping whole lines from the end.
+     */
+    public String scheduleMessage(List<HourlyRecommendation> schedule) {
+        if (schedule.isEmpty()) {
+            return "No overnight forecast available";
+        }
+
+        StringBuilder message = new StringBuilder();
+        int start = 0;
+        for (int index = 1; index <= schedule.size(); index++) {
+            if (index < schedule.size() && continues(schedule.get(index - 1), schedule.get(index))) {
+                continue;
+            }
+
+            HourlyRecommendation first = schedule.get(start);
+            HourlyRecommendation last = schedule.get(index - 1);
+            String line = DAY.format(first.hour()) + " " + HOUR.format(first.hour()) + "-"
+                    + HOUR.format(last.hour().plusHours(1)) + " " + advice(first.decision());
+            if (message.length() + line.length() + 1 > MAX_MESSAGE_LENGTH) {
+                break;
+            }
+            if (!message.isEmpty()) {
+                message.append('\n');
+            }
+            message.append(line);
+            start = index;
+        }
+
+        return message.toString();
+    }
+
+    static String advice(WindowDecision decision) {
+        if (decision == null) {
+            return "closed";
+        }
+
+        return switch (decision) {
+            case OPEN_WIDE_OVERNIGHT -> "wide open";
+            case OPEN_OVERNIGHT -> "open";
+            case CRACK_ONE_TO_THREE_CM_OVERNIGHT, OPEN_TEN_TO_FIFTEEN_MINUTES_THEN_CRACK_ONE_CM -> "cracked";
+            default -> "closed";
+        };
+    }
+
+    private static boolean continues(HourlyRecommendation previous, HourlyRecommendation next) {
+        return next.hour().equals(previous.hour().plusHours(1))
+                && advice(next.decision()).equals(advice(previous.decision()));
+    }
+
+    private HourlyColumns getAirQualityColumnsOrNull() {
+        try {
+            return airQualityService.getForecastColumns(nights);
+        } catch (RuntimeException exception) {
+            log.warn("Air quality unavailable, falling back to a weather-only schedule", exception);
+            metrics.recordAirQualityFallback();
+            return null;
+        }
+    }
+}
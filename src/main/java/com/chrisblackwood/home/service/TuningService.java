@@ -0,0 +1,398 @@
+package com.chrisblackwood.home.service;
+
+import com.chrisblackwood.home.dto.TuningCandidate;
+import com.chrisblackwood.home.dto.TuningReport;
+import com.chrisblackwood.home.dto.WindowDecision;
+import com.chrisblackwood.home.dto.WindowThresholds;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+import java.util.stream.Collector;
+import java.util.stream.LongStream;
+
+/**
+ * Searches for {@code window.*} thresholds that agree best with what people actually wanted.
+ * <p>
+ * {@code tuning.history-file} is a {@link BacktestService} CSV, so every night's low, wind, humidity, rain and air
+ * quality are already aggregated. {@code tuning.labels-file} holds {@code location,night,decision} feedback rows. Only
+ * labelled nights are kept, as struct-of-arrays columns read once, so a candidate costs a single
+ * {@link WindowDecisionKernel} pass and a comparison against the labels.
+ * <p>
+ * {@code tuning.grid} lists the thresholds to vary as {@code name=min:max:step} or {@code name=a,b,c}, separated by
+ * {@code ;}. Thresholds not listed keep their configured value. The full grid is evaluated unless
+ * {@code tuning.samples} asks for a smaller random sample. Candidates run on a parallel stream and the
+ * {@code tuning.top} most accurate are reported, ties going to the earlier grid position.
+ */
+@Service
+public class TuningService {
+
+    private static final Logger log = LoggerFactory.getLogger(TuningService.class);
+
+    private static final Comparator<Scored> BY_ACCURACY =
+            Comparator.comparingInt(Scored::matches).thenComparing(Scored::index, Comparator.reverseOrder());
+
+    private final WindowService windowService;
+    private final Path historyFile;
+    private final Path labelsFile;
+    private final List<GridAxis> grid;
+    private final int samples;
+    private final long seed;
+    private final int top;
+
+    @Autowired
+    public TuningService(
+            WindowService windowService,
+            @Value("${tuning.history-file:}") String historyFile,
+            @Value("${tuning.labels-file:}") String labelsFile,
+            @Value("${tuning.grid:}") String grid,
+            @Value("${tuning.samples:0}") int samples,
+            @Value("${tuning.seed:0}") long seed,
+            @Value("${tuning.top:5}") int top
+    ) {
+        if (samples < 0) {
+            throw new IllegalStateException("tuning.samples must not be negative");
+        }
+
+        if (top <= 0) {
+            throw new IllegalStateException("tuning.top must be positive");
+        }
+
+        this.windowService = windowService;
+        this.historyFile = historyFile == null || historyFile.isBlank() ? null : Path.of(historyFile);
+        this.labelsFile = labelsFile == null || labelsFile.isBlank() ? null : Path.of(labelsFile);
+        this.grid = parseGrid(grid);
+        this.samples = samples;
+        this.seed = seed;
+        this.top = top;
+    }
+
+    public TuningReport run() {
+        if (historyFile == null || labelsFile == null) {
+            throw new IllegalStateException("tuning.history-file and tuning.labels-file must be set to tune");
+        }
+
+        return tune(LabelledNights.load(historyFile, labelsFile));
+    }
+
+    TuningReport tune(LabelledNights nights) {
+        long start = System.nanoTime();
+        WindowThresholds baseline = windowService.thresholds();
+        long gridSize = gridSize(grid);
+        LongStream candidates = samples == 0 || samples >= gridSize
+                ? LongStream.range(0, gridSize)
+                : new SplittableRandom(seed).longs(0, gridSize).distinct().limit(samples).sorted();
+
+        TopCandidates best = candidates
+                .parallel()
+                .mapToObj(index -> score(index, baseline, nights))
+                .collect(Collector.of(
+                        () -> new TopCandidates(top),
+                        TopCandidates::add,
+                        TopCandidates::merge
+                ));
+
+        TuningReport report = new TuningReport(
+                nights.size(),
+                best.evaluated,
+                best.rejected,
+                candidate(new Scored(-1, Map.of(), baseline, nights.matches(baseline)), nights),
+                best.ranked().stream().map(scored -> candidate(scored, nights)).toList(),
+                Duration.ofNanos(System.nanoTime() - start)
+        );
+        log.info("Evaluated {} threshold configurations against {} labelled nights in {} ms, baseline accuracy {}",
+                report.evaluated(), report.labeledNights(), report.elapsed().toMillis(), report.baseline().accuracy());
+        return report;
+    }
+
+    private Scored score(long index, WindowThresholds baseline, LabelledNights nights) {
+        Map<String, Double> overrides = overrides(grid, index);
+        WindowThresholds thresholds;
+        try {
+            thresholds = baseline.withOverrides(overrides);
+        } catch (IllegalStateException exception) {
+            // Combinations that break the ascending temperature bands are not valid configurations.
+            return null;
+        }
+
+        return new Scored(index, overrides, thresholds, nights.matches(thresholds));
+    }
+
+    private static TuningCandidate candidate(Scored scored, LabelledNights nights) {
+        double accuracy = nights.size() == 0 ? 0.0 : (double) scored.matches() / nights.size();
+        return new TuningCandidate(scored.overrides(), scored.thresholds(), scored.matches(), accuracy);
+    }
+
+    static List<GridAxis> parseGrid(String value) {
+        if (value == null || value.isBlank()) {
+            return List.of();
+        }
+
+        List<GridAxis> axes = new ArrayList<>();
+        for (String entry : value.split(";")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+
+            String[] parts = entry.split("=", 2);
+            String name = parts[0].trim();
+            if (parts.length != 2 || !WindowThresholds.NAMES.contains(name)) {
+                throw new IllegalStateException("tuning.grid entries must be window threshold=values: " + entry);
+            }
+
+            try {
+                axes.add(new GridAxis(name, parseValues(parts[1].trim())));
+            } catch (NumberFormatException | ArithmeticException exception) {
+                throw new IllegalStateException("tuning.grid entries must be window threshold=values: " + entry);
+            }
+        }
+
+        return List.copyOf(axes);
+    }
+
+    // Ranges step in BigDecimal so 0.1 increments land on the values people typed.
+    private static double[] parseValues(String value) {
+        String[] range = value.split(":");
+        if (range.length == 3) {
+            BigDecimal min = new BigDecimal(range[0].trim());
+            BigDecimal max = new BigDecimal(range[1].trim());
+            BigDecimal step = new BigDecimal(range[2].trim());
+            if (step.signum() <= 0 || min.compareTo(max) > 0) {
+                throw new ArithmeticException("Empty range");
+            }
+
+            List<Double> values = new ArrayList<>();
+            for (BigDecimal current = min; current.compareTo(max) <= 0; current = current.add(step)) {
+                values.add(current.doubleValue());
+            }
+            return values.stream().mapToDouble(Double::doubleValue).toArray();
+        }
+
+        if (range.length != 1 || value.isEmpty()) {
+            throw new NumberFormatException(value);
+        }
+
+        return Arrays.stream(value.split(",")).map(String::trim).mapToDouble(Double::parseDouble).toArray();
+    }
+
+    static long gridSize(List<GridAxis> grid) {
+        long size = 1;
+        for (GridAxis axis : grid) {
+            try {
+                size = Math.multiplyExact(size, axis.values().length);
+            } catch (ArithmeticException exception) {
+                throw new IllegalStateException("tuning.grid has too many combinations");
+            }
+        }
+
+        return size;
+    }
+
+    /**
+     * Decodes a grid position into one value per axis, the first axis varying fastest.
+     */
+    static Map<String, Double> overrides(List<GridAxis> grid, long index) {
+        Map<String, Double> overrides = new LinkedHashMap<>();
+        long remaining = index;
+        for (GridAxis axis : grid) {
+            int length = axis.values().length;
+            overrides.put(axis.name(), axis.values()[(int) (remaining % length)]);
+            remaining /= length;
+        }
+
+        return overrides;
+    }
+
+    record GridAxis(String name, double[] values) {
+    }
+
+    private record Scored(long index, Map<String, Double> overrides, WindowThresholds thresholds, int matches) {
+    }
+
+    /**
+     * Labelled nights as parallel columns, {@code NaN} marking a value the history did not have.
+     */
+    record LabelledNights(
+            double[] tonightLows,
+            double[] maxWinds,
+            double[] meanHumidities,
+            double[] rainSums,
+            double[] maxEuropeanAqis,
+            int[] labels
+    ) {
+
+        int size() {
+            return labels.length;
+        }
+
+        int matches(WindowThresholds thresholds) {
+            int[] decisions = new int[labels.length];
+            WindowDecisionKernel.decide(thresholds, tonightLows, maxWinds, meanHumidities, rainSums, maxEuropeanAqis,
+                    decisions);
+
+            int matches = 0;
+            for (int index = 0; index < decisions.length; index++) {
+                matches += decisions[index] == labels[index] ? 1 : 0;
+            }
+            return matches;
+        }
+
+        static LabelledNights load(Path historyFile, Path labelsFile) {
+            Map<String, Integer> labels = readLabels(labelsFile);
+            try (BufferedReader reader = Files.newBufferedReader(historyFile)) {
+                Map<String, Integer> columns = header(reader.readLine(), historyFile);
+                int location = column(columns, "location", historyFile);
+                int night = column(columns, "night", historyFile);
+                int[] metrics = {
+                        column(columns, "tonight_low", historyFile),
+                        column(columns, "max_wind", historyFile),
+                        column(columns, "mean_humidity", historyFile),
+                        column(columns, "rain_sum", historyFile),
+                        column(columns, "max_european_aqi", historyFile)
+                };
+
+                double[][] values = new double[metrics.length][labels.size()];
+                int[] decisions = new int[labels.size()];
+                int size = 0;
+                String line;
+                while ((line = reader.readLine()) != null && size < decisions.length) {
+                    String[] fields = line.split(",", -1);
+                    Integer label = labels.get(key(fields[location], fields[night]));
+                    if (label == null) {
+                        continue;
+                    }
+
+                    for (int metric = 0; metric < metrics.length; metric++) {
+                        String field = fields[metrics[metric]];
+                        values[metric][size] = field.isEmpty() ? Double.NaN : Double.parseDouble(field);
+                    }
+                    decisions[size++] = label;
+                }
+
+                if (size < labels.size()) {
+                    log.warn("{} labelled nights have no history in {}", labels.size() - size, historyFile);
+                }
+
+                return new LabelledNights(
+                        Arrays.copyOf(values[0], size),
+                        Arrays.copyOf(values[1], size),
+                        Arrays.copyOf(values[2], size),
+                        Arrays.copyOf(values[3], size),
+                        Arrays.copyOf(values[4], size),
+                        Arrays.copyOf(decisions, size)
+                );
+            } catch (IOException | IllegalArgumentException | IndexOutOfBoundsException exception) {
+                throw new IllegalStateException("Failed to read tuning history from " + historyFile, exception);
+            }
+        }
+
+        private static Map<String, Integer> readLabels(Path labelsFile) {
+            try (BufferedReader reader = Files.newBufferedReader(labelsFile)) {
+                Map<String, Integer> columns = header(reader.readLine(), labelsFile);
+                int location = column(columns, "location", labelsFile);
+                int night = column(columns, "night", labelsFile);
+                int decision = column(columns, "decision", labelsFile);
+
+                Map<String, Integer> labels = new HashMap<>();
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+
+                    String[] fields = line.split(",", -1);
+                    labels.put(key(fields[location], fields[night]),
+                            WindowDecision.valueOf(fields[decision].trim()).ordinal());
+                }
+                return labels;
+            } catch (IOException | IllegalArgumentException | IndexOutOfBoundsException exception) {
+                throw new IllegalStateException("Failed to read tuning labels from " + labelsFile, exception);
+            }
+        }
+
+        private static Map<String, Integer> header(String line, Path file) {
+            if (line == null) {
+                throw new IllegalStateException(file + " is empty");
+            }
+
+            Map<String, Integer> columns = new HashMap<>();
+            String[] names = line.split(",");
+            for (int index = 0; index < names.length; index++) {
+                columns.put(names[index].trim(), index);
+            }
+            return columns;
+        }
+
+        private static int column(Map<String, Integer> columns, String name, Path file) {
+            Integer index = columns.get(name);
+            if (index == null) {
+                throw new IllegalStateException(file + " has no " + name + " column");
+            }
+            return index;
+        }
+
+        private static String key(String location, String night) {
+            return location.trim() + ',' + night.trim();
+        }
+    }
+
+    // Keeps the best candidates seen by one stream partition in a min-heap bounded to the report size.
+    private static final class TopCandidates {
+
+        private final int limit;
+        private final PriorityQueue<Scored> heap;
+        private long evaluated;
+        private long rejected;
+
+        TopCandidates(int limit) {
+            this.limit = limit;
+            this.heap = new PriorityQueue<>(limit + 1, BY_ACCURACY);
+        }
+
+        void add(Scored scored) {
+            if (scored == null) {
+                rejected++;
+                return;
+            }
+
+            evaluated++;
+            heap.add(scored);
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+
+        TopCandidates merge(TopCandidates other) {
+            other.heap.forEach(scored -> {
+                heap.add(scored);
+                if (heap.size() > limit) {
+                    heap.poll();
+                }
+            });
+            evaluated += other.evaluated;
+            rejected += other.rejected;
+            return this;
+        }
+
+        List<Scored> ranked() {
+            return heap.stream().sorted(BY_ACCURACY.reversed()).toList();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.chrisblackwood.home.service;
+
+import com.chrisblackwood.home.dto.HourlyColumns;
+import com.chrisblackwood.home.dto.WindowDecision;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event spanning the overnight aggregation and decision for one location.
+ */
+@Name("com.chrisblackwood.home.WindowDecision")
+@Label("Window Decision")
+@Category({"Home App", "Decision"})
+@Description("Overnight aggregation and window decision for one location")
+@StackTrace(false)
+class WindowDecisionEvent extends jdk.jfr.Event {
+
+    @Label("Latitude")
+    double latitude;
+
+    @Label("Longitude")
+    double longitude;
+
+    @Label("Hours")
+    int hours;
+
+    @Label("Effective Night Low")
+    double effectiveNightLow;
+
+    @Label("Overnight Max European AQI")
+    double overnightEuropeanAqi;
+
+    @Label("Decision")
+    String decision;
+
+    static WindowDecisionEvent begin(HourlyColumns forecast) {
+        WindowDecisionEvent event = new WindowDecisionEvent();
+        event.begin();
+        if (forecast != null) {
+            event.latitude = forecast.latitude();
+            event.longitude = forecast.longitude();
+            event.hours = forecast.size();
+        }
+        return event;
+    }
+
+    void decided(WindowDecision decision, Double effectiveNightLow, Double overnightEuropeanAqi) {
+        if (shouldCommit()) {
+            this.decision = decision.name();
+            this.effectiveNightLow = effectiveNightLow == null ? Double.NaN : effectiveNightLow;
+            this.overnightEuropeanAqi = overnightEuropeanAqi == null ? Double.NaN : overnightEuropeanAqi;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.chrisblackwood.home.service;
+
+import com.chrisblackwood.home.dto.WindowDecision;
+import com.chrisblackwood.home.dto.WindowThresholds;
+
+/**
+ * Batch form of the {@link WindowService} decision rules over struct-of-arrays inputs, with {@code NaN} standing in
+ * for a missing value.
+ * <p>
+ * The loop body has no data-dependent branches. C2 will not turn a floating-point comparison into a conditional move
+ * on x86, so every input is mapped to an order-preserving {@code long} key and compared as an integer, and each rule
+ * becomes a 0/1 term. The temperature band falls out of counting exceeded thresholds, which works because the
+ * thresholds are ascending and the bands are declared in the same order as {@link WindowDecision}.
+ */
+final class WindowDecisionKernel {
+
+    private static final int OPEN_TEN_MINUTES_THEN_CLOSE = WindowDecision.OPEN_TEN_MINUTES_THEN_CLOSE.ordinal();
+    private static final int FIRST_OVERNIGHT_BAND =
+            WindowDecision.OPEN_TEN_TO_FIFTEEN_MINUTES_THEN_CRACK_ONE_CM.ordinal();
+    private static final int KEEP_CLOSED = WindowDecision.KEEP_CLOSED.ordinal();
+    private static final long ABSOLUTE_MASK = 0x7FFF_FFFF_FFFF_FFFFL;
+    private static final long INFINITY_BITS = 0x7FF0_0000_0000_0000L;
+
+    private WindowDecisionKernel() {
+    }
+
+    static void decide(WindowThresholds thresholds, double[] tonightLows, double[] maxWinds,
+                       double[] meanHumidities, double[] rainSums, double[] maxEuropeanAqis, int[] decisions) {
+        int length = decisions.length;
+        if (tonightLows.length < length || maxWinds.length < length || meanHumidities.length < length
+                || rainSums.length < length || maxEuropeanAqis.length < length) {
+            throw new IllegalStateException("Decision batch inputs must be at least as long as the output");
+        }
+
+        long fiveMinute = key(thresholds.fiveMinuteVentMaxTemp());
+        long tenMinute = key(thresholds.tenMinuteVentMaxTemp());
+        long tenToFifteen = key(thresholds.tenToFifteenMinuteVentAndCrackMaxTemp());
+        long crack = key(thresholds.crackOvernightMaxTemp());
+        long openOvernight = key(thresholds.openOvernightMaxTemp());
+        long strongWind = key(thresholds.strongWindThreshold());
+        long highHumidity = key(thresholds.highHumidityThreshold());
+        long lightRain = key(thresholds.lightRainThreshold());
+        long heavyRain = key(thresholds.heavyRainThreshold());
+        long maxAqi = key(thresholds.maxOvernightEuropeanAqi());
+        double cooling = thresholds.strongWindCoolingAdjustment();
+        double warming = thresholds.highHumidityWarmingAdjustment();
+
+        for (int index = 0; index < length; index++) {
+            double tonightLow = tonightLows[index];
+            double wind = maxWinds[index];
+            double humidity = meanHumidities[index];
+            double rain = rainSums[index];
+            double aqi = maxEuropeanAqis[index];
+
+            // A missing value never triggers its rule, matching the null checks in the scalar path.
+            int windy = atLeast(wind, strongWind) & present(wind);
+            int humid = atLeast(humidity, highHumidity) & present(humidity);
+            int wet = atLeast(rain, lightRain) & present(rain);
+            int pouring = atLeast(rain, heavyRain) & present(rain);
+            int polluted = atLeast(aqi, maxAqi) & present(aqi);
+
+            long effective = key(tonightLow - windy * cooling + humid * warming);
+            int band = above(effective, fiveMinute)
+                    + above(effective, tenMinute)
+                    + above(effective, tenToFifteen)
+                    + above(effective, crack)
+                    + above(effective, openOvernight);
+
+            int opensOvernight = band >= FIRST_OVERNIGHT_BAND ? 1 : 0;
+            int ventInstead = opensOvernight & (wet | polluted);
+            int closed = (1 - present(tonightLow)) | pouring;
+
+            int decision = band + ventInstead * (OPEN_TEN_MINUTES_THEN_CLOSE - band);
+            decisions[index] = decision + closed * (KEEP_CLOSED - decision);
+        }
+    }
+
+    // Maps a non-NaN double to a long with the same ordering; adding 0.0 folds -0.0 into 0.0 as == does.
+    private static long key(double value) {
+        long bits = Double.doubleToRawLongBits(value + 0.0);
+        return bits ^ ((bits >> 63) & ABSOLUTE_MASK);
+    }
+
+    private static int atLeast(double value, long thresholdKey) {
+        return key(value) >= thresholdKey ? 1 : 0;
+    }
+
+    private static int above(long valueKey, long thresholdKey) {
+        return valueKey > thresholdKey ? 1 : 0;
+    }
+
+    private static int present(double value) {
+        return (Double.doubleToRawLongBits(value) & ABSOLUTE_MASK) <= INFINITY_BITS ? 1 : 0;
+    }
+}
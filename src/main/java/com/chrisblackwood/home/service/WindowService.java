@@ -2,44 +2,41 @@ package com.chrisblackwood.home.service;
 
 import com.chrisblackwood.home.dto.AirQualityResponse;
 import com.chrisblackwood.home.dto.ForecastResponse;
+import com.chrisblackwood.home.dto.HourlyColumns;
+import com.chrisblackwood.home.dto.Location;
 import com.chrisblackwood.home.dto.WindowDecision;
 import com.chrisblackwood.home.dto.WindowRecommendation;
+import com.chrisblackwood.home.dto.WindowThresholds;
+import com.chrisblackwood.home.metrics.PipelineMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeParseException;
-import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 public class WindowService {
 
     private static final Logger log = LoggerFactory.getLogger(WindowService.class);
-    private static final int BEDTIME_HOUR = 22;
-    private static final int WAKE_HOUR = 8;
 
     private final WeatherService weatherService;
     private final AirQualityService airQualityService;
-    private final double fiveMinuteVentMaxTemp;
-    private final double tenMinuteVentMaxTemp;
-    private final double tenToFifteenMinuteVentAndCrackMaxTemp;
-    private final double crackOvernightMaxTemp;
-    private final double openOvernightMaxTemp;
-    private final double strongWindThreshold;
-    private final double strongWindCoolingAdjustment;
-    private final double highHumidityThreshold;
-    private final double highHumidityWarmingAdjustment;
-    private final double lightRainThreshold;
-    private final double heavyRainThreshold;
-    private final double maxOvernightEuropeanAqi;
+    private final PipelineMetrics metrics;
+    private final WindowThresholds thresholds;
+    private final boolean concurrentFetch;
+    private final AtomicReference<LastRecommendation> lastRecommendation = new AtomicReference<>();
 
     @Autowired
     public WindowService(
             WeatherService weatherService,
             AirQualityService airQualityService,
+            PipelineMetrics metrics,
             @Value("${window.five-minute-vent-max-temp}") double fiveMinuteVentMaxTemp,
             @Value("${window.ten-minute-vent-max-temp}") double tenMinuteVentMaxTemp,
             @Value("${window.ten-to-fifteen-minute-vent-and-crack-max-temp}") double tenToFifteenMinuteVentAndCrackMaxTemp,
@@ -51,50 +48,57 @@ public class WindowService {
             @Value("${window.high-humidity-warming-adjustment}") double highHumidityWarmingAdjustment,
             @Value("${window.light-rain-threshold}") double lightRainThreshold,
             @Value("${window.heavy-rain-threshold}") double heavyRainThreshold,
-            @Value("${window.max-overnight-european-aqi}") double maxOvernightEuropeanAqi
+            @Value("${window.max-overnight-european-aqi}") double maxOvernightEuropeanAqi,
+            @Value("${window.concurrent-fetch}") boolean concurrentFetch
     ) {
         this.weatherService = weatherService;
         this.airQualityService = airQualityService;
-        this.fiveMinuteVentMaxTemp = fiveMinuteVentMaxTemp;
-        this.tenMinuteVentMaxTemp = tenMinuteVentMaxTemp;
-        this.tenToFifteenMinuteVentAndCrackMaxTemp = tenToFifteenMinuteVentAndCrackMaxTemp;
-        this.crackOvernightMaxTemp = crackOvernightMaxTemp;
-        this.openOvernightMaxTemp = openOvernightMaxTemp;
-        this.strongWindThreshold = strongWindThreshold;
-        this.strongWindCoolingAdjustment = strongWindCoolingAdjustment;
-        this.highHumidityThreshold = highHumidityThreshold;
-        this.highHumidityWarmingAdjustment = highHumidityWarmingAdjustment;
-        this.lightRainThreshold = lightRainThreshold;
-        this.heavyRainThreshold = heavyRainThreshold;
-        this.maxOvernightEuropeanAqi = maxOvernightEuropeanAqi;
-        validateThresholds();
+        this.metrics = metrics;
+        this.thresholds = new WindowThresholds(
+                fiveMinuteVentMaxTemp,
+                tenMinuteVentMaxTemp,
+                tenToFifteenMinuteVentAndCrackMaxTemp,
+                crackOvernightMaxTemp,
+                openOvernightMaxTemp,
+                strongWindThreshold,
+                strongWindCoolingAdjustment,
+                highHumidityThreshold,
+                highHumidityWarmingAdjustment,
+                lightRainThreshold,
+                heavyRainThreshold,
+                maxOvernightEuropeanAqi
+        );
+        this.concurrentFetch = concurrentFetch;
+    }
+
+    public WindowThresholds thresholds() {
+        return thresholds;
+    }
+
+    /**
+     * The configured location the no-argument decisions are made for.
+     */
+    public Location location() {
+        return weatherService.location();
     }
 
     public WindowDecision windowDecision() {
-        return windowDecision(weatherService.getForecast(), getAirQualityForecastOrNull());
+        Forecasts forecasts = fetchForecasts();
+        return windowDecision(forecasts.forecast(), forecasts.airQuality());
     }
 
     public WindowRecommendation windowRecommendation() {
-        ForecastResponse forecastResponse = weatherService.getForecast();
-        AirQualityResponse airQualityResponse = getAirQualityForecastOrNull();
-        OvernightMetrics overnightMetrics = overnightMetrics(forecastResponse);
-        Double overnightEuropeanAqi = overnightMaxEuropeanAqi(airQualityResponse);
-        Double tonightLow = overnightMetrics.lowTemperature();
-        Double maxWind = overnightMetrics.maxWind();
-        Double meanHumidity = overnightMetrics.meanHumidity();
-        Double rainSum = overnightMetrics.rainSum();
-        Double effectiveNightLow = tonightLow == null ? null : effectiveNightLow(tonightLow, maxWind, meanHumidity);
-        WindowDecision decision = windowDecision(effectiveNightLow, rainSum, overnightEuropeanAqi);
-        return new WindowRecommendation(
-                decision,
-                windowMessage(decision),
-                tonightLow,
-                maxWind,
-                meanHumidity,
-                rainSum,
-                effectiveNightLow,
-                overnightEuropeanAqi
-        );
+        Forecasts forecasts = fetchForecasts();
+        return windowRecommendation(forecasts.forecast(), forecasts.airQuality());
+    }
+
+    WindowRecommendation windowRecommendation(HourlyColumns forecast, HourlyColumns airQuality) {
+        return windowRecommendation(forecast, airQuality, thresholds);
+    }
+
+    WindowRecommendation windowRecommendation(HourlyColumns forecast, HourlyColumns airQuality,
+                                              WindowThresholds thresholds) {
+        return decide(forecast, airQuality, thresholds);
     }
 
     public String windowMessage(WindowDecision decision) {
@@ -125,33 +129,110 @@ public class WindowService {
     }
 
     WindowDecision windowDecision(ForecastResponse forecastResponse, AirQualityResponse airQualityResponse) {
-        OvernightMetrics overnightMetrics = overnightMetrics(forecastResponse);
-        Double overnightEuropeanAqi = overnightMaxEuropeanAqi(airQualityResponse);
+        return windowDecision(HourlyColumns.from(forecastResponse), HourlyColumns.from(airQualityResponse));
+    }
+
+    WindowDecision windowDecision(HourlyColumns forecast, HourlyColumns airQuality) {
+        return windowDecision(forecast, airQuality, thresholds);
+    }
+
+    /**
+     * The recommendation {@link #windowRecommendation(HourlyColumns, HourlyColumns)} would make, without timing it,
+     * emitting a {@link WindowDecisionEvent} or replacing the last recommendation, so replaying archived nights in
+     * bulk leaves the live decision metrics alone.
+     */
+    WindowRecommendation replayRecommendation(HourlyColumns forecast, HourlyColumns airQuality) {
+        return aggregate(forecast, airQuality, thresholds);
+    }
+
+    WindowDecision windowDecision(HourlyColumns forecast, HourlyColumns airQuality, WindowThresholds thresholds) {
+        return decide(forecast, airQuality, thresholds).decision();
+    }
+
+    /**
+     * Unchanged upstream bodies decode to the same columns, so when both are the ones seen last time and the
+     * thresholds match, the previous recommendation is returned without aggregating again.
+     */
+    private WindowRecommendation decide(HourlyColumns forecast, HourlyColumns airQuality,
+                                        WindowThresholds thresholds) {
+        LastRecommendation last = lastRecommendation.get();
+        if (last != null && last.forecast() == forecast && last.airQuality() == airQuality
+                && last.thresholds().equals(thresholds)) {
+            return last.recommendation();
+        }
+
+        long start = System.nanoTime();
+        WindowDecisionEvent event = WindowDecisionEvent.begin(forecast);
+        WindowRecommendation recommendation = aggregate(forecast, airQuality, thresholds);
+        metrics.recordDecision(recommendation.decision(), System.nanoTime() - start);
+        event.decided(recommendation.decision(), recommendation.effectiveNightLow(),
+                recommendation.maxEuropeanAqi());
+        lastRecommendation.set(new LastRecommendation(forecast, airQuality, thresholds, recommendation));
+        return recommendation;
+    }
+
+    private WindowRecommendation aggregate(HourlyColumns forecast, HourlyColumns airQuality,
+                                           WindowThresholds thresholds) {
+        OvernightMetrics overnightMetrics = overnightMetrics(forecast);
+        Double overnightEuropeanAqi = overnightMaxEuropeanAqi(airQuality);
         Double tonightLow = overnightMetrics.lowTemperature();
         Double maxWind = overnightMetrics.maxWind();
         Double meanHumidity = overnightMetrics.meanHumidity();
         Double rainSum = overnightMetrics.rainSum();
-        Double effectiveNightLow = tonightLow == null ? null : effectiveNightLow(tonightLow, maxWind, meanHumidity);
-        return windowDecision(effectiveNightLow, rainSum, overnightEuropeanAqi);
+        Double effectiveNightLow = tonightLow == null
+                ? null
+                : effectiveNightLow(tonightLow, maxWind, meanHumidity, thresholds);
+        WindowDecision decision = windowDecision(effectiveNightLow, rainSum, overnightEuropeanAqi, thresholds);
+        return new WindowRecommendation(
+                decision,
+                windowMessage(decision),
+                tonightLow,
+                maxWind,
+                meanHumidity,
+                rainSum,
+                effectiveNightLow,
+                overnightEuropeanAqi
+        );
+    }
+
+    /**
+     * Decides for many locations at once from struct-of-arrays overnight metrics, {@code NaN} marking a missing value.
+     * Returns {@link WindowDecision} ordinals, identical to deciding each location on its own.
+     */
+    public int[] windowDecisions(double[] tonightLows, double[] maxWinds, double[] meanHumidities,
+                                 double[] rainSums, double[] maxEuropeanAqis) {
+        int[] decisions = new int[tonightLows.length];
+        WindowDecisionKernel.decide(thresholds, tonightLows, maxWinds, meanHumidities, rainSums, maxEuropeanAqis,
+                decisions);
+        return decisions;
     }
 
-    private WindowDecision windowDecision(Double effectiveNightLow, Double rainSum, Double overnightEuropeanAqi) {
+    WindowDecision windowDecision(Double tonightLow, Double maxWind, Double meanHumidity, Double rainSum,
+                                  Double overnightEuropeanAqi, WindowThresholds thresholds) {
+        Double effectiveNightLow = tonightLow == null
+                ? null
+                : effectiveNightLow(tonightLow, maxWind, meanHumidity, thresholds);
+        return windowDecision(effectiveNightLow, rainSum, overnightEuropeanAqi, thresholds);
+    }
+
+    private WindowDecision windowDecision(Double effectiveNightLow, Double rainSum, Double overnightEuropeanAqi,
+                                          WindowThresholds thresholds) {
         if (effectiveNightLow == null) {
             return WindowDecision.KEEP_CLOSED;
         }
 
-        if (rainSum != null && rainSum >= heavyRainThreshold) {
+        if (rainSum != null && rainSum >= thresholds.heavyRainThreshold()) {
             return WindowDecision.KEEP_CLOSED;
         }
 
-        WindowDecision baseDecision = temperatureBandDecision(effectiveNightLow);
+        WindowDecision baseDecision = temperatureBandDecision(effectiveNightLow, thresholds);
 
-        if (rainSum != null && rainSum >= lightRainThreshold && opensOvernight(baseDecision)) {
+        if (rainSum != null && rainSum >= thresholds.lightRainThreshold() && opensOvernight(baseDecision)) {
             return WindowDecision.OPEN_TEN_MINUTES_THEN_CLOSE;
         }
 
         if (overnightEuropeanAqi != null
-                && overnightEuropeanAqi >= maxOvernightEuropeanAqi
+                && overnightEuropeanAqi >= thresholds.maxOvernightEuropeanAqi()
                 && opensOvernight(baseDecision)) {
             return WindowDecision.OPEN_TEN_MINUTES_THEN_CLOSE;
         }
@@ -159,190 +240,214 @@ public class WindowService {
         return baseDecision;
     }
 
-    private double effectiveNightLow(double tonightLow, Double maxWind, Double meanHumidity) {
+    private double effectiveNightLow(double tonightLow, Double maxWind, Double meanHumidity,
+                                     WindowThresholds thresholds) {
         double adjustedNightLow = tonightLow;
 
-        if (maxWind != null && maxWind >= strongWindThreshold) {
-            adjustedNightLow -= strongWindCoolingAdjustment;
+        if (maxWind != null && maxWind >= thresholds.strongWindThreshold()) {
+            adjustedNightLow -= thresholds.strongWindCoolingAdjustment();
         }
 
-        if (meanHumidity != null && meanHumidity >= highHumidityThreshold) {
-            adjustedNightLow += highHumidityWarmingAdjustment;
+        if (meanHumidity != null && meanHumidity >= thresholds.highHumidityThreshold()) {
+            adjustedNightLow += thresholds.highHumidityWarmingAdjustment();
         }
 
         return adjustedNightLow;
     }
 
-    private WindowDecision temperatureBandDecision(double effectiveNightLow) {
-        if (effectiveNightLow <= fiveMinuteVentMaxTemp) {
+    private WindowDecision temperatureBandDecision(double effectiveNightLow, WindowThresholds thresholds) {
+        if (effectiveNightLow <= thresholds.fiveMinuteVentMaxTemp()) {
             return WindowDecision.OPEN_FIVE_MINUTES_THEN_CLOSE;
         }
 
-        if (effectiveNightLow <= tenMinuteVentMaxTemp) {
+        if (effectiveNightLow <= thresholds.tenMinuteVentMaxTemp()) {
             return WindowDecision.OPEN_TEN_MINUTES_THEN_CLOSE;
         }
 
-        if (effectiveNightLow <= tenToFifteenMinuteVentAndCrackMaxTemp) {
+        if (effectiveNightLow <= thresholds.tenToFifteenMinuteVentAndCrackMaxTemp()) {
             return WindowDecision.OPEN_TEN_TO_FIFTEEN_MINUTES_THEN_CRACK_ONE_CM;
         }
 
-        if (effectiveNightLow <= crackOvernightMaxTemp) {
+        if (effectiveNightLow <= thresholds.crackOvernightMaxTemp()) {
             return WindowDecision.CRACK_ONE_TO_THREE_CM_OVERNIGHT;
         }
 
-        if (effectiveNightLow <= openOvernightMaxTemp) {
+        if (effectiveNightLow <= thresholds.openOvernightMaxTemp()) {
             return WindowDecision.OPEN_OVERNIGHT;
         }
 
         return WindowDecision.OPEN_WIDE_OVERNIGHT;
     }
 
-    private boolean opensOvernight(WindowDecision decision) {
+    boolean opensOvernight(WindowDecision decision) {
         return decision == WindowDecision.OPEN_TEN_TO_FIFTEEN_MINUTES_THEN_CRACK_ONE_CM
                 || decision == WindowDecision.CRACK_ONE_TO_THREE_CM_OVERNIGHT
                 || decision == WindowDecision.OPEN_OVERNIGHT
                 || decision == WindowDecision.OPEN_WIDE_OVERNIGHT;
     }
 
-    private OvernightMetrics overnightMetrics(ForecastResponse forecastResponse) {
-        if (forecastResponse == null || forecastResponse.hourly() == null || forecastResponse.hourly().time() == null) {
+    OvernightMetrics overnightMetrics(HourlyColumns forecast) {
+        if (forecast == null) {
             return OvernightMetrics.empty();
         }
 
-        ForecastResponse.Hourly hourly = forecastResponse.hourly();
-        LocalDateTime windowStart = findFirstBedtime(hourly.time());
-        if (windowStart == null) {
+        long[] time = forecast.time();
+        OvernightWindow window = OvernightWindow.locate(time);
+        if (window.isEmpty()) {
             return OvernightMetrics.empty();
         }
 
-        LocalDateTime windowEnd = windowStart.toLocalDate().plusDays(1).atTime(WAKE_HOUR, 0);
-        Double lowestTemperature = null;
-        Double maxWind = null;
+        double[] temperatures = forecast.series("temperature_2m");
+        double[] winds = forecast.series("wind_speed_10m");
+        double[] humidities = forecast.series("relative_humidity_2m");
+        double[] rains = forecast.series("rain");
+        double lowestTemperature = Double.NaN;
+        double maxWind = Double.NaN;
         double humiditySum = 0.0;
         int humidityCount = 0;
         double rainSum = 0.0;
         int rainCount = 0;
 
-        for (int index = 0; index < hourly.time().size(); index++) {
-            LocalDateTime timestamp = parseTimestamp(hourly.time().get(index));
-            if (timestamp == null || timestamp.isBefore(windowStart) || timestamp.isAfter(windowEnd)) {
+        for (int index = window.from(); index < window.to(); index++) {
+            if (!window.includes(time, index)) {
                 continue;
             }
 
-            Double temperature = valueAt(hourly.temperature_2m(), index);
-            if (temperature != null && (lowestTemperature == null || temperature < lowestTemperature)) {
+            double temperature = valueAt(temperatures, index);
+            if (!Double.isNaN(temperature) && (Double.isNaN(lowestTemperature) || temperature < lowestTemperature)) {
                 lowestTemperature = temperature;
             }
 
-            Double wind = valueAt(hourly.wind_speed_10m(), index);
-            if (wind != null && (maxWind == null || wind > maxWind)) {
+            double wind = valueAt(winds, index);
+            if (!Double.isNaN(wind) && (Double.isNaN(maxWind) || wind > maxWind)) {
                 maxWind = wind;
             }
 
-            Double humidity = valueAt(hourly.relative_humidity_2m(), index);
-            if (humidity != null) {
+            double humidity = valueAt(humidities, index);
+            if (!Double.isNaN(humidity)) {
                 humiditySum += humidity;
                 humidityCount++;
             }
 
-            Double rain = valueAt(hourly.rain(), index);
-            if (rain != null) {
+            double rain = valueAt(rains, index);
+            if (!Double.isNaN(rain)) {
                 rainSum += rain;
                 rainCount++;
             }
         }
 
         return new OvernightMetrics(
-                lowestTemperature,
-                maxWind,
+                Double.isNaN(lowestTemperature) ? null : lowestTemperature,
+                Double.isNaN(maxWind) ? null : maxWind,
                 humidityCount == 0 ? null : humiditySum / humidityCount,
                 rainCount == 0 ? null : rainSum
         );
     }
 
-    private Double overnightMaxEuropeanAqi(AirQualityResponse airQualityResponse) {
-        if (airQualityResponse == null || airQualityResponse.hourly() == null || airQualityResponse.hourly().time() == null) {
+    Double overnightMaxEuropeanAqi(HourlyColumns airQuality) {
+        if (airQuality == null) {
             return null;
         }
 
-        AirQualityResponse.Hourly hourly = airQualityResponse.hourly();
-        LocalDateTime windowStart = findFirstBedtime(hourly.time());
-        if (windowStart == null) {
+        long[] time = airQuality.time();
+        OvernightWindow window = OvernightWindow.locate(time);
+        if (window.isEmpty()) {
             return null;
         }
 
-        LocalDateTime windowEnd = windowStart.toLocalDate().plusDays(1).atTime(WAKE_HOUR, 0);
-        Double maxEuropeanAqi = null;
+        double[] europeanAqis = airQuality.series("european_aqi");
+        double maxEuropeanAqi = Double.NaN;
 
-        for (int index = 0; index < hourly.time().size(); index++) {
-            LocalDateTime timestamp = parseTimestamp(hourly.time().get(index));
-            if (timestamp == null || timestamp.isBefore(windowStart) || timestamp.isAfter(windowEnd)) {
+        for (int index = window.from(); index < window.to(); index++) {
+            if (!window.includes(time, index)) {
                 continue;
             }
 
-            Double europeanAqi = valueAt(hourly.european_aqi(), index);
-            if (europeanAqi != null && (maxEuropeanAqi == null || europeanAqi > maxEuropeanAqi)) {
+            double europeanAqi = valueAt(europeanAqis, index);
+            if (!Double.isNaN(europeanAqi) && (Double.isNaN(maxEuropeanAqi) || europeanAqi > maxEuropeanAqi)) {
                 maxEuropeanAqi = europeanAqi;
             }
         }
 
-        return maxEuropeanAqi;
+        return Double.isNaN(maxEuropeanAqi) ? null : maxEuropeanAqi;
     }
 
-    private AirQualityResponse getAirQualityForecastOrNull() {
-        if (airQualityService == null) {
-            return null;
+    private Forecasts fetchForecasts() {
+        if (!concurrentFetch) {
+            return new Forecasts(weatherService.getForecastColumns(), getAirQualityForecastOrNull());
         }
 
+        // Both Open-Meteo calls are independent, so run them side by side and only wait for the slower one.
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
         try {
-            return airQualityService.getForecast();
-        } catch (RuntimeException exception) {
-            log.warn("Air quality unavailable, falling back to weather-only decision", exception);
-            return null;
+            Future<HourlyColumns> airQuality = executor.submit(this::getAirQualityForecastOrNull);
+            Future<HourlyColumns> forecast = executor.submit(() -> weatherService.getForecastColumns());
+
+            try {
+                return new Forecasts(forecast.get(), airQuality.get());
+            } catch (ExecutionException exception) {
+                airQuality.cancel(true);
+                throw propagate(exception.getCause());
+            } catch (InterruptedException exception) {
+                forecast.cancel(true);
+                airQuality.cancel(true);
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while fetching forecasts", exception);
+            }
+        } finally {
+            executor.shutdown();
         }
     }
 
-    private LocalDateTime findFirstBedtime(List<String> timestamps) {
-        for (String timestampValue : timestamps) {
-            LocalDateTime timestamp = parseTimestamp(timestampValue);
-            if (timestamp != null && timestamp.getHour() == BEDTIME_HOUR) {
-                return timestamp;
-            }
+    private RuntimeException propagate(Throwable cause) {
+        if (cause instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+
+        if (cause instanceof Error error) {
+            throw error;
         }
 
-        return null;
+        return new IllegalStateException("Failed to fetch forecasts", cause);
     }
 
-    private LocalDateTime parseTimestamp(String value) {
-        if (value == null || value.isBlank()) {
+    private HourlyColumns getAirQualityForecastOrNull() {
+        if (airQualityService == null) {
             return null;
         }
 
         try {
-            return LocalDateTime.parse(value);
-        } catch (DateTimeParseException exception) {
+            return airQualityService.getForecastColumns();
+        } catch (RuntimeException exception) {
+            log.warn("Air quality unavailable, falling back to weather-only decision", exception);
+            metrics.recordAirQualityFallback();
             return null;
         }
     }
 
-    private Double valueAt(List<Double> values, int index) {
-        if (values == null || index >= values.size()) {
-            return null;
+    private double valueAt(double[] values, int index) {
+        if (values == null || index >= values.length) {
+            return Double.NaN;
         }
 
-        return values.get(index);
+        return values[index];
     }
 
-    private void validateThresholds() {
-        if (!(fiveMinuteVentMaxTemp <= tenMinuteVentMaxTemp
-                && tenMinuteVentMaxTemp <= tenToFifteenMinuteVentAndCrackMaxTemp
-                && tenToFifteenMinuteVentAndCrackMaxTemp <= crackOvernightMaxTemp
-                && crackOvernightMaxTemp <= openOvernightMaxTemp)) {
-            throw new IllegalStateException("Window temperature thresholds must be ordered ascending");
-        }
+    private record Forecasts(
+            HourlyColumns forecast,
+            HourlyColumns airQuality
+    ) {
+    }
+
+    private record LastRecommendation(
+            HourlyColumns forecast,
+            HourlyColumns airQuality,
+            WindowThresholds thresholds,
+            WindowRecommendation recommendation
+    ) {
     }
 
-    private record OvernightMetrics(
+    record OvernightMetrics(
             Double lowTemperature,
             Double maxWind,
             Double meanHumidity,
@@ -0,0 +1,61 @@
+package com.chrisblackwood.home.web;
+
+import com.chrisblackwood.home.cache.RecommendationCache;
+import com.chrisblackwood.home.dto.Location;
+import com.chrisblackwood.home.dto.WindowRecommendation;
+import com.chrisblackwood.home.service.FleetService;
+import com.chrisblackwood.home.service.OpenMeteoFetchException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Serves {@code GET /recommendation?lat=..&lon=..} in {@code home.mode=server}, deciding with the configured thresholds
+ * and timezone. Results are shared through {@link RecommendationCache}.
+ */
+@RestController
+@ConditionalOnProperty(name = "home.mode", havingValue = "server")
+public class RecommendationController {
+
+    private static final Logger log = LoggerFactory.getLogger(RecommendationController.class);
+
+    private final FleetService fleetService;
+    private final RecommendationCache recommendationCache;
+
+    public RecommendationController(FleetService fleetService, RecommendationCache recommendationCache) {
+        this.fleetService = fleetService;
+        this.recommendationCache = recommendationCache;
+    }
+
+    @GetMapping("/recommendation")
+    public WindowRecommendation recommendation(@RequestParam("lat") double latitude,
+                                               @RequestParam("lon") double longitude) {
+        if (!(latitude >= -90.0 && latitude <= 90.0) || !(longitude >= -180.0 && longitude <= 180.0)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "lat must be within ±90 and lon within ±180");
+        }
+
+        return recommendationCache.get(new Location(latitude, longitude), fleetService::recommendation);
+    }
+
+    // Only Open-Meteo failures are the upstream's fault. The more specific handler wins, so this one sees them first.
+    @ExceptionHandler(OpenMeteoFetchException.class)
+    @ResponseStatus(HttpStatus.BAD_GATEWAY)
+    public void upstreamUnavailable(OpenMeteoFetchException exception) {
+        log.warn("Open-Meteo unavailable for a recommendation request", exception);
+    }
+
+    // Every other failure of our own is an IllegalStateException. Framework exceptions, such as a malformed lat, keep
+    // their default statuses.
+    @ExceptionHandler(IllegalStateException.class)
+    @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
+    public void failed(IllegalStateException exception) {
+        log.error("Recommendation request failed", exception);
+    }
+}
@@ -0,0 +1,38 @@
+package com.chrisblackwood.home.web;
+
+import org.springframework.boot.context.event.ApplicationEnvironmentPreparedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Map;
+
+/**
+ * Turns the embedded web server on for the long-running modes. Every other mode runs without one, so
+ * {@code spring.main.web-application-type} stays {@code none} in the shared configuration and is overridden here, once
+ * the configuration files are loaded but before the application context type is chosen. Requests are handled on
+ * virtual threads, so a slow Open-Meteo fetch parks a cheap thread instead of holding a pool slot.
+ * <p>
+ * {@code home.mode=server} serves recommendations and {@code /actuator/prometheus} on {@code server.port};
+ * {@code home.mode=daemon} only has the actuator endpoint to serve, so it listens on {@code metrics.prometheus.port}.
+ */
+public class ServerModeListener implements ApplicationListener<ApplicationEnvironmentPreparedEvent> {
+
+    @Override
+    public void onApplicationEvent(ApplicationEnvironmentPreparedEvent event) {
+        ConfigurableEnvironment environment = event.getEnvironment();
+        String mode = environment.getProperty("home.mode");
+        if ("server".equals(mode)) {
+            environment.getPropertySources().addFirst(new MapPropertySource("homeServerMode", Map.of(
+                    "spring.main.web-application-type", "servlet",
+                    "spring.threads.virtual.enabled", "true"
+            )));
+        } else if ("daemon".equals(mode)) {
+            environment.getPropertySources().addFirst(new MapPropertySource("homeServerMode", Map.of(
+                    "spring.main.web-application-type", "servlet",
+                    "spring.threads.virtual.enabled", "true",
+                    "server.port", "${metrics.prometheus.port}"
+            )));
+        }
+    }
+}
@@ -1,29 +1,54 @@
 package com.chrisblackwood.home;
 
 import com.chrisblackwood.home.dto.WindowDecision;
-import com.chrisblackwood.home.notification.NotificationService;
+import com.chrisblackwood.home.dto.WindowRecommendation;
+import com.chrisblackwood.home.job.WindowRecommendationJob;
+import com.chrisblackwood.home.journal.DecisionJournal;
+import com.chrisblackwood.home.journal.JournalKey;
+import com.chrisblackwood.home.metrics.FlightRecording;
+import com.chrisblackwood.home.notification.NotificationQueue;
+import com.chrisblackwood.home.service.FleetService;
+import com.chrisblackwood.home.service.RecipientFanOutService;
 import com.chrisblackwood.home.service.WindowService;
 import org.junit.jupiter.api.Test;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 public class HomeApplicationTest {
 
     @Test
     void shouldSendOpenWideOvernightNotificationMessage() {
-        NotificationService notificationService = mock(NotificationService.class);
+        NotificationQueue notificationQueue = mock(NotificationQueue.class);
         WindowService windowService = mock(WindowService.class);
-        when(windowService.windowDecision()).thenReturn(WindowDecision.OPEN_WIDE_OVERNIGHT);
-        when(windowService.windowMessage(WindowDecision.OPEN_WIDE_OVERNIGHT))
-                .thenReturn("Open the windows wide overnight");
+        when(windowService.windowRecommendation()).thenReturn(new WindowRecommendation(
+                WindowDecision.OPEN_WIDE_OVERNIGHT, "Open the windows wide overnight",
+                19.0, 5.0, 60.0, 0.0, 19.0, 20.0));
 
-        HomeApplication homeApplication = new HomeApplication(notificationService, windowService);
+        HomeApplication homeApplication = new HomeApplication(
+                new WindowRecommendationJob(notificationQueue, windowService, mock(FleetService.class),
+                        mock(RecipientFanOutService.class), FlightRecording.disabled(), DecisionJournal.disabled()), "one-shot");
 
         homeApplication.run();
 
-        verify(windowService).windowMessage(WindowDecision.OPEN_WIDE_OVERNIGHT);
-        verify(notificationService).sendNotification("Open the windows wide overnight");
+        verify(notificationQueue).enqueue(eq("Open the windows wide overnight"), any(JournalKey.class));
+    }
+
+    @Test
+    void shouldLeaveRunsToTheSchedulerInDaemonMode() {
+        NotificationQueue notificationQueue = mock(NotificationQueue.class);
+        WindowService windowService = mock(WindowService.class);
+
+        HomeApplication homeApplication = new HomeApplication(
+                new WindowRecommendationJob(notificationQueue, windowService, mock(FleetService.class),
+                        mock(RecipientFanOutService.class), FlightRecording.disabled(), DecisionJournal.disabled()), "daemon");
+
+        homeApplication.run();
+
+        verifyNoInteractions(windowService, notificationQueue);
     }
 }
@@ -0,0 +1,116 @@
+package com.chrisblackwood.home.archive;
+
+import com.chrisblackwood.home.dto.HourlyColumns;
+import com.chrisblackwood.home.dto.Location;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ForecastArchiveTest {
+
+    private static final long FIRST_HOUR = 1_772_402_400L;
+    private static final Location PARIS = new Location(48.52, 2.18);
+    private static final Location LONDON = new Location(51.5, -0.12);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReadBackEveryArchivedHourPerLocation() {
+        ForecastArchive archive = new ForecastArchive(directory.toString());
+        archive.append("forecast", columns(PARIS, 0, new double[]{10.5, 9.8, Double.NaN}, new double[]{0.0, 0.2, 0.0}));
+        archive.append("forecast", columns(LONDON, 0, new double[]{7.0}, new double[]{1.5}));
+        archive.append("forecast", columns(PARIS, 3, new double[]{9.1, 8.7}, new double[]{0.0, 0.0}));
+
+        HourlyColumns paris = new ForecastArchive(directory.toString()).read("forecast", PARIS);
+
+        assertArrayEquals(hours(0, 5), paris.time());
+        assertArrayEquals(new double[]{10.5, 9.8, Double.NaN, 9.1, 8.7}, paris.series("temperature_2m"));
+        assertArrayEquals(new double[]{0.0, 0.2, 0.0, 0.0, 0.0}, paris.series("rain"));
+        assertEquals(2, archive.locations("forecast").size());
+        assertNull(archive.read("air-quality", PARIS));
+    }
+
+    @Test
+    void shouldOnlyAppendHoursAfterTheLastArchivedOne() {
+        ForecastArchive archive = new ForecastArchive(directory.toString());
+        archive.append("forecast", columns(PARIS, 0, new double[]{10.0, 9.0}, new double[]{0.0, 0.0}));
+        archive.append("forecast", columns(PARIS, 0, new double[]{10.0, 9.0}, new double[]{0.0, 0.0}));
+        archive.append("forecast", columns(PARIS, 1, new double[]{5.0, 8.0}, new double[]{0.0, 0.0}));
+
+        HourlyColumns paris = archive.read("forecast", PARIS);
+
+        assertArrayEquals(hours(0, 3), paris.time());
+        assertArrayEquals(new double[]{10.0, 9.0, 8.0}, paris.series("temperature_2m"));
+    }
+
+    @Test
+    void shouldDropAnAppendInterruptedBeforeItsIndexEntry() throws IOException {
+        ForecastArchive archive = new ForecastArchive(directory.toString());
+        archive.append("forecast", columns(PARIS, 0, new double[]{10.0}, new double[]{0.0}));
+        long dataSize = Files.size(directory.resolve("forecast.gorilla"));
+        long indexSize = Files.size(directory.resolve("forecast.index"));
+        Files.write(directory.resolve("forecast.gorilla"), new byte[]{1, 2, 3}, StandardOpenOption.APPEND);
+        Files.write(directory.resolve("forecast.index"), new byte[]{4, 5}, StandardOpenOption.APPEND);
+
+        ForecastArchive reopened = new ForecastArchive(directory.toString());
+        reopened.append("forecast", columns(PARIS, 1, new double[]{9.0}, new double[]{0.0}));
+
+        assertArrayEquals(new double[]{10.0, 9.0}, reopened.read("forecast", PARIS).series("temperature_2m"));
+        assertEquals(dataSize * 2 - 4, Files.size(directory.resolve("forecast.gorilla")));
+        assertEquals(indexSize * 2 - 4, Files.size(directory.resolve("forecast.index")));
+    }
+
+    @Test
+    void shouldReadBlocksStoredPastTwoGigabytes() throws IOException {
+        ForecastArchive archive = new ForecastArchive(directory.toString());
+        archive.append("forecast", columns(PARIS, 0, new double[]{10.0}, new double[]{0.0}));
+        try (FileChannel data = FileChannel.open(directory.resolve("forecast.gorilla"), StandardOpenOption.WRITE)) {
+            data.write(ByteBuffer.allocate(1), 3L << 30);
+        }
+        archive.append("forecast", columns(PARIS, 1, new double[]{9.0}, new double[]{0.2}));
+
+        HourlyColumns paris = archive.read("forecast", PARIS);
+        archive.close();
+
+        assertArrayEquals(hours(0, 2), paris.time());
+        assertArrayEquals(new double[]{10.0, 9.0}, paris.series("temperature_2m"));
+        assertArrayEquals(new double[]{0.0, 0.2}, paris.series("rain"));
+    }
+
+    @Test
+    void shouldKeepNothingWhenDisabled() {
+        ForecastArchive archive = ForecastArchive.disabled();
+        archive.append("forecast", columns(PARIS, 0, new double[]{10.0}, new double[]{0.0}));
+
+        assertNull(archive.read("forecast", PARIS));
+        assertEquals(List.of(), archive.locations("forecast"));
+    }
+
+    private HourlyColumns columns(Location location, int firstHour, double[] temperatures, double[] rain) {
+        return new HourlyColumns(location.latitude(), location.longitude(),
+                hours(firstHour, firstHour + temperatures.length),
+                new HashMap<>(Map.of("temperature_2m", temperatures, "rain", rain)));
+    }
+
+    private long[] hours(int from, int to) {
+        long[] time = new long[to - from];
+        for (int index = 0; index < time.length; index++) {
+            time[index] = FIRST_HOUR + (from + index) * 3_600L;
+        }
+        return time;
+    }
+}
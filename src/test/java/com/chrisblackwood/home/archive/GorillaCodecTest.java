@@ -0,0 +1,54 @@
+package com.chrisblackwood.home.archive;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GorillaCodecTest {
+
+    @Test
+    void shouldRoundTripIrregularTimestampsAndUnusualValues() {
+        SplittableRandom random = new SplittableRandom(11);
+        long[] times = new long[500];
+        double[] values = new double[500];
+        times[0] = 1_772_402_400L;
+        for (int index = 1; index < times.length; index++) {
+            long step = switch (index % 7) {
+                case 0 -> 3_600L + random.nextLong(-50, 50);
+                case 1 -> 7_200L;
+                case 2 -> 86_400L * 400;
+                default -> 3_600L;
+            };
+            times[index] = times[index - 1] + step;
+        }
+        double[] specials = {Double.NaN, 0.0, -0.0, Double.POSITIVE_INFINITY, Double.MIN_VALUE, -1.0e300};
+        for (int index = 0; index < values.length; index++) {
+            values[index] = index % 5 == 0 ? specials[index % specials.length] : Math.round(random.nextDouble(-30, 40) * 10) / 10.0;
+        }
+
+        BitOutput output = new BitOutput();
+        GorillaCodec.writeTimes(times, output);
+        GorillaCodec.writeValues(values, output);
+        BitInput input = new BitInput(ByteBuffer.wrap(output.toByteArray()), 0);
+
+        assertArrayEquals(times, GorillaCodec.readTimes(input, times.length));
+        assertArrayEquals(values, GorillaCodec.readValues(input, values.length));
+    }
+
+    @Test
+    void shouldSpendOneBitPerRegularHour() {
+        long[] times = new long[24 * 365];
+        for (int index = 0; index < times.length; index++) {
+            times[index] = 1_772_402_400L + index * 3_600L;
+        }
+
+        BitOutput output = new BitOutput();
+        GorillaCodec.writeTimes(times, output);
+
+        assertEquals(64 + times.length - 1, output.size());
+    }
+}
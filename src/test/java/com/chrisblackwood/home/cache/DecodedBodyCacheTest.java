@@ -0,0 +1,96 @@
+package com.chrisblackwood.home.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DecodedBodyCacheTest {
+
+    private static final int MAX_ENTRIES = 256;
+
+    private final AtomicInteger decodes = new AtomicInteger();
+
+    @Test
+    void shouldReuseTheDecodedValueForAnIdenticalBody() {
+        DecodedBodyCache<List<String>> cache = new DecodedBodyCache<>(MAX_ENTRIES);
+
+        List<String> first = cache.decode("forecast", bytes("{\"t\":[1,2]}"), () -> decoded("first"));
+        List<String> second = cache.decode("forecast", bytes("{\"t\":[1,2]}"), () -> decoded("second"));
+
+        assertSame(first, second);
+        assertEquals(1, decodes.get());
+    }
+
+    @Test
+    void shouldDecodeAgainWhenTheBodyChanges() {
+        DecodedBodyCache<List<String>> cache = new DecodedBodyCache<>(MAX_ENTRIES);
+
+        List<String> first = cache.decode("forecast", bytes("{\"t\":[1,2]}"), () -> decoded("first"));
+        List<String> changed = cache.decode("forecast", bytes("{\"t\":[1,3]}"), () -> decoded("changed"));
+        List<String> again = cache.decode("forecast", bytes("{\"t\":[1,3]}"), () -> decoded("again"));
+
+        assertNotSame(first, changed);
+        assertSame(changed, again);
+        assertEquals(2, decodes.get());
+    }
+
+    @Test
+    void shouldDecodeAgainWhenOnlyTheLengthDiffers() {
+        DecodedBodyCache<List<String>> cache = new DecodedBodyCache<>(MAX_ENTRIES, body -> 42L);
+
+        List<String> first = cache.decode("forecast", bytes("{\"t\":[1,2]}"), () -> decoded("first"));
+        List<String> longer = cache.decode("forecast", bytes("{\"t\":[1,2,3]}"), () -> decoded("longer"));
+
+        assertEquals(List.of("longer"), longer);
+        assertNotSame(first, longer);
+        assertEquals(2, decodes.get());
+    }
+
+    @Test
+    void shouldKeepBodiesPerKey() {
+        DecodedBodyCache<List<String>> cache = new DecodedBodyCache<>(MAX_ENTRIES);
+
+        cache.decode("forecast", bytes("{}"), () -> decoded("forecast"));
+        List<String> airQuality = cache.decode("air-quality", bytes("{}"), () -> decoded("air-quality"));
+
+        assertEquals(List.of("air-quality"), airQuality);
+        assertEquals(2, decodes.get());
+    }
+
+    @Test
+    void shouldEvictTheLeastRecentlyUsedKeyBeyondMaxEntries() {
+        DecodedBodyCache<List<String>> cache = new DecodedBodyCache<>(MAX_ENTRIES);
+        for (int index = 0; index < MAX_ENTRIES; index++) {
+            cache.decode("key-" + index, bytes("{}"), () -> decoded("value"));
+        }
+        cache.decode("key-0", bytes("{}"), () -> decoded("value"));
+        cache.decode("key-" + MAX_ENTRIES, bytes("{}"), () -> decoded("value"));
+        assertEquals(MAX_ENTRIES + 1, decodes.get());
+
+        cache.decode("key-0", bytes("{}"), () -> decoded("value"));
+        assertEquals(MAX_ENTRIES + 1, decodes.get());
+        cache.decode("key-1", bytes("{}"), () -> decoded("value"));
+        assertEquals(MAX_ENTRIES + 2, decodes.get());
+    }
+
+    @Test
+    void shouldRejectNonPositiveSizes() {
+        assertThrows(IllegalStateException.class, () -> new DecodedBodyCache<>(0));
+    }
+
+    private List<String> decoded(String value) {
+        decodes.incrementAndGet();
+        return List.of(value);
+    }
+
+    private static byte[] bytes(String body) {
+        return body.getBytes(StandardCharsets.UTF_8);
+    }
+}
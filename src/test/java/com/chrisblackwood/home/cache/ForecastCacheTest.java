@@ -0,0 +1,190 @@
+package com.chrisblackwood.home.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ForecastCacheTest {
+
+    private static final String KEY = "forecast?latitude=48.51&longitude=2.17&hourly=rain&timezone=Europe/Paris";
+    private static final byte[] BODY = "{\"latitude\":48.51}".getBytes(StandardCharsets.UTF_8);
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2026-03-01T18:00:00Z"));
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldServeFreshEntryWithoutCallingUpstream() {
+        ForecastCache cache = new ForecastCache(true, Duration.ofHours(1), 16, "", clock);
+        RecordingFetcher fetcher = new RecordingFetcher(ResponseEntity.ok(BODY));
+
+        cache.fetch(KEY, fetcher);
+        clock.advance(Duration.ofMinutes(59));
+        byte[] body = cache.fetch(KEY, fetcher);
+
+        assertArrayEquals(BODY, body);
+        assertEquals(1, fetcher.requests.size());
+    }
+
+    @Test
+    void shouldRevalidateExpiredEntryAndReuseBodyOnNotModified() {
+        ForecastCache cache = new ForecastCache(true, Duration.ofHours(1), 16, "", clock);
+        RecordingFetcher fetcher = new RecordingFetcher(
+                ResponseEntity.ok().eTag("\"v1\"").header(HttpHeaders.LAST_MODIFIED, "Sun, 01 Mar 2026 17:00:00 GMT").body(BODY),
+                ResponseEntity.status(HttpStatus.NOT_MODIFIED).build()
+        );
+
+        cache.fetch(KEY, fetcher);
+        clock.advance(Duration.ofHours(2));
+        byte[] body = cache.fetch(KEY, fetcher);
+
+        assertArrayEquals(BODY, body);
+        assertEquals(2, fetcher.requests.size());
+        assertNull(fetcher.requests.get(0).getFirst(HttpHeaders.IF_NONE_MATCH));
+        assertEquals("\"v1\"", fetcher.requests.get(1).getFirst(HttpHeaders.IF_NONE_MATCH));
+        assertEquals("Sun, 01 Mar 2026 17:00:00 GMT", fetcher.requests.get(1).getFirst(HttpHeaders.IF_MODIFIED_SINCE));
+    }
+
+    @Test
+    void shouldReuseEntryWrittenToDiskByPreviousRun() {
+        new ForecastCache(true, Duration.ofHours(1), 16, directory.toString(), clock)
+                .fetch(KEY, new RecordingFetcher(ResponseEntity.ok(BODY)));
+        RecordingFetcher fetcher = new RecordingFetcher(ResponseEntity.ok(new byte[0]));
+
+        byte[] body = new ForecastCache(true, Duration.ofHours(1), 16, directory.toString(), clock).fetch(KEY, fetcher);
+
+        assertArrayEquals(BODY, body);
+        assertEquals(0, fetcher.requests.size());
+    }
+
+    @Test
+    void shouldDeleteEntriesLongPastTheirTtlWhenWriting() throws Exception {
+        ForecastCache cache = new ForecastCache(true, Duration.ofHours(1), 16, directory.toString(), clock);
+        cache.fetch(KEY, new RecordingFetcher(ResponseEntity.ok(BODY)));
+        clock.advance(Duration.ofMinutes(90));
+        cache.fetch(KEY + "&day=2", new RecordingFetcher(ResponseEntity.ok(BODY)));
+
+        assertEquals(2, filesIn(directory));
+
+        clock.advance(Duration.ofMinutes(60));
+        cache.fetch(KEY + "&day=3", new RecordingFetcher(ResponseEntity.ok(BODY)));
+
+        assertEquals(2, filesIn(directory));
+        RecordingFetcher fetcher = new RecordingFetcher(ResponseEntity.ok(BODY));
+        cache.fetch(KEY, fetcher);
+        assertNull(fetcher.requests.getFirst().getFirst(HttpHeaders.IF_NONE_MATCH));
+        assertEquals(1, fetcher.requests.size());
+    }
+
+    @Test
+    void shouldDeleteExpiredFilesLeftByPreviousRunOnFirstWrite() throws Exception {
+        new ForecastCache(true, Duration.ofHours(1), 16, directory.toString(), clock)
+                .fetch(KEY, new RecordingFetcher(ResponseEntity.ok(BODY)));
+        clock.advance(Duration.ofDays(1));
+
+        new ForecastCache(true, Duration.ofHours(1), 16, directory.toString(), clock)
+                .fetch(KEY + "&day=2", new RecordingFetcher(ResponseEntity.ok(BODY)));
+
+        assertEquals(1, filesIn(directory));
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedEntriesAndTheirFiles() throws Exception {
+        ForecastCache cache = new ForecastCache(true, Duration.ofHours(1), 2, directory.toString(), clock);
+        cache.fetch(KEY, new RecordingFetcher(ResponseEntity.ok(BODY)));
+        cache.fetch(KEY + "&day=2", new RecordingFetcher(ResponseEntity.ok(BODY)));
+        cache.fetch(KEY, new RecordingFetcher());
+        cache.fetch(KEY + "&day=3", new RecordingFetcher(ResponseEntity.ok(BODY)));
+
+        assertEquals(2, filesIn(directory));
+        RecordingFetcher evicted = new RecordingFetcher(ResponseEntity.ok(BODY));
+        RecordingFetcher kept = new RecordingFetcher();
+        new ForecastCache(true, Duration.ofHours(1), 2, directory.toString(), clock).fetch(KEY + "&day=2", evicted);
+        cache.fetch(KEY, kept);
+
+        assertEquals(1, evicted.requests.size());
+        assertEquals(0, kept.requests.size());
+    }
+
+    @Test
+    void shouldAlwaysCallUpstreamWhenDisabled() {
+        ForecastCache cache = ForecastCache.disabled();
+        RecordingFetcher fetcher = new RecordingFetcher(ResponseEntity.ok(BODY));
+
+        cache.fetch(KEY, fetcher);
+        cache.fetch(KEY, fetcher);
+
+        assertEquals(2, fetcher.requests.size());
+    }
+
+    private static long filesIn(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    private static final class RecordingFetcher implements ForecastCache.Fetcher {
+
+        private final List<ResponseEntity<byte[]>> responses;
+        private final List<HttpHeaders> requests = new ArrayList<>();
+
+        @SafeVarargs
+        private RecordingFetcher(ResponseEntity<byte[]>... responses) {
+            this.responses = List.of(responses);
+        }
+
+        @Override
+        public ResponseEntity<byte[]> fetch(HttpHeaders conditionalHeaders) {
+            requests.add(conditionalHeaders);
+            return responses.get(Math.min(requests.size(), responses.size()) - 1);
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        private void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
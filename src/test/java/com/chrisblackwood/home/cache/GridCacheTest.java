@@ -0,0 +1,100 @@
+package com.chrisblackwood.home.cache;
+
+import com.chrisblackwood.home.dto.HourlyColumns;
+import com.chrisblackwood.home.dto.Location;
+import com.chrisblackwood.home.metrics.PipelineMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class GridCacheTest {
+
+    private static final String TONIGHT = "&start_hour=2026-03-01T22:00&end_hour=2026-03-02T08:00";
+
+    private final Clock clock = Clock.fixed(Instant.parse("2026-03-01T18:00:00Z"), ZoneOffset.UTC);
+    private final List<List<Location>> fetches = new ArrayList<>();
+    private final Function<List<Location>, List<HourlyColumns>> fetch = cells -> {
+        fetches.add(cells);
+        return cells.stream()
+                .map(cell -> new HourlyColumns(cell.latitude(), cell.longitude(), new long[0], Map.of()))
+                .toList();
+    };
+
+    @Test
+    void shouldFetchEachGridCellOnceForNearbyLocations() {
+        GridCache cache = new GridCache(100, Duration.ofHours(1), Map.of(PipelineMetrics.FORECAST, 0.1), clock);
+
+        List<HourlyColumns> columns = cache.columns(PipelineMetrics.FORECAST, TONIGHT, List.of(
+                new Location(48.851, 2.349),
+                new Location(48.862, 2.337),
+                new Location(45.764, 4.835)
+        ), fetch);
+
+        assertEquals(List.of(List.of(new Location(48.9, 2.3), new Location(45.8, 4.8))), fetches);
+        assertSame(columns.get(0), columns.get(1));
+        assertEquals(45.8, columns.get(2).latitude());
+    }
+
+    @Test
+    void shouldOnlyFetchCellsMissingFromTheCache() {
+        GridCache cache = new GridCache(100, Duration.ofHours(1), Map.of(PipelineMetrics.FORECAST, 0.1), clock);
+
+        cache.columns(PipelineMetrics.FORECAST, TONIGHT, List.of(new Location(48.85, 2.33)), fetch);
+        cache.columns(PipelineMetrics.FORECAST, TONIGHT,
+                List.of(new Location(48.86, 2.34), new Location(45.76, 4.84)), fetch);
+
+        assertEquals(2, fetches.size());
+        assertEquals(List.of(new Location(45.8, 4.8)), fetches.get(1));
+    }
+
+    @Test
+    void shouldKeepSeparateEntriesPerUpstreamAndRequestedHours() {
+        GridCache cache = new GridCache(100, Duration.ofHours(1),
+                Map.of(PipelineMetrics.FORECAST, 0.1, PipelineMetrics.AIR_QUALITY, 0.4), clock);
+        List<Location> paris = List.of(new Location(48.85, 2.35));
+
+        cache.columns(PipelineMetrics.FORECAST, TONIGHT, paris, fetch);
+        cache.columns(PipelineMetrics.FORECAST, "&forecast_days=2", paris, fetch);
+        cache.columns(PipelineMetrics.AIR_QUALITY, TONIGHT, paris, fetch);
+
+        assertEquals(3, fetches.size());
+        assertEquals(List.of(new Location(48.8, 2.4)), fetches.get(2));
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedCellWhenFull() {
+        GridCache cache = new GridCache(2, Duration.ofHours(1), Map.of(PipelineMetrics.FORECAST, 1.0), clock);
+        Location paris = new Location(48.85, 2.35);
+        Location lyon = new Location(45.76, 4.84);
+        Location lille = new Location(50.63, 3.06);
+
+        cache.columns(PipelineMetrics.FORECAST, TONIGHT, List.of(paris), fetch);
+        cache.columns(PipelineMetrics.FORECAST, TONIGHT, List.of(lyon), fetch);
+        cache.columns(PipelineMetrics.FORECAST, TONIGHT, List.of(paris), fetch);
+        cache.columns(PipelineMetrics.FORECAST, TONIGHT, List.of(lille), fetch);
+        cache.columns(PipelineMetrics.FORECAST, TONIGHT, List.of(paris), fetch);
+        cache.columns(PipelineMetrics.FORECAST, TONIGHT, List.of(lyon), fetch);
+
+        assertEquals(4, fetches.size());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void shouldPassLocationsThroughWhenDisabled() {
+        List<Location> locations = List.of(new Location(48.851, 2.349), new Location(48.862, 2.337));
+
+        GridCache.disabled().columns(PipelineMetrics.FORECAST, TONIGHT, locations, fetch);
+
+        assertEquals(List.of(locations), fetches);
+    }
+}
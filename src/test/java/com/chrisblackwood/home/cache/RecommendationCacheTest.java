@@ -0,0 +1,99 @@
+package com.chrisblackwood.home.cache;
+
+import com.chrisblackwood.home.dto.Location;
+import com.chrisblackwood.home.dto.WindowDecision;
+import com.chrisblackwood.home.dto.WindowRecommendation;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class RecommendationCacheTest {
+
+    private static final Location PARIS = new Location(48.85, 2.35);
+    private static final Location LYON = new Location(45.76, 4.84);
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2026-03-01T18:00:00Z"));
+    private final AtomicInteger computations = new AtomicInteger();
+    private final Function<Location, WindowRecommendation> compute = location -> {
+        computations.incrementAndGet();
+        return new WindowRecommendation(WindowDecision.OPEN_OVERNIGHT, "Leave the windows open overnight",
+                location.latitude(), null, null, null, null, null);
+    };
+
+    @Test
+    void shouldServeRepeatedPollsWithinThePeriodFromCache() {
+        RecommendationCache cache = new RecommendationCache(Duration.ofMinutes(15), 100, clock);
+
+        WindowRecommendation first = cache.get(PARIS, compute);
+        clock.advance(Duration.ofMinutes(14));
+        WindowRecommendation second = cache.get(PARIS, compute);
+
+        assertSame(first, second);
+        assertEquals(1, computations.get());
+    }
+
+    @Test
+    void shouldRecomputeOnceThePeriodRollsOver() {
+        RecommendationCache cache = new RecommendationCache(Duration.ofMinutes(15), 100, clock);
+
+        cache.get(PARIS, compute);
+        clock.advance(Duration.ofMinutes(15));
+        cache.get(PARIS, compute);
+
+        assertEquals(2, computations.get());
+    }
+
+    @Test
+    void shouldDropStaleEntriesBeforeRefusingNewOnesWhenFull() {
+        RecommendationCache cache = new RecommendationCache(Duration.ofMinutes(15), 1, clock);
+
+        cache.get(PARIS, compute);
+        cache.get(LYON, compute);
+        cache.get(LYON, compute);
+        assertEquals(3, computations.get());
+
+        clock.advance(Duration.ofMinutes(15));
+        cache.get(LYON, compute);
+        cache.get(LYON, compute);
+
+        assertEquals(4, computations.get());
+        assertEquals(1, cache.size());
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        private void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
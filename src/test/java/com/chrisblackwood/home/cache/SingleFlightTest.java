@@ -0,0 +1,103 @@
+package com.chrisblackwood.home.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SingleFlightTest {
+
+    private static final int CALLERS = 50;
+
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+    private final AtomicInteger calls = new AtomicInteger();
+    private final CountDownLatch arrived = new CountDownLatch(CALLERS);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Test
+    void shouldShareOneInFlightCallBetweenConcurrentCallers() throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<String>> results = startCallers(executor, () -> {
+                calls.incrementAndGet();
+                await(release);
+                return "body";
+            });
+            awaitCallers();
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("body", result.get(5, TimeUnit.SECONDS));
+            }
+        }
+
+        assertEquals(1, calls.get());
+        assertEquals(0, singleFlight.inFlight());
+    }
+
+    @Test
+    void shouldShareTheFailureWithEveryWaiter() throws Exception {
+        IllegalStateException failure = new IllegalStateException("Open-Meteo unavailable");
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<String>> results = startCallers(executor, () -> {
+                calls.incrementAndGet();
+                await(release);
+                throw failure;
+            });
+            awaitCallers();
+            release.countDown();
+
+            for (Future<String> result : results) {
+                Exception exception = assertThrows(Exception.class, () -> result.get(5, TimeUnit.SECONDS));
+                assertSame(failure, exception.getCause());
+            }
+        }
+
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void shouldStartAFreshCallOnceThePreviousOneFinished() {
+        singleFlight.execute("forecast", () -> "first" + calls.incrementAndGet());
+        String second = singleFlight.execute("forecast", () -> "second" + calls.incrementAndGet());
+
+        assertEquals("second2", second);
+        assertEquals(0, singleFlight.inFlight());
+    }
+
+    private List<Future<String>> startCallers(ExecutorService executor, Supplier<String> call) {
+        List<Future<String>> results = new ArrayList<>();
+        for (int caller = 0; caller < CALLERS; caller++) {
+            results.add(executor.submit(() -> {
+                arrived.countDown();
+                return singleFlight.execute("forecast", call);
+            }));
+        }
+        return results;
+    }
+
+    // The leader stays blocked on the release latch, so every caller that has arrived joins its call.
+    private void awaitCallers() throws InterruptedException {
+        assertTrue(arrived.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
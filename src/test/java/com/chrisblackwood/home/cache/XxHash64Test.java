@@ -0,0 +1,33 @@
+package com.chrisblackwood.home.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+class XxHash64Test {
+
+    @Test
+    void shouldMatchReferenceHashes() {
+        assertEquals(0xEF46DB3751D8E999L, XxHash64.hash(bytes("")));
+        assertEquals(0xD24EC4F1A98C6E5BL, XxHash64.hash(bytes("a")));
+        assertEquals(0x44BC2CF5AD770999L, XxHash64.hash(bytes("abc")));
+        assertEquals(0xFBCEA83C8A378BF1L, XxHash64.hash(bytes("Nobody inspects the spammish repetition")));
+    }
+
+    @Test
+    void shouldChangeWhenASingleByteChanges() {
+        byte[] body = bytes("{\"hourly\":{\"time\":[\"2026-03-01T22:00\"],\"temperature_2m\":[2.5]}}");
+        long hash = XxHash64.hash(body);
+
+        body[body.length - 4]++;
+
+        assertNotEquals(hash, XxHash64.hash(body));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
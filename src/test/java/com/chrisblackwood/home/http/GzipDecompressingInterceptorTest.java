@@ -0,0 +1,83 @@
+package com.chrisblackwood.home.http;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestClient;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class GzipDecompressingInterceptorTest {
+
+    private static final String URL = "https://api.open-meteo.com/v1/forecast";
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final HttpClientMetrics metrics = new HttpClientMetrics(registry);
+
+    @Test
+    void shouldRequestAndInflateGzipResponses() throws Exception {
+        String json = "{\"latitude\":48.51}";
+        byte[] compressed = gzip(json);
+        RestClient.Builder builder = builder();
+        MockRestServiceServer server = MockRestServiceServer.bindTo(builder).build();
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        headers.setContentLength(compressed.length);
+
+        server.expect(requestTo(URL))
+                .andExpect(header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andRespond(withSuccess(compressed, MediaType.APPLICATION_JSON).headers(headers));
+
+        String body = builder.build().get().uri(URL).retrieve().body(String.class);
+
+        assertEquals(json, body);
+        assertEquals(1, metrics.snapshot().get("api.open-meteo.com").requests());
+        assertEquals(compressed.length, metrics.snapshot().get("api.open-meteo.com").wireBytes());
+        server.verify();
+    }
+
+    @Test
+    void shouldPassThroughUncompressedResponsesAndCountFailures() {
+        RestClient.Builder builder = builder();
+        MockRestServiceServer server = MockRestServiceServer.bindTo(builder).build();
+
+        server.expect(requestTo(URL)).andRespond(withSuccess("plain", MediaType.TEXT_PLAIN));
+        server.expect(requestTo(URL)).andRespond(withStatus(HttpStatus.SERVICE_UNAVAILABLE));
+
+        RestClient restClient = builder.build();
+        assertEquals("plain", restClient.get().uri(URL).retrieve().body(String.class));
+        restClient.get().uri(URL).retrieve().onStatus(status -> true, (request, response) -> { }).toBodilessEntity();
+
+        assertEquals(2, metrics.snapshot().get("api.open-meteo.com").requests());
+        assertEquals(1, metrics.snapshot().get("api.open-meteo.com").failures());
+        assertEquals(2, registry.get("upstream.requests").tag("host", "api.open-meteo.com").functionTimer().count());
+        assertEquals(1.0, registry.get("upstream.failures").tag("host", "api.open-meteo.com").functionCounter().count());
+        server.verify();
+    }
+
+    private RestClient.Builder builder() {
+        return RestClient.builder()
+                .requestInterceptor(new GzipDecompressingInterceptor())
+                .requestInterceptor(new MetricsRecordingInterceptor(metrics));
+    }
+
+    private byte[] gzip(String value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(value.getBytes(StandardCharsets.UTF_8));
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,40 @@
+package com.chrisblackwood.home.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class UpstreamRequestFactoryTest {
+
+    private final UpstreamRequestFactory factory = new UpstreamRequestFactory(
+            HttpClient.newHttpClient(),
+            Duration.ofSeconds(15),
+            Map.of(
+                    HttpClientConfiguration.WEATHER_HOST, Duration.ofSeconds(5),
+                    HttpClientConfiguration.PUSHOVER_HOST, Duration.ofSeconds(8)
+            )
+    );
+
+    @Test
+    void shouldPickFactoryByUpstreamHost() {
+        URI forecast = URI.create("https://api.open-meteo.com/v1/forecast?latitude=48.51");
+        URI pushover = URI.create("https://api.pushover.net/1/messages.json");
+
+        assertSame(factory.factoryFor(forecast), factory.factoryFor(URI.create("https://api.open-meteo.com/v1/other")));
+        assertNotSame(factory.factoryFor(forecast), factory.factoryFor(pushover));
+    }
+
+    @Test
+    void shouldFallBackToDefaultFactoryForUnknownHosts() {
+        assertSame(
+                factory.factoryFor(URI.create("https://example.org/")),
+                factory.factoryFor(URI.create("/relative"))
+        );
+    }
+}
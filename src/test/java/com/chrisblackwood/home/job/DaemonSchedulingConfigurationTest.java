@@ -0,0 +1,33 @@
+package com.chrisblackwood.home.job;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DaemonSchedulingConfigurationTest {
+
+    @Test
+    void shouldDeriveCronFromBedtimeOffset() {
+        assertEquals("0 0 21 * * *", DaemonSchedulingConfiguration.cronBefore(Duration.ofHours(1)));
+        assertEquals("0 15 20 * * *", DaemonSchedulingConfiguration.cronBefore(Duration.ofMinutes(105)));
+        assertEquals("0 0 22 * * *", DaemonSchedulingConfiguration.cronBefore(Duration.ZERO));
+    }
+
+    @Test
+    void shouldRejectOffsetsOfADayOrMore() {
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> DaemonSchedulingConfiguration.cronBefore(Duration.ofHours(24)));
+
+        assertEquals("daemon.bedtime-offset must be between 0 and 24 hours", exception.getMessage());
+    }
+
+    @Test
+    void shouldFallBackToSystemTimezoneWhenOpenMeteoResolvesIt() {
+        assertEquals(ZoneId.systemDefault(), DaemonSchedulingConfiguration.zoneOf("auto"));
+        assertEquals(ZoneId.of("Europe/Paris"), DaemonSchedulingConfiguration.zoneOf("Europe/Paris"));
+    }
+}
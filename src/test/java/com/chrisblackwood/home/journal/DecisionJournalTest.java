@@ -0,0 +1,111 @@
+package com.chrisblackwood.home.journal;
+
+import com.chrisblackwood.home.dto.Location;
+import com.chrisblackwood.home.dto.WindowDecision;
+import com.chrisblackwood.home.dto.WindowRecommendation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DecisionJournalTest {
+
+    private static final Location PARIS = new Location(48.85, 2.35);
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2026-03-01T22:30:00Z"), ZoneOffset.UTC);
+    private static final WindowRecommendation RECOMMENDATION = new WindowRecommendation(
+            WindowDecision.OPEN_OVERNIGHT, "Open the windows overnight", 16.0, 5.0, 60.0, 0.0, 16.0, 20.0);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldRememberCompletedNightsAcrossRestarts() {
+        Path file = directory.resolve("journal.jsonl");
+        DecisionJournal journal = journal(file);
+        JournalKey delivered = journal.tonight(PARIS, "alice");
+        JournalKey failed = journal.tonight(PARIS, "bob");
+        JournalKey decided = journal.tonight(PARIS, "carol");
+        journal.decided(delivered, RECOMMENDATION, "hash");
+        journal.decided(failed, RECOMMENDATION, "hash");
+        journal.decided(decided, RECOMMENDATION, "hash");
+        journal.sync();
+        journal.delivered(delivered, 1);
+        journal.failed(failed, 0, List.of("Pushover unreachable"));
+
+        DecisionJournal reopened = journal(file);
+
+        assertTrue(reopened.isComplete(delivered));
+        assertFalse(reopened.isComplete(failed));
+        assertFalse(reopened.isComplete(decided));
+        assertEquals(RECOMMENDATION, reopened.latest(delivered).recommendation());
+        assertEquals("hash", reopened.latest(delivered).inputsHash());
+        assertEquals(List.of("Pushover unreachable"), reopened.latest(failed).errors());
+    }
+
+    @Test
+    void shouldKeyNightsByTheLocalDate() {
+        DecisionJournal journal = new DecisionJournal(null, ZoneId.of("Asia/Tokyo"), CLOCK);
+
+        assertEquals("2026-03-02", journal.tonight(PARIS, null).night());
+    }
+
+    @Test
+    void shouldCutOffATornFinalRecord() throws IOException {
+        Path file = directory.resolve("journal.jsonl");
+        DecisionJournal journal = journal(file);
+        JournalKey key = journal.tonight(PARIS, null);
+        journal.decided(key, RECOMMENDATION, "hash");
+        journal.queued(key);
+        Files.writeString(file, "{\"key\":{\"night\":\"2026-03-0", StandardOpenOption.APPEND);
+
+        DecisionJournal reopened = journal(file);
+        reopened.delivered(key, 1);
+
+        assertEquals(JournalRecord.Stage.DELIVERED, journal(file).latest(key).stage());
+        assertEquals(3, Files.readAllLines(file).size());
+    }
+
+    @Test
+    void shouldRefuseACorruptJournal() throws IOException {
+        Path file = directory.resolve("journal.jsonl");
+        Files.writeString(file, "not json\n");
+
+        assertThrows(IllegalStateException.class, () -> journal(file));
+    }
+
+    @Test
+    void shouldKeepEveryConcurrentOutcome() {
+        Path file = directory.resolve("journal.jsonl");
+        DecisionJournal journal = journal(file);
+        List<JournalKey> keys = IntStream.range(0, 200).mapToObj(index -> journal.tonight(PARIS, "r" + index)).toList();
+        keys.forEach(key -> journal.decided(key, RECOMMENDATION, "hash"));
+        journal.sync();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            keys.forEach(key -> executor.submit(() -> journal.delivered(key, 1)));
+        }
+
+        DecisionJournal reopened = journal(file);
+        assertTrue(keys.stream().allMatch(reopened::isComplete));
+    }
+
+    private DecisionJournal journal(Path file) {
+        return new DecisionJournal(file, ZoneOffset.UTC, CLOCK);
+    }
+}
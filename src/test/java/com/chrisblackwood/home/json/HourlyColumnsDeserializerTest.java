@@ -0,0 +1,83 @@
+package com.chrisblackwood.home.json;
+
+import com.chrisblackwood.home.dto.ForecastResponse;
+import com.chrisblackwood.home.dto.HourlyColumns;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HourlyColumnsDeserializerTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void shouldDecodeHourlySeriesIntoPrimitiveColumns() throws Exception {
+        String json = """
+                {"latitude":48.5,"longitude":2.18,"generationtime_ms":0.1,"utc_offset_seconds":3600,
+                 "hourly_units":{"time":"iso8601","temperature_2m":"°C"},
+                 "hourly":{"time":["2026-03-01T22:00","2026-03-01T23:00","2026-03-02T00:00"],
+                           "temperature_2m":[4.5,null,3],
+                           "rain":[0.1]}}
+                """;
+
+        HourlyColumns columns = mapper.readValue(json, HourlyColumns.class);
+
+        assertEquals(48.5, columns.latitude());
+        assertEquals(2.18, columns.longitude());
+        assertEquals(3, columns.size());
+        assertEquals(LocalDateTime.parse("2026-03-01T22:00").toEpochSecond(ZoneOffset.UTC), columns.time()[0]);
+        assertEquals(LocalDateTime.parse("2026-03-02T00:00").toEpochSecond(ZoneOffset.UTC), columns.time()[2]);
+        assertEquals(4.5, columns.series("temperature_2m")[0]);
+        assertTrue(Double.isNaN(columns.series("temperature_2m")[1]));
+        assertEquals(3.0, columns.series("temperature_2m")[2]);
+        assertEquals(3, columns.series("rain").length);
+        assertTrue(Double.isNaN(columns.series("rain")[2]));
+    }
+
+    @Test
+    void shouldMatchColumnsBuiltFromForecastResponse() throws Exception {
+        ForecastResponse forecastResponse = new ForecastResponse(48.51, 2.17, new ForecastResponse.Hourly(
+                List.of("2026-02-28T23:00", "2026-03-01T00:00"),
+                List.of(1.0, 2.0),
+                List.of(3.0, 4.0),
+                List.of(50.0, 60.0),
+                List.of(0.0, 0.2)
+        ));
+
+        HourlyColumns decoded = mapper.readValue(mapper.writeValueAsString(forecastResponse), HourlyColumns.class);
+        HourlyColumns converted = HourlyColumns.from(forecastResponse);
+
+        assertArrayEquals(converted.time(), decoded.time());
+        for (String series : List.of("temperature_2m", "wind_speed_10m", "relative_humidity_2m", "rain")) {
+            assertArrayEquals(converted.series(series), decoded.series(series));
+        }
+    }
+
+    @Test
+    void shouldAgreeWithLocalDateTimeOnDaysPastTheEndOfTheMonth() {
+        for (String value : List.of("2025-02-29T00:00", "2025-02-31T00:00", "2026-04-31T22:00", "1900-02-29T00:00")) {
+            assertEquals(HourlyColumns.INVALID_TIME, HourlyColumns.parseTime(value.toCharArray(), 0, value.length()), value);
+        }
+        for (String value : List.of("2024-02-29T22:00", "2000-02-29T00:00", "2026-03-31T23:00", "2026-04-30T08:00")) {
+            assertEquals(LocalDateTime.parse(value).toEpochSecond(ZoneOffset.UTC),
+                    HourlyColumns.parseTime(value.toCharArray(), 0, value.length()), value);
+        }
+    }
+
+    @Test
+    void shouldMarkUnparseableTimestampsInvalid() throws Exception {
+        HourlyColumns columns = mapper.readValue(
+                "{\"hourly\":{\"time\":[\"not-a-time\",null,\"2026-03-01T22:00:00\"]}}", HourlyColumns.class);
+
+        assertEquals(HourlyColumns.INVALID_TIME, columns.time()[0]);
+        assertEquals(HourlyColumns.INVALID_TIME, columns.time()[1]);
+        assertEquals(LocalDateTime.parse("2026-03-01T22:00").toEpochSecond(ZoneOffset.UTC), columns.time()[2]);
+    }
+}
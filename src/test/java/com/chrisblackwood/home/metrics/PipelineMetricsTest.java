@@ -0,0 +1,71 @@
+package com.chrisblackwood.home.metrics;
+
+import com.chrisblackwood.home.dto.WindowDecision;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PipelineMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final PipelineMetrics metrics = new PipelineMetrics(registry);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldTagFetchesByUpstreamAndOutcome() {
+        metrics.timeFetch(PipelineMetrics.FORECAST, () -> "body");
+        assertThrows(IllegalStateException.class, () -> metrics.timeFetch(PipelineMetrics.AIR_QUALITY, () -> {
+            throw new IllegalStateException("upstream down");
+        }));
+
+        assertEquals(1, registry.get("openmeteo.fetch")
+                .tags("upstream", "forecast", "outcome", "success").timer().count());
+        assertEquals(1, registry.get("openmeteo.fetch")
+                .tags("upstream", "air-quality", "outcome", "failure").timer().count());
+    }
+
+    @Test
+    void shouldRecordPayloadSizes() {
+        metrics.recordPayload(PipelineMetrics.FORECAST, 1_000);
+        metrics.recordPayload(PipelineMetrics.FORECAST, 3_000);
+
+        assertEquals(4_000.0, registry.get("openmeteo.payload").tag("upstream", "forecast").summary().totalAmount());
+    }
+
+    @Test
+    void shouldCountDecisionsAndFallbacks() {
+        metrics.recordDecision(WindowDecision.OPEN_OVERNIGHT, 1_000);
+        metrics.recordDecision(WindowDecision.OPEN_OVERNIGHT, 2_000);
+        metrics.recordDecision(WindowDecision.KEEP_CLOSED, 1_000);
+        metrics.recordAirQualityFallback();
+
+        assertEquals(2, registry.get("window.decision").tag("decision", "OPEN_OVERNIGHT").timer().count());
+        assertEquals(1, registry.get("window.decision").tag("decision", "KEEP_CLOSED").timer().count());
+        assertEquals(1.0, registry.get("window.air-quality.fallbacks").counter().count());
+    }
+
+    @Test
+    void shouldExportPrometheusTextFile() throws IOException {
+        PrometheusMeterRegistry prometheus = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        new PipelineMetrics(prometheus).recordAirQualityFallback();
+        Path file = directory.resolve("textfile").resolve("home_app.prom");
+
+        new PrometheusFileExporter(prometheus, file.toString()).export();
+
+        String exported = Files.readString(file);
+        assertTrue(exported.contains("window_air_quality_fallbacks_total 1.0"));
+        assertTrue(exported.contains("window_decision_seconds_count{decision=\"KEEP_CLOSED\"} 0"));
+    }
+}
@@ -0,0 +1,246 @@
+package com.chrisblackwood.home.notification;
+
+import com.chrisblackwood.home.dto.Location;
+import com.chrisblackwood.home.dto.PushoverResponse;
+import com.chrisblackwood.home.journal.DecisionJournal;
+import com.chrisblackwood.home.journal.JournalKey;
+import com.chrisblackwood.home.journal.JournalRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class NotificationQueueTest {
+
+    private static final String MESSAGE = "Leave the windows open overnight";
+    private static final PushoverResponse DELIVERED = new PushoverResponse(1, "request", null, null, null);
+
+    private static final JournalKey KEY = new JournalKey("2026-03-01", new Location(48.85, 2.35), "alice");
+
+    private final NotificationService notificationService = mock(NotificationService.class);
+    private DecisionJournal decisionJournal;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void setUp() {
+        decisionJournal = new DecisionJournal(directory.resolve("journal.jsonl").toString(), "UTC");
+    }
+
+    @Test
+    void shouldRetryRetryableFailuresUntilDelivered() {
+        when(notificationService.sendNotification(MESSAGE))
+                .thenThrow(failure(503))
+                .thenThrow(failure(429))
+                .thenReturn(DELIVERED);
+        NotificationQueue queue = queue(directory.resolve("outbox.json"), 5);
+
+        queue.start();
+        queue.enqueue(MESSAGE);
+        queue.stop();
+
+        verify(notificationService, times(3)).sendNotification(MESSAGE);
+        assertEquals(0, queue.pending());
+    }
+
+    @Test
+    void shouldNotRetryRejectedRequests() {
+        when(notificationService.sendNotification(MESSAGE)).thenThrow(failure(400));
+        NotificationQueue queue = queue(null, 5);
+
+        queue.start();
+        queue.enqueue(MESSAGE);
+        queue.stop();
+
+        verify(notificationService, times(1)).sendNotification(MESSAGE);
+        assertEquals(0, queue.pending());
+    }
+
+    @Test
+    void shouldGiveUpAfterMaxAttempts() {
+        when(notificationService.sendNotification(MESSAGE)).thenThrow(failure(0));
+        NotificationQueue queue = queue(null, 3);
+
+        queue.start();
+        queue.enqueue(MESSAGE);
+        queue.stop();
+
+        verify(notificationService, times(3)).sendNotification(MESSAGE);
+        assertEquals(0, queue.pending());
+    }
+
+    @Test
+    void shouldResendOutboxEntriesLeftByPreviousRun() throws Exception {
+        Path outboxFile = directory.resolve("outbox.json");
+        new NotificationOutbox(outboxFile).put(new NotificationOutbox.Entry("left-over", MESSAGE, 1));
+        when(notificationService.sendNotification(MESSAGE)).thenReturn(DELIVERED);
+        NotificationQueue queue = queue(outboxFile, 5);
+
+        queue.start();
+        queue.stop();
+
+        verify(notificationService).sendNotification(MESSAGE);
+        assertEquals(List.of(), new NotificationOutbox(outboxFile).load());
+    }
+
+    @Test
+    void shouldResendMessagesToTheirRecipientAndJournalThemAcrossRestarts() throws Exception {
+        Path outboxFile = directory.resolve("outbox.json");
+        new NotificationOutbox(outboxFile).put(new NotificationOutbox.Entry("left-over", "family", "phone,tablet",
+                MESSAGE, 1, List.of(KEY)));
+        when(notificationService.sendNotification("family", "phone,tablet", MESSAGE)).thenReturn(DELIVERED);
+        NotificationQueue queue = queue(outboxFile, 5);
+
+        queue.start();
+        queue.stop();
+
+        verify(notificationService).sendNotification("family", "phone,tablet", MESSAGE);
+        assertEquals(0, queue.pending());
+        assertEquals(JournalRecord.Stage.DELIVERED, decisionJournal.latest(KEY).stage());
+    }
+
+    @Test
+    void shouldJournalQueuedOnlyWithADurableOutbox() {
+        NotificationQueue durable = queue(directory.resolve("outbox.json"), 5);
+        NotificationQueue inMemory = queue(null, 5);
+        JournalKey other = new JournalKey(KEY.night(), KEY.location(), "other");
+
+        durable.enqueue(MESSAGE, KEY);
+        inMemory.enqueue(MESSAGE, other);
+
+        assertTrue(decisionJournal.isComplete(KEY));
+        assertEquals(JournalRecord.Stage.QUEUED, decisionJournal.latest(KEY).stage());
+        assertFalse(decisionJournal.isComplete(other));
+    }
+
+    @Test
+    void shouldJournalTheSendersOutcome() {
+        when(notificationService.sendNotification(MESSAGE)).thenThrow(failure(400)).thenReturn(DELIVERED);
+        JournalKey other = new JournalKey(KEY.night(), KEY.location(), "other");
+        NotificationQueue rejecting = queue(null, 5);
+        NotificationQueue delivering = queue(null, 5);
+
+        rejecting.start();
+        rejecting.enqueue(MESSAGE, KEY);
+        rejecting.stop();
+        delivering.start();
+        delivering.enqueue(MESSAGE, other);
+        delivering.stop();
+
+        assertEquals(JournalRecord.Stage.FAILED, decisionJournal.latest(KEY).stage());
+        assertEquals(List.of("Failed to send notification to Pushover"), decisionJournal.latest(KEY).errors());
+        assertEquals(JournalRecord.Stage.DELIVERED, decisionJournal.latest(other).stage());
+        assertTrue(decisionJournal.isComplete(other));
+    }
+
+    @Test
+    void shouldKeepUndeliveredMessagesInOutboxAtShutdown() {
+        Path outboxFile = directory.resolve("outbox.json");
+        when(notificationService.sendNotification(MESSAGE)).thenThrow(failure(503));
+        NotificationQueue queue = new NotificationQueue(notificationService, decisionJournal, 10,
+                outboxFile.toString(), 5, Duration.ofMillis(1), 5, Duration.ofSeconds(30), Duration.ofSeconds(30),
+                Duration.ofMillis(200));
+
+        queue.start();
+        queue.enqueue(MESSAGE);
+        queue.stop();
+
+        List<NotificationOutbox.Entry> entries = new NotificationOutbox(outboxFile).load();
+        assertEquals(1, entries.size());
+        assertEquals(MESSAGE, entries.getFirst().message());
+        assertTrue(entries.getFirst().attempts() >= 1);
+    }
+
+    @Test
+    void shouldSendOnTheCallersThreadAndRetryRetryableFailures() throws Exception {
+        when(notificationService.sendNotification("family", "phone", MESSAGE))
+                .thenThrow(failure(503))
+                .thenReturn(DELIVERED);
+        NotificationQueue queue = queue(directory.resolve("outbox.json"), 5);
+
+        PushoverResponse response = queue.send("family", "phone", MESSAGE, List.of(KEY));
+
+        assertEquals(DELIVERED, response);
+        verify(notificationService, times(2)).sendNotification("family", "phone", MESSAGE);
+        assertEquals(0, queue.pending());
+        assertEquals(JournalRecord.Stage.DELIVERED, decisionJournal.latest(KEY).stage());
+    }
+
+    @Test
+    void shouldThrowRejectionsFromSend() {
+        when(notificationService.sendNotification("family", null, MESSAGE)).thenThrow(failure(400));
+        NotificationQueue queue = queue(directory.resolve("outbox.json"), 5);
+
+        PushoverDeliveryException exception =
+                assertThrows(PushoverDeliveryException.class, () -> queue.send("family", null, MESSAGE, List.of(KEY)));
+
+        assertEquals(400, exception.httpStatus());
+        verify(notificationService, times(1)).sendNotification("family", null, MESSAGE);
+        assertEquals(0, queue.pending());
+        assertEquals(JournalRecord.Stage.FAILED, decisionJournal.latest(KEY).stage());
+    }
+
+    @Test
+    void shouldAppendChangesAndCompactThemOnLoad() throws Exception {
+        Path outboxFile = directory.resolve("outbox.json");
+        NotificationOutbox outbox = new NotificationOutbox(outboxFile);
+        outbox.put(new NotificationOutbox.Entry("first", MESSAGE, 0));
+        outbox.put(new NotificationOutbox.Entry("second", MESSAGE, 0));
+        outbox.remove("first");
+        outbox.put(new NotificationOutbox.Entry("second", MESSAGE, 1));
+        outbox.close();
+        Files.writeString(outboxFile, "{\"put\":{\"id\":\"torn", StandardOpenOption.APPEND);
+
+        assertEquals(5, Files.readAllLines(outboxFile).size());
+        List<NotificationOutbox.Entry> entries = new NotificationOutbox(outboxFile).load();
+
+        assertEquals(List.of(new NotificationOutbox.Entry("second", MESSAGE, 1)), entries);
+        assertEquals(1, Files.readAllLines(outboxFile).size());
+    }
+
+    @Test
+    void shouldLoadOutboxesWrittenAsOneArray() throws Exception {
+        Path outboxFile = directory.resolve("outbox.json");
+        Files.writeString(outboxFile, "[{\"id\":\"left-over\",\"message\":\"" + MESSAGE + "\",\"attempts\":2}]");
+
+        List<NotificationOutbox.Entry> entries = new NotificationOutbox(outboxFile).load();
+
+        assertEquals(List.of(new NotificationOutbox.Entry("left-over", MESSAGE, 2)), entries);
+    }
+
+    @Test
+    void shouldRejectMessagesWhenBufferIsFull() {
+        NotificationQueue queue = queue(null, 5);
+
+        queue.enqueue(MESSAGE);
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> queue.enqueue(MESSAGE));
+
+        assertEquals("Notification queue is full", exception.getMessage());
+        assertEquals(1, queue.pending());
+    }
+
+    private NotificationQueue queue(Path outboxFile, int maxAttempts) {
+        return new NotificationQueue(notificationService, decisionJournal, 1,
+                outboxFile == null ? "" : outboxFile.toString(), 5, Duration.ofMillis(1), maxAttempts,
+                Duration.ofMillis(5), Duration.ofMillis(20), Duration.ofSeconds(5));
+    }
+
+    private PushoverDeliveryException failure(int httpStatus) {
+        return new PushoverDeliveryException("Failed to send notification to Pushover", null, httpStatus, null);
+    }
+}
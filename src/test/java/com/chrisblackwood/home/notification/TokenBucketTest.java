@@ -0,0 +1,36 @@
+package com.chrisblackwood.home.notification;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TokenBucketTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void shouldAllowBurstThenSpaceCallsByRefillInterval() {
+        TokenBucket bucket = new TokenBucket(2, Duration.ofSeconds(1), now::get);
+
+        assertEquals(0, bucket.reserve());
+        assertEquals(0, bucket.reserve());
+        assertEquals(Duration.ofSeconds(1).toNanos(), bucket.reserve());
+        assertEquals(Duration.ofSeconds(2).toNanos(), bucket.reserve());
+    }
+
+    @Test
+    void shouldRefillUpToCapacity() {
+        TokenBucket bucket = new TokenBucket(2, Duration.ofSeconds(1), now::get);
+        bucket.reserve();
+        bucket.reserve();
+
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        assertEquals(0, bucket.reserve());
+        assertEquals(0, bucket.reserve());
+        assertEquals(Duration.ofSeconds(1).toNanos(), bucket.reserve());
+    }
+}
@@ -1,6 +1,12 @@
 package com.chrisblackwood.home.service;
 
+import com.chrisblackwood.home.archive.ForecastArchive;
+import com.chrisblackwood.home.cache.ForecastCache;
+import com.chrisblackwood.home.cache.GridCache;
 import com.chrisblackwood.home.dto.AirQualityResponse;
+import com.chrisblackwood.home.dto.HourlyColumns;
+import com.chrisblackwood.home.dto.Location;
+import com.chrisblackwood.home.metrics.PipelineMetrics;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -37,7 +43,7 @@ class AirQualityServiceTest {
     void setUp() {
         RestClient.Builder builder = RestClient.builder();
         server = MockRestServiceServer.bindTo(builder).build();
-        airQualityService = new AirQualityService(builder, latitude, longitude, timezone, DOMAIN);
+        airQualityService = new AirQualityService(builder, ForecastCache.disabled(), ForecastArchive.disabled(), GridCache.disabled(), PipelineMetrics.inMemory(), latitude, longitude, timezone, DOMAIN, 50, false);
     }
 
     @Test
@@ -57,11 +63,33 @@ class AirQualityServiceTest {
                 .andExpect(queryParam("timezone", timezone))
                 .andRespond(withSuccess(mapper.writeValueAsString(airQualityResponse), MediaType.APPLICATION_JSON));
 
-        AirQualityResponse response = airQualityService.getForecast();
+        HourlyColumns columns = airQualityService.getForecastColumns();
 
-        assertEquals(latitude, response.latitude());
-        assertEquals(longitude, response.longitude());
-        assertEquals(europeanAqi, response.hourly().european_aqi().getFirst());
+        assertEquals(latitude, columns.latitude());
+        assertEquals(longitude, columns.longitude());
+        assertEquals(europeanAqi, columns.series("european_aqi")[0]);
+
+        server.verify();
+    }
+
+    @Test
+    void shouldBatchFleetAirQualityIntoOneRequest() throws Exception {
+        AirQualityResponse.Hourly hourly =
+                new AirQualityResponse.Hourly(List.of("2026-03-01T22:00"), List.of(europeanAqi));
+
+        server.expect(requestTo(containsString("/air-quality")))
+                .andExpect(queryParam("latitude", "48.51,51.5"))
+                .andExpect(queryParam("longitude", "2.17,-0.12"))
+                .andExpect(queryParam("domains", DOMAIN))
+                .andRespond(withSuccess(mapper.writeValueAsString(List.of(
+                        new AirQualityResponse(48.51, 2.17, hourly),
+                        new AirQualityResponse(51.5, -0.12, hourly))), MediaType.APPLICATION_JSON));
+
+        List<HourlyColumns> responses =
+                airQualityService.getForecastColumns(List.of(new Location(48.51, 2.17), new Location(51.5, -0.12)));
+
+        assertEquals(2, responses.size());
+        assertEquals(-0.12, responses.get(1).longitude());
 
         server.verify();
     }
@@ -70,7 +98,7 @@ class AirQualityServiceTest {
     void shouldFailFastWhenDomainMissing() {
         IllegalStateException exception = assertThrows(
                 IllegalStateException.class,
-                () -> new AirQualityService(RestClient.builder(), latitude, longitude, timezone, "")
+                () -> new AirQualityService(RestClient.builder(), ForecastCache.disabled(), ForecastArchive.disabled(), GridCache.disabled(), PipelineMetrics.inMemory(), latitude, longitude, timezone, "", 50, false)
         );
 
         assertEquals("air-quality.domain must be configured", exception.getMessage());
@@ -0,0 +1,130 @@
+package com.chrisblackwood.home.service;
+
+import com.chrisblackwood.home.dto.BacktestReport;
+import com.chrisblackwood.home.dto.WindowDecision;
+import com.chrisblackwood.home.metrics.PipelineMetrics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BacktestServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 6, 1, 0, 0);
+
+    private final PipelineMetrics metrics = PipelineMetrics.inMemory();
+    private final WindowService windowService =
+            new WindowService(null, null, metrics, 3.0, 7.0, 11.0, 15.0, 18.0, 20.0, 2.0, 80.0, 1.0, 0.5, 3.0, 60.0, false);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldDecideEveryNightOfEveryArchive() throws IOException {
+        Files.writeString(directory.resolve("paris.forecast.json"), forecast(48.51, 2.17, 19.0, 2.0, 12.0));
+        Files.writeString(directory.resolve("paris.air-quality.json"), airQuality(48.51, 2.17, 20.0, 20.0, 90.0));
+        try (OutputStream output = new GZIPOutputStream(Files.newOutputStream(directory.resolve("london.forecast.json.gz")))) {
+            output.write(forecast(51.5, -0.12, 16.0, 16.0).getBytes(StandardCharsets.UTF_8));
+        }
+        StringWriter writer = new StringWriter();
+
+        BacktestReport report = new BacktestService(windowService, "", "", 2).run(directory, writer);
+
+        assertEquals(2, report.locations());
+        assertEquals(5, report.nights());
+        assertEquals(2L, report.histogram().get(WindowDecision.OPEN_OVERNIGHT));
+        assertEquals(1L, report.histogram().get(WindowDecision.OPEN_WIDE_OVERNIGHT));
+        assertEquals(1L, report.histogram().get(WindowDecision.OPEN_FIVE_MINUTES_THEN_CLOSE));
+        assertEquals(1L, report.histogram().get(WindowDecision.OPEN_TEN_MINUTES_THEN_CLOSE));
+        List<String> rows = writer.toString().lines().toList();
+        assertEquals(BacktestService.CSV_HEADER, rows.getFirst());
+        assertEquals(6, rows.size());
+        assertEquals(List.of(
+                "paris,48.51,2.17,2025-06-01,OPEN_WIDE_OVERNIGHT,19.0,5.0,60.0,0.0,19.0,20.0",
+                "paris,48.51,2.17,2025-06-02,OPEN_FIVE_MINUTES_THEN_CLOSE,2.0,5.0,60.0,0.0,2.0,20.0",
+                "paris,48.51,2.17,2025-06-03,OPEN_TEN_MINUTES_THEN_CLOSE,12.0,5.0,60.0,0.0,12.0,90.0"
+        ), rows.stream().filter(row -> row.startsWith("paris,")).toList());
+        assertEquals(0, metrics.registry().find("window.decision").timers().stream()
+                .mapToLong(timer -> timer.count()).sum());
+    }
+
+    @Test
+    void shouldSkipUnreadableArchives() throws IOException {
+        Files.writeString(directory.resolve("paris.forecast.json"), forecast(48.51, 2.17, 19.0));
+        Files.writeString(directory.resolve("broken.forecast.json"), "{\"hourly\": [");
+        Files.writeString(directory.resolve("notes.txt"), "not an archive");
+
+        BacktestReport report = new BacktestService(windowService, "", "", 1).run(directory, null);
+
+        assertEquals(1, report.locations());
+        assertEquals(1, report.skippedArchives());
+        assertEquals(1, report.nights());
+    }
+
+    @Test
+    void shouldFindEveryBedtimeOnTheTimeAxis() {
+        long first = START.toEpochSecond(ZoneOffset.UTC);
+        long[] time = new long[72];
+        for (int index = 0; index < time.length; index++) {
+            time[index] = first + index * 3_600L;
+        }
+
+        assertArrayEquals(new int[]{22, 46, 70}, BacktestService.bedtimes(time));
+    }
+
+    // One day of hourly data per night, holding that night's low from bedtime until the next bedtime.
+    private String forecast(double latitude, double longitude, double... nightLows) {
+        int hours = nightLows.length * 24;
+        StringJoiner temperatures = new StringJoiner(",");
+        StringJoiner winds = new StringJoiner(",");
+        StringJoiner humidities = new StringJoiner(",");
+        StringJoiner rains = new StringJoiner(",");
+        for (int hour = 0; hour < hours; hour++) {
+            temperatures.add(String.valueOf(hour < 22 ? nightLows[0] + 4.0 : nightLows[nightOf(hour, nightLows.length)]));
+            winds.add("5.0");
+            humidities.add("60.0");
+            rains.add("0.0");
+        }
+
+        return """
+                {"latitude": %s, "longitude": %s, "hourly": {"time": [%s], "temperature_2m": [%s], "wind_speed_10m": [%s], "relative_humidity_2m": [%s], "rain": [%s]}}
+                """.formatted(latitude, longitude, times(hours), temperatures, winds, humidities, rains);
+    }
+
+    private String airQuality(double latitude, double longitude, double... nightAqis) {
+        int hours = nightAqis.length * 24;
+        StringJoiner aqis = new StringJoiner(",");
+        for (int hour = 0; hour < hours; hour++) {
+            aqis.add(String.valueOf(nightAqis[nightOf(hour, nightAqis.length)]));
+        }
+
+        return """
+                {"latitude": %s, "longitude": %s, "hourly": {"time": [%s], "european_aqi": [%s]}}
+                """.formatted(latitude, longitude, times(hours), aqis);
+    }
+
+    private int nightOf(int hour, int nights) {
+        return Math.min(Math.max(hour - 22, 0) / 24, nights - 1);
+    }
+
+    private String times(int hours) {
+        StringJoiner times = new StringJoiner(",");
+        for (int hour = 0; hour < hours; hour++) {
+            times.add("\"" + START.plusHours(hour) + "\"");
+        }
+        return times.toString();
+    }
+}
@@ -0,0 +1,171 @@
+package com.chrisblackwood.home.service;
+
+import com.chrisblackwood.home.archive.ForecastArchive;
+import com.chrisblackwood.home.cache.ForecastCache;
+import com.chrisblackwood.home.cache.GridCache;
+import com.chrisblackwood.home.dto.AirQualityResponse;
+import com.chrisblackwood.home.dto.ForecastResponse;
+import com.chrisblackwood.home.dto.HourlyColumns;
+import com.chrisblackwood.home.dto.Location;
+import com.chrisblackwood.home.dto.LocationRecommendation;
+import com.chrisblackwood.home.dto.WindowDecision;
+import com.chrisblackwood.home.metrics.PipelineMetrics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.queryParam;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class FleetServiceTest {
+
+    private static final List<Location> LOCATIONS = List.of(new Location(48.51, 2.17), new Location(51.5, -0.12));
+
+    private final WindowService windowService =
+            new WindowService(null, null, PipelineMetrics.inMemory(), 3.0, 7.0, 11.0, 15.0, 18.0, 20.0, 2.0, 80.0, 1.0, 0.5, 3.0, 60.0, false);
+
+    @Test
+    void shouldRecommendPerLocationInConfiguredOrder() {
+        WeatherService weatherService = mock(WeatherService.class);
+        AirQualityService airQualityService = mock(AirQualityService.class);
+        when(weatherService.getForecastColumns(LOCATIONS, true)).thenReturn(List.of(forecastWith(19.0), forecastWith(2.0)));
+        when(airQualityService.getForecastColumns(LOCATIONS, true)).thenReturn(List.of(airQualityWith(20.0), airQualityWith(30.0)));
+        FleetService fleetService = new FleetService(weatherService, airQualityService, windowService, PipelineMetrics.inMemory(), "48.51,2.17; 51.5,-0.12", 0.0, 2500);
+
+        List<LocationRecommendation> recommendations = fleetService.recommendations();
+
+        assertEquals(2, recommendations.size());
+        assertEquals(LOCATIONS.get(0), recommendations.get(0).location());
+        assertEquals(WindowDecision.OPEN_WIDE_OVERNIGHT, recommendations.get(0).recommendation().decision());
+        assertEquals(WindowDecision.OPEN_FIVE_MINUTES_THEN_CLOSE, recommendations.get(1).recommendation().decision());
+        assertEquals(30.0, recommendations.get(1).recommendation().maxEuropeanAqi());
+    }
+
+    @Test
+    void shouldFallBackToWeatherOnlyWhenFleetAirQualityFails() {
+        WeatherService weatherService = mock(WeatherService.class);
+        AirQualityService airQualityService = mock(AirQualityService.class);
+        when(weatherService.getForecastColumns(LOCATIONS, true)).thenReturn(List.of(forecastWith(19.0), forecastWith(2.0)));
+        when(airQualityService.getForecastColumns(LOCATIONS, true)).thenThrow(new IllegalStateException("Failed to fetch air quality from Open-Meteo"));
+        FleetService fleetService = new FleetService(weatherService, airQualityService, windowService, PipelineMetrics.inMemory(), "48.51,2.17;51.5,-0.12", 0.0, 2500);
+
+        List<LocationRecommendation> recommendations = fleetService.recommendations();
+
+        assertEquals(WindowDecision.OPEN_WIDE_OVERNIGHT, recommendations.get(0).recommendation().decision());
+        assertNull(recommendations.get(0).recommendation().maxEuropeanAqi());
+    }
+
+    @Test
+    void shouldInterpolateLocationsFromLatticeWhenLatticeStepIsSet() {
+        WeatherService weatherService = mock(WeatherService.class);
+        AirQualityService airQualityService = mock(AirQualityService.class);
+        List<Location> lattice = List.of(
+                new Location(48.5, 2.0), new Location(48.5, 2.5),
+                new Location(49.0, 2.0), new Location(49.0, 2.5)
+        );
+        when(weatherService.getForecastColumns(lattice, false))
+                .thenReturn(List.of(forecastWith(10.0), forecastWith(20.0), forecastWith(10.0), forecastWith(20.0)));
+        when(airQualityService.getForecastColumns(lattice, false))
+                .thenReturn(List.of(airQualityWith(20.0), airQualityWith(20.0), airQualityWith(40.0), airQualityWith(40.0)));
+        FleetService fleetService = new FleetService(weatherService, airQualityService, windowService, PipelineMetrics.inMemory(), "48.6,2.25;48.9,2.4", 0.5, 2500);
+
+        List<LocationRecommendation> recommendations = fleetService.recommendations();
+
+        assertEquals(15.0, recommendations.get(0).recommendation().tonightLow(), 1e-9);
+        assertEquals(24.0, recommendations.get(0).recommendation().maxEuropeanAqi(), 1e-9);
+        assertEquals(18.0, recommendations.get(1).recommendation().tonightLow(), 1e-9);
+        assertEquals(36.0, recommendations.get(1).recommendation().maxEuropeanAqi(), 1e-9);
+    }
+
+    @Test
+    void shouldRequestLatticeNodesWithoutSnappingThemToModelCells() throws Exception {
+        RestClient.Builder builder = RestClient.builder();
+        MockRestServiceServer server = MockRestServiceServer.bindTo(builder).build();
+        GridCache gridCache = new GridCache(100, Duration.ofHours(1), 0.02, 0.4, "");
+        WeatherService weatherService = new WeatherService(builder, ForecastCache.disabled(), ForecastArchive.disabled(),
+                gridCache, PipelineMetrics.inMemory(), 48.51, 2.17, "Europe/Paris", 50, false);
+        AirQualityService airQualityService = mock(AirQualityService.class);
+        when(airQualityService.getForecastColumns(anyList(), anyBoolean())).thenThrow(new IllegalStateException("unavailable"));
+        ForecastResponse.Hourly hourly = new ForecastResponse.Hourly(List.of("2026-03-01T22:00"), List.of(12.0),
+                List.of(10.0), List.of(60.0), List.of(0.0));
+        server.expect(requestTo(containsString("/forecast")))
+                .andExpect(queryParam("latitude", "48.5,48.5,49.0,49.0"))
+                .andExpect(queryParam("longitude", "2.0,2.5,2.0,2.5"))
+                .andRespond(withSuccess(new ObjectMapper().writeValueAsString(List.of(
+                        new ForecastResponse(48.5, 2.0, hourly), new ForecastResponse(48.5, 2.5, hourly),
+                        new ForecastResponse(49.0, 2.0, hourly), new ForecastResponse(49.0, 2.5, hourly)
+                )), MediaType.APPLICATION_JSON));
+        FleetService fleetService = new FleetService(weatherService, airQualityService, windowService, PipelineMetrics.inMemory(), "48.6,2.25;48.9,2.4", 0.5, 2500);
+
+        fleetService.recommendations();
+
+        server.verify();
+        verify(airQualityService).getForecastColumns(List.of(
+                new Location(48.5, 2.0), new Location(48.5, 2.5), new Location(49.0, 2.0), new Location(49.0, 2.5)
+        ), false);
+        assertEquals(0, gridCache.size());
+    }
+
+    @Test
+    void shouldRejectLatticeLargerThanConfiguredMaximum() {
+        FleetService fleetService = new FleetService(mock(WeatherService.class), mock(AirQualityService.class), windowService, PipelineMetrics.inMemory(), "48.5,2.0;51.5,-0.5", 0.1, 100);
+
+        assertThrows(IllegalStateException.class, fleetService::recommendations);
+    }
+
+    @Test
+    void shouldBeDisabledWithoutLocations() {
+        FleetService fleetService = new FleetService(null, null, windowService, PipelineMetrics.inMemory(), "", 0.0, 2500);
+
+        assertFalse(fleetService.isEnabled());
+    }
+
+    @Test
+    void shouldRejectMalformedLocations() {
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> FleetService.parseLocations("48.51;51.5,-0.12"));
+
+        assertEquals("fleet.locations entries must be latitude,longitude pairs: 48.51", exception.getMessage());
+    }
+
+    private HourlyColumns forecastWith(double tonightLow) {
+        return HourlyColumns.from(new ForecastResponse(
+                48.51,
+                2.17,
+                new ForecastResponse.Hourly(
+                        List.of("2026-03-01T22:00", "2026-03-02T02:00", "2026-03-02T08:00"),
+                        List.of(tonightLow + 1.0, tonightLow, tonightLow + 2.0),
+                        List.of(10.0, 9.0, 8.0),
+                        List.of(60.0, 60.0, 60.0),
+                        List.of(0.0, 0.0, 0.0)
+                )
+        ));
+    }
+
+    private HourlyColumns airQualityWith(double overnightMaxEuropeanAqi) {
+        return HourlyColumns.from(new AirQualityResponse(
+                48.51,
+                2.17,
+                new AirQualityResponse.Hourly(
+                        List.of("2026-03-01T22:00", "2026-03-02T02:00", "2026-03-02T08:00"),
+                        List.of(overnightMaxEuropeanAqi - 5.0, overnightMaxEuropeanAqi, overnightMaxEuropeanAqi - 10.0)
+                )
+        ));
+    }
+}
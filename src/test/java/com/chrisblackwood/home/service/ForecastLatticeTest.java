@@ -0,0 +1,90 @@
+package com.chrisblackwood.home.service;
+
+import com.chrisblackwood.home.dto.HourlyColumns;
+import com.chrisblackwood.home.dto.Location;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ForecastLatticeTest {
+
+    private static final long[] TIME = {0L, 3_600L};
+
+    @Test
+    void shouldCoverLocationsWithLatticeOnMultiplesOfStep() {
+        ForecastLattice.Grid grid = ForecastLattice.Grid.covering(
+                List.of(new Location(48.62, 2.13), new Location(48.91, 2.58)), 0.25);
+
+        assertEquals(new ForecastLattice.Grid(48.5, 2.0, 0.25, 3, 4), grid);
+        assertEquals(new Location(48.5, 2.0), grid.points().getFirst());
+        assertEquals(new Location(49.0, 2.75), grid.points().getLast());
+    }
+
+    @Test
+    void shouldReproduceBilinearFieldExactly() {
+        ForecastLattice.Grid grid = new ForecastLattice.Grid(48.0, 2.0, 0.5, 3, 3);
+        ForecastLattice lattice = ForecastLattice.of(grid, grid.points().stream()
+                .map(point -> columns(point, field(point), field(point) + 1.0))
+                .toList());
+
+        Location location = new Location(48.3, 2.8);
+        HourlyColumns interpolated = lattice.interpolate(location);
+
+        assertArrayEquals(TIME, interpolated.time());
+        assertEquals(field(location), interpolated.series("temperature_2m")[0], 1e-9);
+        assertEquals(field(location) + 1.0, interpolated.series("temperature_2m")[1], 1e-9);
+    }
+
+    @Test
+    void shouldRenormaliseAroundMissingCorners() {
+        ForecastLattice.Grid grid = new ForecastLattice.Grid(48.0, 2.0, 1.0, 2, 2);
+        ForecastLattice lattice = ForecastLattice.of(grid, List.of(
+                columns(new Location(48.0, 2.0), 10.0, Double.NaN),
+                columns(new Location(48.0, 3.0), Double.NaN, Double.NaN),
+                columns(new Location(49.0, 2.0), 20.0, Double.NaN),
+                columns(new Location(49.0, 3.0), 30.0, Double.NaN)
+        ));
+
+        double[] temperatures = lattice.interpolate(new Location(48.5, 2.5)).series("temperature_2m");
+
+        assertEquals(20.0, temperatures[0], 1e-9);
+        assertEquals(Double.NaN, temperatures[1]);
+    }
+
+    @Test
+    void shouldClampLocationsOutsideTheLatticeToItsEdge() {
+        ForecastLattice.Grid grid = new ForecastLattice.Grid(48.0, 2.0, 1.0, 2, 2);
+        ForecastLattice lattice = ForecastLattice.of(grid, grid.points().stream()
+                .map(point -> columns(point, field(point), 0.0))
+                .toList());
+
+        assertEquals(field(new Location(49.0, 2.0)),
+                lattice.interpolate(new Location(50.0, 1.0)).series("temperature_2m")[0], 1e-9);
+    }
+
+    @Test
+    void shouldRejectPointsWithDifferentTimeAxes() {
+        ForecastLattice.Grid grid = new ForecastLattice.Grid(48.0, 2.0, 1.0, 1, 2);
+        HourlyColumns shifted = new HourlyColumns(48.0, 3.0, new long[]{3_600L, 7_200L},
+                Map.of("temperature_2m", new double[]{1.0, 2.0}));
+
+        assertThrows(IllegalStateException.class,
+                () -> ForecastLattice.of(grid, List.of(columns(new Location(48.0, 2.0), 1.0, 2.0), shifted)));
+    }
+
+    // Bilinear in latitude and longitude, so interpolation must reproduce it exactly.
+    private static double field(Location location) {
+        return 3.0 * location.latitude() - 2.0 * location.longitude()
+                + 0.5 * location.latitude() * location.longitude();
+    }
+
+    private static HourlyColumns columns(Location location, double first, double second) {
+        return new HourlyColumns(location.latitude(), location.longitude(), TIME,
+                Map.of("temperature_2m", new double[]{first, second}));
+    }
+}
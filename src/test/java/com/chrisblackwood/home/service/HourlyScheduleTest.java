@@ -0,0 +1,160 @@
+package com.chrisblackwood.home.service;
+
+import com.chrisblackwood.home.dto.HourlyColumns;
+import com.chrisblackwood.home.dto.HourlyRecommendation;
+import com.chrisblackwood.home.metrics.PipelineMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HourlyScheduleTest {
+
+    private final WindowService windowService =
+            new WindowService(null, null, PipelineMetrics.inMemory(), 3.0, 7.0, 11.0, 15.0, 18.0, 20.0, 2.0, 80.0, 1.0, 0.5, 3.0, 60.0, false);
+
+    @Test
+    void shouldMatchRecomputingEveryWindowFromScratch() {
+        Random random = new Random(42);
+        int hours = 4 * 24;
+        long[] time = hourly("2026-03-01T00:00", hours);
+        double[] temperatures = randomSeries(random, hours, 0.0, 25.0);
+        double[] winds = randomSeries(random, hours, 0.0, 40.0);
+        double[] humidities = randomSeries(random, hours, 30.0, 100.0);
+        double[] rains = randomSeries(random, hours, 0.0, 1.0);
+        long[] airQualityTime = hourly("2026-03-01T12:00", hours);
+        double[] europeanAqis = randomSeries(random, hours, 10.0, 90.0);
+        HourlyColumns forecast = new HourlyColumns(48.5, 2.17, time, Map.of(
+                "temperature_2m", temperatures,
+                "wind_speed_10m", winds,
+                "relative_humidity_2m", humidities,
+                "rain", rains
+        ));
+        HourlyColumns airQuality = new HourlyColumns(48.5, 2.17, airQualityTime, Map.of("european_aqi", europeanAqis));
+
+        for (int windowHours : new int[]{1, 3, 11, 24}) {
+            List<HourlyRecommendation> schedule = HourlySchedule.evaluate(forecast, airQuality, windowHours, 3,
+                    windowService, windowService.thresholds());
+
+            assertEquals(33, schedule.size());
+            for (HourlyRecommendation hour : schedule) {
+                int index = Arrays.binarySearch(time, hour.hour().toEpochSecond(ZoneOffset.UTC));
+                int nightEnd = index - hour.hour().getHour() + (hour.hour().getHour() >= 22 ? 24 + 9 : 9);
+                int to = Math.min(index + windowHours, nightEnd);
+                int offset = (int) ((time[0] - airQualityTime[0]) / 3_600L);
+
+                Double low = null;
+                Double maxWind = null;
+                Double maxEuropeanAqi = null;
+                double humiditySum = 0.0;
+                int humidityCount = 0;
+                double rainSum = 0.0;
+                int rainCount = 0;
+                for (int i = index; i < to; i++) {
+                    if (!Double.isNaN(temperatures[i])) {
+                        low = low == null ? temperatures[i] : Math.min(low, temperatures[i]);
+                    }
+                    if (!Double.isNaN(winds[i])) {
+                        maxWind = maxWind == null ? winds[i] : Math.max(maxWind, winds[i]);
+                    }
+                    if (!Double.isNaN(humidities[i])) {
+                        humiditySum += humidities[i];
+                        humidityCount++;
+                    }
+                    if (!Double.isNaN(rains[i])) {
+                        rainSum += rains[i];
+                        rainCount++;
+                    }
+                    int airQualityIndex = i + offset;
+                    if (airQualityIndex >= 0 && airQualityIndex < europeanAqis.length
+                            && !Double.isNaN(europeanAqis[airQualityIndex])) {
+                        double value = europeanAqis[airQualityIndex];
+                        maxEuropeanAqi = maxEuropeanAqi == null ? value : Math.max(maxEuropeanAqi, value);
+                    }
+                }
+
+                assertEquals(low, hour.low());
+                assertEquals(maxWind, hour.maxWind());
+                assertEquals(maxEuropeanAqi, hour.maxEuropeanAqi());
+                assertClose(humidityCount == 0 ? null : humiditySum / humidityCount, hour.meanHumidity());
+                assertClose(rainCount == 0 ? null : rainSum, hour.rainSum());
+                assertEquals(windowService.windowDecision(hour.low(), hour.maxWind(), hour.meanHumidity(),
+                        hour.rainSum(), hour.maxEuropeanAqi(), windowService.thresholds()), hour.decision());
+            }
+        }
+    }
+
+    @Test
+    void shouldCoverEachNightFromBedtimeToWake() {
+        HourlyColumns forecast = new HourlyColumns(48.5, 2.17, hourly("2026-03-01T20:00", 3 * 24), Map.of(
+                "temperature_2m", constant(3 * 24, 17.0)
+        ));
+
+        List<HourlyRecommendation> schedule =
+                HourlySchedule.evaluate(forecast, null, 3, 2, windowService, windowService.thresholds());
+
+        assertEquals(22, schedule.size());
+        assertEquals(LocalDateTime.parse("2026-03-01T22:00"), schedule.get(0).hour());
+        assertEquals(LocalDateTime.parse("2026-03-02T08:00"), schedule.get(10).hour());
+        assertEquals(LocalDateTime.parse("2026-03-02T22:00"), schedule.get(11).hour());
+        assertEquals(LocalDateTime.parse("2026-03-03T08:00"), schedule.get(21).hour());
+        assertTrue(schedule.get(0).open());
+        assertNull(schedule.get(0).maxEuropeanAqi());
+    }
+
+    @Test
+    void shouldJudgeEachHourOnlyOnTheHoursAhead() {
+        double[] temperatures = constant(11, 17.0);
+        temperatures[0] = 1.0;
+        HourlyColumns forecast = new HourlyColumns(48.5, 2.17, hourly("2026-03-01T22:00", 11), Map.of(
+                "temperature_2m", temperatures
+        ));
+
+        List<HourlyRecommendation> schedule =
+                HourlySchedule.evaluate(forecast, null, 3, 1, windowService, windowService.thresholds());
+
+        assertFalse(schedule.get(0).open());
+        assertTrue(schedule.get(1).open());
+        assertEquals(17.0, schedule.get(1).low());
+    }
+
+    private void assertClose(Double expected, Double actual) {
+        if (expected == null) {
+            assertNull(actual);
+        } else {
+            assertEquals(expected, actual, 1e-9);
+        }
+    }
+
+    private long[] hourly(String first, int hours) {
+        long start = LocalDateTime.parse(first).toEpochSecond(ZoneOffset.UTC);
+        long[] time = new long[hours];
+        for (int index = 0; index < hours; index++) {
+            time[index] = start + index * 3_600L;
+        }
+        return time;
+    }
+
+    private double[] randomSeries(Random random, int length, double min, double max) {
+        double[] values = new double[length];
+        for (int index = 0; index < length; index++) {
+            values[index] = random.nextInt(10) == 0 ? Double.NaN : min + random.nextDouble() * (max - min);
+        }
+        return values;
+    }
+
+    private double[] constant(int length, double value) {
+        double[] values = new double[length];
+        Arrays.fill(values, value);
+        return values;
+    }
+}
@@ -2,7 +2,9 @@ package com.chrisblackwood.home.service;
 
 import com.chrisblackwood.home.dto.PushoverRequest;
 import com.chrisblackwood.home.dto.PushoverResponse;
+import com.chrisblackwood.home.metrics.PipelineMetrics;
 import com.chrisblackwood.home.notification.NotificationService;
+import com.chrisblackwood.home.notification.PushoverDeliveryException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,10 +14,13 @@ import org.springframework.test.web.client.MockRestServiceServer;
 import org.springframework.web.client.RestClient;
 
 import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withBadRequest;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withResourceNotFound;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
 
@@ -35,7 +40,7 @@ public class NotificationServiceTest {
     void setUp() {
         RestClient.Builder builder = RestClient.builder();
         server = MockRestServiceServer.bindTo(builder).build();
-        notificationService = new NotificationService(builder, TOKEN, USER);
+        notificationService = new NotificationService(builder, PipelineMetrics.inMemory(), TOKEN, USER);
     }
 
     @Test
@@ -93,10 +98,29 @@ public class NotificationServiceTest {
         assertEquals("Failed to send notification to Pushover", exception.getMessage());
     }
 
+    @Test
+    void shouldExposePushoverErrorsOnRejectedRequest() throws Exception {
+        String uri = BASE_URL + "/messages.json";
+        PushoverResponse pushoverErrorResponse = new PushoverResponse
+                (0, "425235", List.of("user identifier is invalid"), null, null);
+
+        server.expect(requestTo(uri))
+                .andExpect(method(HttpMethod.POST))
+                .andRespond(withBadRequest()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(MAPPER.writeValueAsString(pushoverErrorResponse)));
+
+        PushoverDeliveryException exception = assertThrows(PushoverDeliveryException.class,
+                () -> notificationService.sendNotification("Hi Tester"));
+        assertEquals(400, exception.httpStatus());
+        assertEquals(pushoverErrorResponse, exception.response());
+        assertFalse(exception.isRetryable());
+    }
+
     @Test
     void shouldFailFastWhenTokenMissing() {
         IllegalStateException exception = assertThrows(IllegalStateException.class,
-                () -> new NotificationService(RestClient.builder(), "", USER));
+                () -> new NotificationService(RestClient.builder(), PipelineMetrics.inMemory(), "", USER));
 
         assertEquals("pushover.token must be configured", exception.getMessage());
     }
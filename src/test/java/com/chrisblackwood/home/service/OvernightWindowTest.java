@@ -0,0 +1,91 @@
+package com.chrisblackwood.home.service;
+
+import com.chrisblackwood.home.dto.HourlyColumns;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OvernightWindowTest {
+
+    @Test
+    void shouldLocateWindowByArithmeticOnRegularHourlySeries() {
+        long[] time = hourly("2026-03-01T00:00", 7 * 24);
+
+        OvernightWindow window = OvernightWindow.locate(time);
+
+        assertTrue(window.contiguous());
+        assertEquals(22, window.from());
+        assertEquals(33, window.to());
+        assertEquals(epochSecond("2026-03-01T22:00"), time[window.from()]);
+        assertEquals(epochSecond("2026-03-02T08:00"), time[window.to() - 1]);
+    }
+
+    @Test
+    void shouldTruncateWindowAtEndOfSeries() {
+        long[] time = hourly("2026-03-01T20:00", 5);
+
+        OvernightWindow window = OvernightWindow.locate(time);
+
+        assertTrue(window.contiguous());
+        assertEquals(2, window.from());
+        assertEquals(5, window.to());
+    }
+
+    @Test
+    void shouldBeEmptyWhenSeriesNeverReachesBedtime() {
+        OvernightWindow window = OvernightWindow.locate(hourly("2026-03-01T00:00", 12));
+
+        assertTrue(window.isEmpty());
+    }
+
+    @Test
+    void shouldFallBackToTimestampComparisonOnIrregularSeries() {
+        long[] time = {
+                epochSecond("2026-03-01T21:00"),
+                epochSecond("2026-03-01T22:00"),
+                HourlyColumns.INVALID_TIME,
+                epochSecond("2026-03-02T02:00"),
+                epochSecond("2026-03-02T08:00"),
+                epochSecond("2026-03-02T09:00")
+        };
+
+        OvernightWindow window = OvernightWindow.locate(time);
+
+        assertFalse(window.contiguous());
+        assertFalse(window.includes(time, 0));
+        assertTrue(window.includes(time, 1));
+        assertFalse(window.includes(time, 2));
+        assertTrue(window.includes(time, 3));
+        assertTrue(window.includes(time, 4));
+        assertFalse(window.includes(time, 5));
+    }
+
+    @Test
+    void shouldFallBackWhenSliceHasGapDespiteRegularEndpoints() {
+        long[] time = hourly("2026-03-01T20:00", 16);
+        time[4] = time[5];
+
+        OvernightWindow window = OvernightWindow.locate(time);
+
+        assertFalse(window.contiguous());
+        assertEquals(epochSecond("2026-03-01T22:00"), window.start());
+    }
+
+    private long[] hourly(String first, int hours) {
+        long start = epochSecond(first);
+        long[] time = new long[hours];
+        for (int index = 0; index < hours; index++) {
+            time[index] = start + index * 3_600L;
+        }
+        return time;
+    }
+
+    private long epochSecond(String value) {
+        return LocalDateTime.parse(value).toEpochSecond(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,239 @@
+package com.chrisblackwood.home.service;
+
+import com.chrisblackwood.home.dto.ForecastResponse;
+import com.chrisblackwood.home.dto.HourlyColumns;
+import com.chrisblackwood.home.dto.Location;
+import com.chrisblackwood.home.dto.PushoverResponse;
+import com.chrisblackwood.home.dto.Recipient;
+import com.chrisblackwood.home.dto.RecipientDelivery;
+import com.chrisblackwood.home.dto.WindowDecision;
+import com.chrisblackwood.home.journal.DecisionJournal;
+import com.chrisblackwood.home.metrics.PipelineMetrics;
+import com.chrisblackwood.home.notification.NotificationQueue;
+import com.chrisblackwood.home.notification.NotificationService;
+import com.chrisblackwood.home.notification.PushoverDeliveryException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RecipientFanOutServiceTest {
+
+    private static final Location PARIS = new Location(48.85, 2.35);
+    private static final Location OSLO = new Location(59.91, 10.75);
+    private static final PushoverResponse DELIVERED = new PushoverResponse(1, "request", null, null, null);
+
+    private final WindowService windowService =
+            new WindowService(null, null, PipelineMetrics.inMemory(), 3.0, 7.0, 11.0, 15.0, 18.0, 20.0, 2.0, 80.0, 1.0, 0.5, 3.0, 60.0, false);
+    private final WeatherService weatherService = mock(WeatherService.class);
+    private final AirQualityService airQualityService = mock(AirQualityService.class);
+    private final NotificationQueue notificationQueue = mock(NotificationQueue.class);
+    private final FleetService fleetService =
+            new FleetService(weatherService, airQualityService, windowService, PipelineMetrics.inMemory(), "", 0.0, 2500);
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        when(weatherService.getForecastColumns(anyList(), eq(true))).thenAnswer(invocation -> {
+            List<Location> locations = invocation.getArgument(0);
+            return locations.stream().map(location -> forecastWith(location.equals(PARIS) ? 19.0 : 2.0)).toList();
+        });
+        when(airQualityService.getForecastColumns(anyList(), eq(true))).thenThrow(new IllegalStateException("unavailable"));
+        when(notificationQueue.send(anyString(), any(), anyString(), anyList())).thenReturn(DELIVERED);
+    }
+
+    @Test
+    void shouldCoalesceIdenticalMessagesToTheSameUser() throws Exception {
+        RecipientFanOutService fanOut = fanOut(List.of(
+                new Recipient("alice-phone", "family", "phone", PARIS.latitude(), PARIS.longitude(), null),
+                new Recipient("alice-tablet", "family", "tablet", PARIS.latitude(), PARIS.longitude(), null),
+                new Recipient("bob", "bob", null, OSLO.latitude(), OSLO.longitude(), null)
+        ));
+
+        List<RecipientDelivery> deliveries = fanOut.deliver();
+
+        verify(notificationQueue, times(1))
+                .send(eq("family"), eq("phone,tablet"), eq("Open the windows wide overnight"), anyList());
+        verify(notificationQueue, times(1)).send(eq("bob"), isNull(), anyString(), anyList());
+        verify(weatherService, times(1)).getForecastColumns(List.of(PARIS, OSLO), true);
+        assertEquals(List.of("alice-phone", "alice-tablet", "bob"),
+                deliveries.stream().map(RecipientDelivery::recipient).toList());
+        assertTrue(deliveries.stream().allMatch(RecipientDelivery::delivered));
+        assertEquals(WindowDecision.OPEN_FIVE_MINUTES_THEN_CLOSE, deliveries.get(2).decision());
+    }
+
+    @Test
+    void shouldApplyPerRecipientThresholds() throws Exception {
+        RecipientFanOutService fanOut = fanOut(List.of(
+                new Recipient("warm-sleeper", "family", null, PARIS.latitude(), PARIS.longitude(), null),
+                new Recipient("cold-sleeper", "family", null, PARIS.latitude(), PARIS.longitude(),
+                        Map.of("open-overnight-max-temp", 25.0))
+        ));
+
+        List<RecipientDelivery> deliveries = fanOut.deliver();
+
+        assertEquals(WindowDecision.OPEN_WIDE_OVERNIGHT, deliveries.get(0).decision());
+        assertEquals(WindowDecision.OPEN_OVERNIGHT, deliveries.get(1).decision());
+        verify(notificationQueue, times(2)).send(eq("family"), isNull(), anyString(), anyList());
+    }
+
+    @Test
+    void shouldReportPushoverErrorsPerRecipient() throws Exception {
+        PushoverResponse rejected = new PushoverResponse(0, "request", List.of("user key is invalid"), null, null);
+        when(notificationQueue.send(eq("bob"), isNull(), anyString(), anyList()))
+                .thenThrow(new PushoverDeliveryException("Pushover rejected the request", null, 400, rejected));
+        RecipientFanOutService fanOut = fanOut(List.of(
+                new Recipient("alice", "family", null, PARIS.latitude(), PARIS.longitude(), null),
+                new Recipient("bob", "bob", null, OSLO.latitude(), OSLO.longitude(), null)
+        ));
+
+        List<RecipientDelivery> deliveries = fanOut.deliver();
+
+        assertTrue(deliveries.get(0).delivered());
+        assertEquals(1, deliveries.get(0).status());
+        assertFalse(deliveries.get(1).delivered());
+        assertEquals(0, deliveries.get(1).status());
+        assertEquals(List.of("user key is invalid"), deliveries.get(1).errors());
+    }
+
+    @Test
+    void shouldSendToDifferentRecipientsConcurrentlyUpToTheCap() throws Exception {
+        NotificationService notificationService = mock(NotificationService.class);
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        when(notificationService.sendNotification(anyString(), any(), anyString())).thenAnswer(invocation -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            Thread.sleep(50);
+            active.decrementAndGet();
+            return DELIVERED;
+        });
+        NotificationQueue queue = queue(notificationService, DecisionJournal.disabled());
+        List<Recipient> recipients = IntStream.range(0, 8)
+                .mapToObj(index -> new Recipient("user-" + index, "user-" + index, null,
+                        PARIS.latitude(), PARIS.longitude(), null))
+                .toList();
+
+        List<RecipientDelivery> deliveries = new RecipientFanOutService(fleetService, windowService, queue,
+                DecisionJournal.disabled(), recipients, 4).deliver();
+
+        assertTrue(deliveries.stream().allMatch(RecipientDelivery::delivered));
+        assertEquals(4, maxActive.get());
+        verify(notificationService, times(8)).sendNotification(anyString(), isNull(), anyString());
+    }
+
+    @Test
+    void shouldLoadRecipientsFromJsonFile() throws IOException {
+        Path file = directory.resolve("recipients.json");
+        Files.writeString(file, """
+                [{"name": "alice", "user": "family", "device": "phone", "latitude": 48.85, "longitude": 2.35,
+                  "thresholds": {"open-overnight-max-temp": 17.0}}]
+                """);
+
+        List<Recipient> recipients = RecipientFanOutService.loadRecipients(file.toString());
+
+        assertEquals(1, recipients.size());
+        assertEquals(PARIS, recipients.getFirst().location());
+        assertEquals(17.0, windowService.thresholds().withOverrides(recipients.getFirst().thresholds())
+                .openOvernightMaxTemp());
+    }
+
+    @Test
+    void shouldRejectRecipientsWithoutCoordinates() throws IOException {
+        Path file = directory.resolve("recipients.json");
+        Files.writeString(file, """
+                [{"name": "alice", "user": "family", "latitude": 48.85}]
+                """);
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> RecipientFanOutService.loadRecipients(file.toString()));
+
+        assertEquals("notification.recipients-file entry alice needs a latitude and a longitude",
+                exception.getMessage());
+    }
+
+    @Test
+    void shouldRejectUnknownThresholdOverrides() {
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> windowService.thresholds().withOverrides(Map.of("open-max-temp", 17.0)));
+
+        assertEquals("Unknown window threshold: open-max-temp", exception.getMessage());
+    }
+
+    @Test
+    void shouldResumeOnlyUndeliveredRecipientsFromTheJournal() {
+        NotificationService notificationService = mock(NotificationService.class);
+        when(notificationService.sendNotification(eq("family"), isNull(), anyString())).thenReturn(DELIVERED);
+        when(notificationService.sendNotification(eq("bob"), isNull(), anyString()))
+                .thenThrow(new IllegalStateException("Pushover unreachable"))
+                .thenReturn(DELIVERED);
+        List<Recipient> recipients = List.of(
+                new Recipient("alice", "family", null, PARIS.latitude(), PARIS.longitude(), null),
+                new Recipient("bob", "bob", null, OSLO.latitude(), OSLO.longitude(), null)
+        );
+        Path journalFile = directory.resolve("journal.jsonl");
+
+        DecisionJournal journal = new DecisionJournal(journalFile.toString(), "UTC");
+        List<RecipientDelivery> first = fanOut(recipients, journal, queue(notificationService, journal)).deliver();
+        DecisionJournal reopened = new DecisionJournal(journalFile.toString(), "UTC");
+        List<RecipientDelivery> retried = fanOut(recipients, reopened, queue(notificationService, reopened)).deliver();
+
+        assertEquals(List.of(true, false), first.stream().map(RecipientDelivery::delivered).toList());
+        assertEquals(List.of(true, true), retried.stream().map(RecipientDelivery::delivered).toList());
+        assertEquals(WindowDecision.OPEN_WIDE_OVERNIGHT, retried.get(0).decision());
+        verify(notificationService, times(1)).sendNotification(eq("family"), isNull(), anyString());
+        verify(notificationService, times(2)).sendNotification(eq("bob"), isNull(), anyString());
+        verify(weatherService, times(1)).getForecastColumns(List.of(OSLO), true);
+    }
+
+    private RecipientFanOutService fanOut(List<Recipient> recipients) {
+        return fanOut(recipients, DecisionJournal.disabled(), notificationQueue);
+    }
+
+    private RecipientFanOutService fanOut(List<Recipient> recipients, DecisionJournal decisionJournal,
+                                          NotificationQueue queue) {
+        return new RecipientFanOutService(fleetService, windowService, queue, decisionJournal, recipients, 8);
+    }
+
+    private NotificationQueue queue(NotificationService notificationService, DecisionJournal decisionJournal) {
+        return new NotificationQueue(notificationService, decisionJournal, 10, "", 1, Duration.ofMinutes(1), 1,
+                Duration.ofMillis(1), Duration.ofMillis(1), Duration.ofSeconds(5));
+    }
+
+    private HourlyColumns forecastWith(double tonightLow) {
+        return HourlyColumns.from(new ForecastResponse(
+                48.85,
+                2.35,
+                new ForecastResponse.Hourly(
+                        List.of("2026-03-01T22:00", "2026-03-02T02:00", "2026-03-02T08:00"),
+                        List.of(tonightLow + 1.0, tonightLow, tonightLow + 2.0),
+                        List.of(10.0, 9.0, 8.0),
+                        List.of(60.0, 60.0, 60.0),
+                        List.of(0.0, 0.0, 0.0)
+                )
+        ));
+    }
+}
@@ -0,0 +1,41 @@
+package com.chrisblackwood.home.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RequestedHoursTest {
+
+    @Test
+    void shouldUseTonightInTheConfiguredTimezone() {
+        // 23:30 UTC is already the next day in Tokyo.
+        Clock clock = Clock.fixed(Instant.parse("2026-03-01T23:30:00Z"), ZoneOffset.UTC);
+
+        RequestedHours hours = RequestedHours.tonight("Asia/Tokyo", clock);
+
+        assertEquals(Map.of("start_hour", "2026-03-02T22:00", "end_hour", "2026-03-03T08:00"), hours.queryParams());
+        assertEquals("&start_hour=2026-03-02T22:00&end_hour=2026-03-03T08:00", hours.cacheKey());
+    }
+
+    @Test
+    void shouldLimitToTwoDaysWhenTimezoneIsResolvedUpstream() {
+        RequestedHours hours = RequestedHours.tonight("auto", Clock.systemUTC());
+
+        assertEquals(Map.of("forecast_days", "2"), hours.queryParams());
+    }
+
+    @Test
+    void shouldSpanSeveralNights() {
+        Clock clock = Clock.fixed(Instant.parse("2026-03-01T12:00:00Z"), ZoneOffset.UTC);
+
+        RequestedHours hours = RequestedHours.nights("UTC", clock, 3);
+
+        assertEquals(Map.of("start_hour", "2026-03-01T22:00", "end_hour", "2026-03-04T08:00"), hours.queryParams());
+        assertEquals(Map.of("forecast_days", "4"), RequestedHours.nights("auto", clock, 3).queryParams());
+    }
+}
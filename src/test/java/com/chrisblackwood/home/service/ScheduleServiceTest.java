@@ -0,0 +1,50 @@
+package com.chrisblackwood.home.service;
+
+import com.chrisblackwood.home.dto.HourlyRecommendation;
+import com.chrisblackwood.home.dto.WindowDecision;
+import com.chrisblackwood.home.metrics.PipelineMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ScheduleServiceTest {
+
+    private final WindowService windowService =
+            new WindowService(null, null, PipelineMetrics.inMemory(), 3.0, 7.0, 11.0, 15.0, 18.0, 20.0, 2.0, 80.0, 1.0, 0.5, 3.0, 60.0, false);
+
+    @Test
+    void shouldMergeConsecutiveHoursWithTheSameAdvice() {
+        ScheduleService scheduleService =
+                new ScheduleService(null, null, windowService, PipelineMetrics.inMemory(), 3, 2);
+
+        String message = scheduleService.scheduleMessage(List.of(
+                hour("2026-03-06T22:00", WindowDecision.OPEN_OVERNIGHT),
+                hour("2026-03-06T23:00", WindowDecision.OPEN_OVERNIGHT),
+                hour("2026-03-07T00:00", WindowDecision.CRACK_ONE_TO_THREE_CM_OVERNIGHT),
+                hour("2026-03-07T01:00", WindowDecision.OPEN_TEN_TO_FIFTEEN_MINUTES_THEN_CRACK_ONE_CM),
+                hour("2026-03-07T02:00", WindowDecision.KEEP_CLOSED),
+                hour("2026-03-07T22:00", WindowDecision.KEEP_CLOSED)
+        ));
+
+        assertEquals("""
+                Fri 22:00-00:00 open
+                Sat 00:00-02:00 cracked
+                Sat 02:00-03:00 closed
+                Sat 22:00-23:00 closed""", message);
+    }
+
+    @Test
+    void shouldRejectMoreNightsThanTheForecastCovers() {
+        assertThrows(IllegalStateException.class,
+                () -> new ScheduleService(null, null, windowService, PipelineMetrics.inMemory(), 3, 8));
+    }
+
+    private HourlyRecommendation hour(String hour, WindowDecision decision) {
+        return new HourlyRecommendation(LocalDateTime.parse(hour), decision, windowService.opensOvernight(decision),
+                null, null, null, null, null);
+    }
+}
@@ -0,0 +1,94 @@
+package com.chrisblackwood.home.service;
+
+import com.chrisblackwood.home.dto.TuningReport;
+import com.chrisblackwood.home.metrics.PipelineMetrics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TuningServiceTest {
+
+    private static final String GRID = "open-overnight-max-temp=17:20:1;crack-overnight-max-temp=15,19.5";
+
+    private final WindowService windowService =
+            new WindowService(null, null, PipelineMetrics.inMemory(), 3.0, 7.0, 11.0, 15.0, 18.0, 20.0, 2.0, 80.0, 1.0, 0.5, 3.0, 60.0, false);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldRankConfigurationsByAgreementWithFeedback() throws IOException {
+        TuningService tuningService = new TuningService(windowService, "", "", GRID, 0, 0L, 2);
+
+        TuningReport report = tuningService.tune(labelledNights());
+
+        assertEquals(3, report.labeledNights());
+        assertEquals(5, report.evaluated());
+        assertEquals(3, report.rejected());
+        assertEquals(2, report.baseline().matches());
+        assertEquals(2, report.best().size());
+        assertEquals(Map.of("open-overnight-max-temp", 19.0, "crack-overnight-max-temp", 15.0),
+                report.best().get(0).overrides());
+        assertEquals(1.0, report.best().get(0).accuracy());
+        assertEquals(19.0, report.best().get(0).thresholds().openOvernightMaxTemp());
+        assertEquals(Map.of("open-overnight-max-temp", 20.0, "crack-overnight-max-temp", 15.0),
+                report.best().get(1).overrides());
+    }
+
+    @Test
+    void shouldEvaluateOnlyTheRequestedSample() throws IOException {
+        TuningService tuningService = new TuningService(windowService, "", "", GRID, 3, 7L, 5);
+
+        TuningReport report = tuningService.tune(labelledNights());
+
+        assertEquals(3, report.evaluated() + report.rejected());
+    }
+
+    @Test
+    void shouldParseRangesAndLists() {
+        var grid = TuningService.parseGrid("light-rain-threshold=0.1:0.3:0.1; max-overnight-european-aqi=40,60");
+
+        assertArrayEquals(new double[]{0.1, 0.2, 0.3}, grid.get(0).values());
+        assertArrayEquals(new double[]{40.0, 60.0}, grid.get(1).values());
+        assertEquals(6, TuningService.gridSize(grid));
+        assertEquals(Map.of("light-rain-threshold", 0.2, "max-overnight-european-aqi", 60.0),
+                TuningService.overrides(grid, 4));
+    }
+
+    @Test
+    void shouldRejectUnknownThresholds() {
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> TuningService.parseGrid("gale-threshold=1:2:1"));
+
+        assertEquals("tuning.grid entries must be window threshold=values: gale-threshold=1:2:1",
+                exception.getMessage());
+    }
+
+    private TuningService.LabelledNights labelledNights() throws IOException {
+        Path history = directory.resolve("history.csv");
+        Files.writeString(history, BacktestService.CSV_HEADER + "\n" + """
+                paris,48.51,2.17,2025-06-01,OPEN_OVERNIGHT,16.0,5.0,60.0,0.0,16.0,20.0
+                paris,48.51,2.17,2025-06-02,OPEN_OVERNIGHT,17.5,5.0,60.0,0.0,17.5,
+                paris,48.51,2.17,2025-06-03,OPEN_WIDE_OVERNIGHT,18.5,5.0,60.0,0.0,18.5,20.0
+                paris,48.51,2.17,2025-06-04,OPEN_WIDE_OVERNIGHT,25.0,5.0,60.0,0.0,25.0,20.0
+                """);
+        Path labels = directory.resolve("labels.csv");
+        Files.writeString(labels, """
+                location,night,decision
+                paris,2025-06-01,OPEN_OVERNIGHT
+                paris,2025-06-02,OPEN_OVERNIGHT
+                paris,2025-06-03,OPEN_OVERNIGHT
+                london,2025-06-03,KEEP_CLOSED
+                """);
+
+        return TuningService.LabelledNights.load(history, labels);
+    }
+}
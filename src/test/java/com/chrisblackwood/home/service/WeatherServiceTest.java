@@ -1,19 +1,35 @@
 package com.chrisblackwood.home.service;
 
+import com.chrisblackwood.home.archive.ForecastArchive;
+import com.chrisblackwood.home.cache.ForecastCache;
+import com.chrisblackwood.home.cache.GridCache;
 import com.chrisblackwood.home.dto.ForecastResponse;
+import com.chrisblackwood.home.dto.HourlyColumns;
+import com.chrisblackwood.home.dto.Location;
+import com.chrisblackwood.home.metrics.PipelineMetrics;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.client.MockRestServiceServer;
 import org.springframework.web.client.RestClient;
 
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
 import java.util.List;
 
 import static org.hamcrest.Matchers.containsString;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.client.ExpectedCount.times;
 import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
 import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
 
 public class WeatherServiceTest {
@@ -34,7 +50,7 @@ public class WeatherServiceTest {
     void setUp() {
         RestClient.Builder builder = RestClient.builder();
         server = MockRestServiceServer.bindTo(builder).build();
-        weatherService = new WeatherService(builder, LATITUDE, LONGITUDE, TIMEZONE) ;
+        weatherService = new WeatherService(builder, ForecastCache.disabled(), ForecastArchive.disabled(), GridCache.disabled(), PipelineMetrics.inMemory(), LATITUDE, LONGITUDE, TIMEZONE, 50, false) ;
     }
 
     @Test
@@ -51,18 +67,30 @@ public class WeatherServiceTest {
                 .andExpect(queryParam("timezone", TIMEZONE))
                 .andRespond(withSuccess(MAPPER.writeValueAsString(forecastResponse), MediaType.APPLICATION_JSON));
 
-        ForecastResponse response = weatherService.getForecast();
+        HourlyColumns columns = weatherService.getForecastColumns();
 
-        assertEquals(LATITUDE, response.latitude());
-        assertEquals(LONGITUDE, response.longitude());
-        assertEquals(TEMPERATURE, response.hourly().temperature_2m().getFirst());
-        assertEquals(WIND_SPEED, response.hourly().wind_speed_10m().getFirst());
-        assertEquals(HUMIDITY, response.hourly().relative_humidity_2m().getFirst());
-        assertEquals(RAIN_SUM, response.hourly().rain().getFirst());
+        assertEquals(LATITUDE, columns.latitude());
+        assertEquals(LONGITUDE, columns.longitude());
+        assertEquals(TEMPERATURE, columns.series("temperature_2m")[0]);
+        assertEquals(WIND_SPEED, columns.series("wind_speed_10m")[0]);
+        assertEquals(HUMIDITY, columns.series("relative_humidity_2m")[0]);
+        assertEquals(RAIN_SUM, columns.series("rain")[0]);
 
         server.verify();
     }
 
+    @Test
+    void shouldReportUpstreamErrorsAsFetchFailures() {
+        server.expect(requestTo(containsString("/forecast")))
+                .andRespond(withStatus(HttpStatus.SERVICE_UNAVAILABLE));
+
+        OpenMeteoFetchException exception =
+                assertThrows(OpenMeteoFetchException.class, () -> weatherService.getForecastColumns());
+
+        assertEquals("Failed to fetch forecast from Open-Meteo", exception.getMessage());
+        server.verify();
+    }
+
     @Test
     void shouldGetFirstNightForecast() throws Exception {
         ForecastResponse forecastResponse = new ForecastResponse(LATITUDE, LONGITUDE, new ForecastResponse.Hourly
@@ -77,12 +105,13 @@ public class WeatherServiceTest {
                 .andExpect(queryParam("timezone", TIMEZONE))
                 .andRespond(withSuccess(MAPPER.writeValueAsString(forecastResponse), MediaType.APPLICATION_JSON));
 
-        ForecastResponse response = weatherService.getForecast();
+        HourlyColumns columns = weatherService.getForecastColumns();
 
-        assertEquals(TEMPERATURE, response.hourly().temperature_2m().getFirst());
-        assertEquals(WIND_SPEED, response.hourly().wind_speed_10m().getFirst());
-        assertEquals(HUMIDITY, response.hourly().relative_humidity_2m().getFirst());
-        assertEquals(RAIN_SUM, response.hourly().rain().getFirst());
+        assertEquals(2, columns.size());
+        assertEquals(TEMPERATURE, columns.series("temperature_2m")[0]);
+        assertEquals(WIND_SPEED, columns.series("wind_speed_10m")[0]);
+        assertEquals(HUMIDITY, columns.series("relative_humidity_2m")[0]);
+        assertEquals(RAIN_SUM, columns.series("rain")[0]);
 
         server.verify();
     }
@@ -101,10 +130,83 @@ public class WeatherServiceTest {
                 .andExpect(queryParam("timezone", TIMEZONE))
                 .andRespond(withSuccess(MAPPER.writeValueAsString(forecastResponse), MediaType.APPLICATION_JSON));
 
-        ForecastResponse response = weatherService.getForecast();
+        HourlyColumns columns = weatherService.getForecastColumns();
+
+        assertTrue(Double.isNaN(columns.series("temperature_2m")[0]));
+        assertTrue(Double.isNaN(columns.series("temperature_2m")[1]));
+
+        server.verify();
+    }
+
+    @Test
+    void shouldBatchFleetForecastsIntoMultiCoordinateRequests() throws Exception {
+        RestClient.Builder builder = RestClient.builder();
+        MockRestServiceServer batchServer = MockRestServiceServer.bindTo(builder).build();
+        WeatherService batchingWeatherService = new WeatherService(builder, ForecastCache.disabled(), ForecastArchive.disabled(), GridCache.disabled(), PipelineMetrics.inMemory(), LATITUDE, LONGITUDE, TIMEZONE, 2, false);
+        List<Location> locations = List.of(new Location(48.51, 2.17), new Location(51.5, -0.12), new Location(53.48, -2.24));
+        ForecastResponse.Hourly hourly = new ForecastResponse.Hourly
+                (List.of("2026-03-01T22:00"), List.of(TEMPERATURE), List.of(WIND_SPEED), List.of(HUMIDITY), List.of(RAIN_SUM));
+
+        batchServer.expect(requestTo(containsString("/forecast")))
+                .andExpect(queryParam("latitude", "48.51,51.5"))
+                .andExpect(queryParam("longitude", "2.17,-0.12"))
+                .andRespond(withSuccess(MAPPER.writeValueAsString(List.of(
+                        new ForecastResponse(48.51, 2.17, hourly),
+                        new ForecastResponse(51.5, -0.12, hourly))), MediaType.APPLICATION_JSON));
+        batchServer.expect(requestTo(containsString("/forecast")))
+                .andExpect(queryParam("latitude", "53.48"))
+                .andExpect(queryParam("longitude", "-2.24"))
+                .andRespond(withSuccess(MAPPER.writeValueAsString(
+                        new ForecastResponse(53.48, -2.24, hourly)), MediaType.APPLICATION_JSON));
+
+        List<HourlyColumns> responses = batchingWeatherService.getForecastColumns(locations);
+
+        assertEquals(3, responses.size());
+        assertEquals(51.5, responses.get(1).latitude());
+        assertEquals(-2.24, responses.get(2).longitude());
+
+        batchServer.verify();
+    }
+
+    @Test
+    void shouldRequestOnlyTonightsOvernightHoursWhenTrimming() throws Exception {
+        RestClient.Builder builder = RestClient.builder();
+        MockRestServiceServer trimmingServer = MockRestServiceServer.bindTo(builder).build();
+        Clock clock = Clock.fixed(Instant.parse("2026-03-01T19:30:00Z"), ZoneOffset.UTC);
+        WeatherService trimmingWeatherService = new WeatherService(
+                builder, ForecastCache.disabled(), ForecastArchive.disabled(), GridCache.disabled(), PipelineMetrics.inMemory(), LATITUDE, LONGITUDE, TIMEZONE, 50, true, clock);
+        ForecastResponse forecastResponse = new ForecastResponse(LATITUDE, LONGITUDE, new ForecastResponse.Hourly
+                (List.of("2026-03-01T22:00"), List.of(TEMPERATURE), List.of(WIND_SPEED), List.of(HUMIDITY), List.of(RAIN_SUM)));
+
+        trimmingServer.expect(requestTo(containsString("/forecast")))
+                .andExpect(queryParam("start_hour", "2026-03-01T22:00"))
+                .andExpect(queryParam("end_hour", "2026-03-02T08:00"))
+                .andRespond(withSuccess(MAPPER.writeValueAsString(forecastResponse), MediaType.APPLICATION_JSON));
+
+        HourlyColumns response = trimmingWeatherService.getForecastColumns();
+
+        assertEquals(1, response.size());
+        trimmingServer.verify();
+    }
+
+    @Test
+    void shouldReuseDecodedColumnsOnlyWhileBodyIsUnchanged() throws Exception {
+        String body = MAPPER.writeValueAsString(new ForecastResponse(LATITUDE, LONGITUDE, new ForecastResponse.Hourly
+                (List.of("2026-03-01T22:00"), List.of(TEMPERATURE), List.of(WIND_SPEED), List.of(HUMIDITY), List.of(RAIN_SUM))));
+        String updated = MAPPER.writeValueAsString(new ForecastResponse(LATITUDE, LONGITUDE, new ForecastResponse.Hourly
+                (List.of("2026-03-01T22:00"), List.of(TEMPERATURE + 1.0), List.of(WIND_SPEED), List.of(HUMIDITY), List.of(RAIN_SUM))));
+        server.expect(times(2), requestTo(containsString("/forecast")))
+                .andRespond(withSuccess(body, MediaType.APPLICATION_JSON));
+        server.expect(requestTo(containsString("/forecast")))
+                .andRespond(withSuccess(updated, MediaType.APPLICATION_JSON));
 
-        assertEquals(0, response.hourly().temperature_2m().size());
+        HourlyColumns first = weatherService.getForecastColumns();
+        HourlyColumns unchanged = weatherService.getForecastColumns();
+        HourlyColumns changed = weatherService.getForecastColumns();
 
+        assertSame(first, unchanged);
+        assertNotSame(first, changed);
+        assertEquals(TEMPERATURE + 1.0, changed.series("temperature_2m")[0]);
         server.verify();
     }
 }
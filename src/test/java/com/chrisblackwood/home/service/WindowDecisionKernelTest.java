@@ -0,0 +1,100 @@
+package com.chrisblackwood.home.service;
+
+import com.chrisblackwood.home.dto.WindowDecision;
+import com.chrisblackwood.home.dto.WindowThresholds;
+import com.chrisblackwood.home.metrics.PipelineMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WindowDecisionKernelTest {
+
+    private static final int LOCATIONS = 10_000;
+    private static final double[] SPECIAL_VALUES =
+            {-0.0, 0.0, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+
+    private final WindowService windowService =
+            new WindowService(null, null, PipelineMetrics.inMemory(), 3.0, 7.0, 11.0, 15.0, 18.0, 20.0, 2.0, 80.0, 1.0, 0.5, 3.0, 60.0, false);
+
+    @Test
+    void shouldMatchScalarRulesOnRandomInputs() {
+        Random random = new Random(7);
+
+        for (int round = 0; round < 20; round++) {
+            WindowThresholds thresholds = round == 0 ? windowService.thresholds() : randomThresholds(random);
+            double[] tonightLows = new double[LOCATIONS];
+            double[] maxWinds = new double[LOCATIONS];
+            double[] meanHumidities = new double[LOCATIONS];
+            double[] rainSums = new double[LOCATIONS];
+            double[] maxEuropeanAqis = new double[LOCATIONS];
+            for (int index = 0; index < LOCATIONS; index++) {
+                tonightLows[index] = sample(random, -10.0, 30.0, thresholds.fiveMinuteVentMaxTemp(),
+                        thresholds.tenMinuteVentMaxTemp(), thresholds.tenToFifteenMinuteVentAndCrackMaxTemp(),
+                        thresholds.crackOvernightMaxTemp(), thresholds.openOvernightMaxTemp());
+                maxWinds[index] = sample(random, 0.0, 40.0, thresholds.strongWindThreshold());
+                meanHumidities[index] = sample(random, 20.0, 100.0, thresholds.highHumidityThreshold());
+                rainSums[index] = sample(random, 0.0, 6.0, thresholds.lightRainThreshold(),
+                        thresholds.heavyRainThreshold());
+                maxEuropeanAqis[index] = sample(random, 0.0, 120.0, thresholds.maxOvernightEuropeanAqi());
+            }
+
+            int[] decisions = new int[LOCATIONS];
+            WindowDecisionKernel.decide(thresholds, tonightLows, maxWinds, meanHumidities, rainSums, maxEuropeanAqis,
+                    decisions);
+
+            for (int index = 0; index < LOCATIONS; index++) {
+                WindowDecision expected = windowService.windowDecision(boxed(tonightLows[index]),
+                        boxed(maxWinds[index]), boxed(meanHumidities[index]), boxed(rainSums[index]),
+                        boxed(maxEuropeanAqis[index]), thresholds);
+                assertEquals(expected.ordinal(), decisions[index], "location " + index + " in round " + round);
+            }
+        }
+    }
+
+    @Test
+    void shouldKeepClosedWhenTonightLowIsMissing() {
+        double[] missing = {Double.NaN};
+
+        int[] decisions = windowService.windowDecisions(missing, missing, missing, missing, missing);
+
+        assertArrayEquals(new int[]{WindowDecision.KEEP_CLOSED.ordinal()}, decisions);
+    }
+
+    private WindowThresholds randomThresholds(Random random) {
+        double[] bands = new double[5];
+        for (int index = 0; index < bands.length; index++) {
+            // Rounded to whole degrees so some bands collapse onto each other.
+            bands[index] = Math.rint(random.nextDouble(-5.0, 25.0));
+        }
+        Arrays.sort(bands);
+
+        return new WindowThresholds(bands[0], bands[1], bands[2], bands[3], bands[4],
+                Math.rint(random.nextDouble(5.0, 35.0)), random.nextDouble(0.0, 4.0),
+                Math.rint(random.nextDouble(50.0, 95.0)), random.nextDouble(0.0, 3.0),
+                random.nextDouble(0.1, 1.0), random.nextDouble(1.0, 5.0), Math.rint(random.nextDouble(20.0, 100.0)));
+    }
+
+    // Mixes missing values, exact threshold hits, signed zeros and infinities in with uniform samples, since those are
+    // where a bit-level comparison could disagree with the scalar rules.
+    private double sample(Random random, double min, double max, double... boundaries) {
+        int pick = random.nextInt(12);
+        if (pick == 0) {
+            return Double.NaN;
+        }
+        if (pick == 1) {
+            return boundaries[random.nextInt(boundaries.length)];
+        }
+        if (pick == 2) {
+            return SPECIAL_VALUES[random.nextInt(SPECIAL_VALUES.length)];
+        }
+        return random.nextDouble(min, max);
+    }
+
+    private Double boxed(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
+}
@@ -2,20 +2,36 @@ package com.chrisblackwood.home.service;
 
 import com.chrisblackwood.home.dto.AirQualityResponse;
 import com.chrisblackwood.home.dto.ForecastResponse;
+import com.chrisblackwood.home.dto.HourlyColumns;
 import com.chrisblackwood.home.dto.WindowDecision;
 import com.chrisblackwood.home.dto.WindowRecommendation;
+import com.chrisblackwood.home.dto.WindowThresholds;
+import com.chrisblackwood.home.metrics.FlightRecording;
+import com.chrisblackwood.home.metrics.PipelineMetrics;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 class WindowServiceTest {
 
     private final WindowService windowService =
-            new WindowService(null, null, 3.0, 7.0, 11.0, 15.0, 18.0, 20.0, 2.0, 80.0, 1.0, 0.5, 3.0, 60.0);
+            new WindowService(null, null, PipelineMetrics.inMemory(), 3.0, 7.0, 11.0, 15.0, 18.0, 20.0, 2.0, 80.0, 1.0, 0.5, 3.0, 60.0, false);
 
     @Test
     void shouldOpenFiveMinutesThenCloseWhenTonightIsZeroToThreeDegrees() {
@@ -86,7 +102,7 @@ class WindowServiceTest {
     @Test
     void shouldUseConfiguredThresholds() {
         WindowService customThresholdWindowService =
-                new WindowService(null, null, 2.0, 6.0, 10.0, 14.0, 17.0, 18.0, 3.0, 75.0, 2.0, 0.3, 2.0, 60.0);
+                new WindowService(null, null, PipelineMetrics.inMemory(), 2.0, 6.0, 10.0, 14.0, 17.0, 18.0, 3.0, 75.0, 2.0, 0.3, 2.0, 60.0, false);
         ForecastResponse forecast = forecastWith(18.0);
 
         assertEquals(WindowDecision.OPEN_WIDE_OVERNIGHT,
@@ -104,10 +120,10 @@ class WindowServiceTest {
         ForecastResponse forecast = forecastWith(15.0, 10.0, 85.0);
         WeatherService weatherService = mock(WeatherService.class);
         AirQualityService airQualityService = mock(AirQualityService.class);
-        when(weatherService.getForecast()).thenReturn(forecast);
-        when(airQualityService.getForecast()).thenReturn(airQualityWith(35.0));
+        when(weatherService.getForecastColumns()).thenReturn(HourlyColumns.from(forecast));
+        when(airQualityService.getForecastColumns()).thenReturn(HourlyColumns.from(airQualityWith(35.0)));
         WindowService recommendationWindowService =
-                new WindowService(weatherService, airQualityService, 3.0, 7.0, 11.0, 15.0, 18.0, 20.0, 2.0, 80.0, 1.0, 0.5, 3.0, 60.0);
+                new WindowService(weatherService, airQualityService, PipelineMetrics.inMemory(), 3.0, 7.0, 11.0, 15.0, 18.0, 20.0, 2.0, 80.0, 1.0, 0.5, 3.0, 60.0, false);
 
         WindowRecommendation recommendation = recommendationWindowService.windowRecommendation();
 
@@ -121,6 +137,89 @@ class WindowServiceTest {
         assertEquals(35.0, recommendation.maxEuropeanAqi());
     }
 
+    @Test
+    void shouldReuseRecommendationWhileDecodedColumnsAreUnchanged() {
+        WeatherService weatherService = mock(WeatherService.class);
+        AirQualityService airQualityService = mock(AirQualityService.class);
+        HourlyColumns forecast = HourlyColumns.from(forecastWith(15.0, 10.0, 85.0));
+        HourlyColumns airQuality = HourlyColumns.from(airQualityWith(35.0));
+        when(weatherService.getForecastColumns()).thenReturn(forecast, forecast, HourlyColumns.from(forecastWith(2.0, 10.0, 85.0)));
+        when(airQualityService.getForecastColumns()).thenReturn(airQuality);
+        WindowService recommendationWindowService =
+                new WindowService(weatherService, airQualityService, PipelineMetrics.inMemory(), 3.0, 7.0, 11.0, 15.0, 18.0, 20.0, 2.0, 80.0, 1.0, 0.5, 3.0, 60.0, false);
+
+        WindowRecommendation first = recommendationWindowService.windowRecommendation();
+        WindowRecommendation unchanged = recommendationWindowService.windowRecommendation();
+        WindowRecommendation changed = recommendationWindowService.windowRecommendation();
+
+        assertSame(first, unchanged);
+        assertEquals(WindowDecision.OPEN_OVERNIGHT, first.decision());
+        assertEquals(WindowDecision.OPEN_FIVE_MINUTES_THEN_CLOSE, changed.decision());
+    }
+
+    @Test
+    void shouldReuseAggregationAcrossDecisionAndRecommendationOnlyForTheSameThresholds() {
+        PipelineMetrics metrics = PipelineMetrics.inMemory();
+        WindowService windowService =
+                new WindowService(null, null, metrics, 3.0, 7.0, 11.0, 15.0, 18.0, 20.0, 2.0, 80.0, 1.0, 0.5, 3.0, 60.0, false);
+        HourlyColumns forecast = HourlyColumns.from(forecastWith(19.0, 10.0, 60.0));
+        WindowThresholds warmer = windowService.thresholds().withOverrides(Map.of("open-overnight-max-temp", 25.0));
+
+        WindowDecision decision = windowService.windowDecision(forecast, null);
+        WindowRecommendation recommendation = windowService.windowRecommendation(forecast, null);
+        WindowRecommendation withWarmerThresholds = windowService.windowRecommendation(forecast, null, warmer);
+
+        assertEquals(WindowDecision.OPEN_WIDE_OVERNIGHT, decision);
+        assertEquals(decision, recommendation.decision());
+        assertEquals(WindowDecision.OPEN_OVERNIGHT, withWarmerThresholds.decision());
+        assertEquals(2, metrics.registry().find("window.decision").timers().stream()
+                .mapToLong(timer -> timer.count()).sum());
+    }
+
+    @Test
+    void shouldBuildRecommendationPayloadWhenFetchingConcurrently() {
+        WeatherService weatherService = mock(WeatherService.class);
+        AirQualityService airQualityService = mock(AirQualityService.class);
+        when(weatherService.getForecastColumns()).thenReturn(HourlyColumns.from(forecastWith(15.0, 10.0, 85.0)));
+        when(airQualityService.getForecastColumns()).thenReturn(HourlyColumns.from(airQualityWith(35.0)));
+        WindowService concurrentWindowService =
+                new WindowService(weatherService, airQualityService, PipelineMetrics.inMemory(), 3.0, 7.0, 11.0, 15.0, 18.0, 20.0, 2.0, 80.0, 1.0, 0.5, 3.0, 60.0, true);
+
+        WindowRecommendation recommendation = concurrentWindowService.windowRecommendation();
+
+        assertEquals(WindowDecision.OPEN_OVERNIGHT, recommendation.decision());
+        assertEquals(35.0, recommendation.maxEuropeanAqi());
+    }
+
+    @Test
+    void shouldFallBackToWeatherOnlyWhenConcurrentAirQualityFetchFails() {
+        WeatherService weatherService = mock(WeatherService.class);
+        AirQualityService airQualityService = mock(AirQualityService.class);
+        when(weatherService.getForecastColumns()).thenReturn(HourlyColumns.from(forecastWith(15.0, 10.0, 85.0)));
+        when(airQualityService.getForecastColumns()).thenThrow(new IllegalStateException("Failed to fetch air quality from Open-Meteo"));
+        WindowService concurrentWindowService =
+                new WindowService(weatherService, airQualityService, PipelineMetrics.inMemory(), 3.0, 7.0, 11.0, 15.0, 18.0, 20.0, 2.0, 80.0, 1.0, 0.5, 3.0, 60.0, true);
+
+        WindowRecommendation recommendation = concurrentWindowService.windowRecommendation();
+
+        assertEquals(WindowDecision.OPEN_OVERNIGHT, recommendation.decision());
+        assertNull(recommendation.maxEuropeanAqi());
+    }
+
+    @Test
+    void shouldPropagateForecastFailureWhenFetchingConcurrently() {
+        WeatherService weatherService = mock(WeatherService.class);
+        AirQualityService airQualityService = mock(AirQualityService.class);
+        when(weatherService.getForecastColumns()).thenThrow(new IllegalStateException("Failed to fetch forecast from Open-Meteo"));
+        when(airQualityService.getForecastColumns()).thenReturn(HourlyColumns.from(airQualityWith(35.0)));
+        WindowService concurrentWindowService =
+                new WindowService(weatherService, airQualityService, PipelineMetrics.inMemory(), 3.0, 7.0, 11.0, 15.0, 18.0, 20.0, 2.0, 80.0, 1.0, 0.5, 3.0, 60.0, true);
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class, concurrentWindowService::windowDecision);
+
+        assertEquals("Failed to fetch forecast from Open-Meteo", exception.getMessage());
+    }
+
     @Test
     void shouldBeMoreConservativeWhenWindIsStrong() {
         ForecastResponse forecast = forecastWith(12.0, 24.0, 60.0);
@@ -180,6 +279,46 @@ class WindowServiceTest {
                 windowService.windowDecision(forecast));
     }
 
+    @Test
+    void shouldOnlyUseFirstNightOfRegularHourlySeries() {
+        List<String> time = new ArrayList<>();
+        List<Double> temperatures = new ArrayList<>();
+        LocalDateTime start = LocalDateTime.parse("2026-03-01T00:00");
+        for (int hour = 0; hour < 48; hour++) {
+            LocalDateTime timestamp = start.plusHours(hour);
+            time.add(timestamp.toString());
+            boolean firstNight = hour >= 22 && hour <= 32;
+            temperatures.add(firstNight ? 19.0 : 1.0);
+        }
+        List<Double> constant = time.stream().map(value -> 0.0).toList();
+        ForecastResponse forecast = new ForecastResponse(48.51, 2.17,
+                new ForecastResponse.Hourly(time, temperatures, constant, constant, constant));
+
+        assertEquals(WindowDecision.OPEN_WIDE_OVERNIGHT,
+                windowService.windowDecision(forecast));
+    }
+
+    @Test
+    void shouldRecordFlightRecorderEventPerDecision(@TempDir Path directory) throws IOException {
+        FlightRecording flightRecording = new FlightRecording(directory.toString(), "default", Duration.ofHours(1));
+        flightRecording.start();
+        Path dump;
+        try {
+            windowService.windowDecision(forecastWith(15.0), airQualityWith(70.0));
+            dump = flightRecording.dump();
+        } finally {
+            flightRecording.stop();
+        }
+
+        List<RecordedEvent> decisions = RecordingFile.readAllEvents(dump).stream()
+                .filter(event -> event.getEventType().getName().equals("com.chrisblackwood.home.WindowDecision"))
+                .toList();
+        assertEquals(1, decisions.size());
+        assertEquals("OPEN_TEN_MINUTES_THEN_CLOSE", decisions.getFirst().getString("decision"));
+        assertEquals(48.51, decisions.getFirst().getDouble("latitude"));
+        assertEquals(70.0, decisions.getFirst().getDouble("overnightEuropeanAqi"));
+    }
+
     private ForecastResponse forecastWith(double tonightLow) {
         return forecastWith(tonightLow, 10.0, 60.0, 0.0);
     }
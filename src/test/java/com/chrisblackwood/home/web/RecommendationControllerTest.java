@@ -0,0 +1,78 @@
+package com.chrisblackwood.home.web;
+
+import com.chrisblackwood.home.cache.RecommendationCache;
+import com.chrisblackwood.home.dto.Location;
+import com.chrisblackwood.home.dto.WindowDecision;
+import com.chrisblackwood.home.dto.WindowRecommendation;
+import com.chrisblackwood.home.service.FleetService;
+import com.chrisblackwood.home.service.OpenMeteoFetchException;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class RecommendationControllerTest {
+
+    private final FleetService fleetService = mock(FleetService.class);
+    private final RecommendationCache recommendationCache = new RecommendationCache(Duration.ofMinutes(15), 100);
+    private final MockMvc mockMvc =
+            MockMvcBuilders.standaloneSetup(new RecommendationController(fleetService, recommendationCache)).build();
+
+    @Test
+    void shouldServeTheRecommendationForTheRequestedLocation() throws Exception {
+        when(fleetService.recommendation(new Location(48.85, 2.35))).thenReturn(new WindowRecommendation(
+                WindowDecision.OPEN_WIDE_OVERNIGHT, "Open the windows wide overnight",
+                19.0, 5.0, 60.0, 0.0, 19.0, 20.0));
+
+        mockMvc.perform(get("/recommendation").param("lat", "48.85").param("lon", "2.35"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.decision").value("OPEN_WIDE_OVERNIGHT"));
+    }
+
+    @Test
+    void shouldRejectCoordinatesOutOfRange() throws Exception {
+        mockMvc.perform(get("/recommendation").param("lat", "91").param("lon", "2.35"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/recommendation").param("lat", "48.85").param("lon", "-180.5"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/recommendation").param("lat", "north").param("lon", "2.35"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(fleetService);
+    }
+
+    @Test
+    void shouldRejectNaNCoordinates() throws Exception {
+        mockMvc.perform(get("/recommendation").param("lat", "NaN").param("lon", "2.35"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/recommendation").param("lat", "48.85").param("lon", "NaN"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(fleetService);
+    }
+
+    @Test
+    void shouldReportOpenMeteoFailuresAsBadGateway() throws Exception {
+        when(fleetService.recommendation(any())).thenThrow(new OpenMeteoFetchException("Failed to fetch forecast"));
+
+        mockMvc.perform(get("/recommendation").param("lat", "48.85").param("lon", "2.35"))
+                .andExpect(status().isBadGateway());
+    }
+
+    @Test
+    void shouldReportOtherFailuresAsServerErrors() throws Exception {
+        when(fleetService.recommendation(any())).thenThrow(new IllegalStateException("Fleet lattice too large"));
+
+        mockMvc.perform(get("/recommendation").param("lat", "48.85").param("lon", "2.35"))
+                .andExpect(status().isInternalServerError());
+    }
+}